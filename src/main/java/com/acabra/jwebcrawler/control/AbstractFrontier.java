@@ -0,0 +1,156 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking, unbounded frontier over a thread safe ordered structure. Every node inserted releases a permit of a
+ * semaphore and every node removed acquires one first, so a thread holding a permit always finds a node to remove
+ * and, over a lock free structure, producers never contend on a lock with each other or with consumers.
+ */
+abstract class AbstractFrontier extends AbstractQueue<CrawledNode> implements Frontier {
+
+    private final ConcurrentLinkedQueue<CrawledNode> poisonPills;
+    private final Semaphore available;
+
+    AbstractFrontier() {
+        this.poisonPills = new ConcurrentLinkedQueue<>();
+        this.available = new Semaphore(0);
+    }
+
+    /**
+     * Creates a view of the given frontier, sharing its poison pills and its count of nodes: a permit taken from
+     * any view is a node to remove from any of them.
+     */
+    AbstractFrontier(AbstractFrontier frontier) {
+        this.poisonPills = frontier.poisonPills;
+        this.available = frontier.available;
+    }
+
+    /**
+     * Inserts a node in the ordered structure.
+     */
+    protected abstract void insert(CrawledNode node);
+
+    /**
+     * Removes the first node of the ordered structure.
+     * @return the node removed, null if none was found, the caller holds a permit so it tries again
+     */
+    protected abstract CrawledNode removeFirst();
+
+    /**
+     * @return the first node of the ordered structure without removing it, null if the structure is empty
+     */
+    protected abstract CrawledNode first();
+
+    /**
+     * @return a weakly consistent iterator over the nodes of the ordered structure, in no particular order
+     */
+    protected abstract Iterator<CrawledNode> nodes();
+
+    @Override
+    public boolean offer(CrawledNode node) {
+        Objects.requireNonNull(node);
+        if (node.id == CrawlerApp.POISON_PILL_ID) {
+            this.poisonPills.offer(node);
+        } else {
+            insert(node);
+        }
+        this.available.release();
+        return true;
+    }
+
+    @Override
+    public void put(CrawledNode node) {
+        offer(node);
+    }
+
+    @Override
+    public boolean offer(CrawledNode node, long timeout, TimeUnit unit) {
+        return offer(node);
+    }
+
+    @Override
+    public CrawledNode take() throws InterruptedException {
+        this.available.acquire();
+        return removeAcquired();
+    }
+
+    @Override
+    public CrawledNode poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.available.tryAcquire(timeout, unit) ? removeAcquired() : null;
+    }
+
+    @Override
+    public CrawledNode poll() {
+        return this.available.tryAcquire() ? removeAcquired() : null;
+    }
+
+    private CrawledNode removeAcquired() {
+        while (true) {
+            CrawledNode node = this.poisonPills.poll();
+            if (null == node) {
+                node = removeFirst();
+            }
+            if (null != node) {
+                return node;
+            }
+            Thread.onSpinWait(); // the node of this permit was inserted where the scan had already looked
+        }
+    }
+
+    @Override
+    public CrawledNode peek() {
+        CrawledNode node = this.poisonPills.peek();
+        return null == node ? first() : node;
+    }
+
+    @Override
+    public int size() {
+        return this.available.availablePermits();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super CrawledNode> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super CrawledNode> c, int maxElements) {
+        int drained = 0;
+        CrawledNode node;
+        while (drained < maxElements && null != (node = poll())) {
+            c.add(node);
+            ++drained;
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<CrawledNode> iterator() {
+        Iterator<CrawledNode> pills = this.poisonPills.iterator();
+        Iterator<CrawledNode> nodes = nodes();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return pills.hasNext() || nodes.hasNext();
+            }
+
+            @Override
+            public CrawledNode next() {
+                return pills.hasNext() ? pills.next() : nodes.next();
+            }
+        };
+    }
+}
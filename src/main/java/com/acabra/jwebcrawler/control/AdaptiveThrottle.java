@@ -0,0 +1,103 @@
+package com.acabra.jwebcrawler.control;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adapts the concurrent downloads allowed per host using AIMD: every throttled response (429 or 503) halves the
+ * host's concurrency limit, every successful response raises it by one request per round of responses.
+ * Hosts that never throttled are not limited.
+ */
+class AdaptiveThrottle {
+
+    static final int TOO_MANY_REQUESTS = 429;
+    static final int SERVICE_UNAVAILABLE = 503;
+    private static final long MAX_RETRY_AFTER_MILLIS = 60000L;
+
+    private final ConcurrentHashMap<String, HostLimit> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param url the url about to be downloaded
+     * @return true if a download slot was taken for the url's host, false if the host is at its limit
+     */
+    boolean tryAcquire(String url) {
+        return this.hosts.computeIfAbsent(HostPolitenessScheduler.hostOf(url), host -> new HostLimit()).tryAcquire();
+    }
+
+    /**
+     * Frees the download slot of the url's host adapting its limit to the given status code.
+     * @param url the downloaded url
+     * @param statusCode the status code of the response, 0 if there was no response
+     */
+    void release(String url, int statusCode) {
+        HostLimit hostLimit = this.hosts.get(HostPolitenessScheduler.hostOf(url));
+        if (null != hostLimit) {
+            hostLimit.release(statusCode);
+        }
+    }
+
+    double getLimit(String url) {
+        HostLimit hostLimit = this.hosts.get(HostPolitenessScheduler.hostOf(url));
+        return null == hostLimit ? Double.POSITIVE_INFINITY : hostLimit.getLimit();
+    }
+
+    static boolean isThrottled(int statusCode) {
+        return statusCode == TOO_MANY_REQUESTS || statusCode == SERVICE_UNAVAILABLE;
+    }
+
+    /**
+     * Reads the Retry-After header, given either in seconds or as an http date.
+     * @param headers the response headers
+     * @param defaultMillis the delay to use if the header is absent or invalid
+     * @return the milliseconds to wait before retrying, at most one minute
+     */
+    static long retryAfterMillis(HttpHeaders headers, long defaultMillis) {
+        Optional<String> retryAfter = headers.firstValue("Retry-After");
+        long millis = defaultMillis;
+        if (retryAfter.isPresent()) {
+            String value = retryAfter.get().trim();
+            try {
+                millis = Long.parseLong(value) * 1000L;
+            } catch (NumberFormatException nfe) {
+                try {
+                    ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                    millis = Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis();
+                } catch (DateTimeParseException dtpe) {
+                    millis = defaultMillis;
+                }
+            }
+        }
+        return Math.min(MAX_RETRY_AFTER_MILLIS, Math.max(0L, millis));
+    }
+
+    private static class HostLimit {
+        private int inFlight = 0;
+        private double limit = Double.POSITIVE_INFINITY;
+
+        synchronized double getLimit() {
+            return this.limit;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (this.inFlight >= this.limit) {
+                return false;
+            }
+            ++this.inFlight;
+            return true;
+        }
+
+        synchronized void release(int statusCode) {
+            if (isThrottled(statusCode)) {
+                this.limit = Math.max(1.0, Math.min(this.limit, this.inFlight) / 2.0);
+            } else if (statusCode >= 200 && statusCode < 400 && !Double.isInfinite(this.limit)) {
+                this.limit += 1.0 / this.limit;
+            }
+            this.inFlight = Math.max(0, this.inFlight - 1);
+        }
+    }
+}
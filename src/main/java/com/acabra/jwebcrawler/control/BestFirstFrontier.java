@@ -0,0 +1,58 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Best first frontier: nodes with the lowest score are taken first, nodes with the same score in the order they
+ * were offered. The nodes are kept in a lock free skip list so concurrent producers do not serialize on a heap.
+ */
+class BestFirstFrontier extends AbstractFrontier {
+
+    private static final Comparator<ScoredNode> ORDER = Comparator.<ScoredNode>comparingDouble(n -> n.score)
+            .thenComparingLong(n -> n.sequence);
+    private final ConcurrentSkipListSet<ScoredNode> nodes = new ConcurrentSkipListSet<>(ORDER);
+    private final AtomicLong sequence = new AtomicLong();
+    private final NodeScorer scorer;
+
+    BestFirstFrontier(NodeScorer scorer) {
+        this.scorer = scorer;
+    }
+
+    @Override
+    protected void insert(CrawledNode node) {
+        this.nodes.add(new ScoredNode(node, this.scorer.score(node), this.sequence.getAndIncrement()));
+    }
+
+    @Override
+    protected CrawledNode removeFirst() {
+        ScoredNode first = this.nodes.pollFirst();
+        return null == first ? null : first.node;
+    }
+
+    @Override
+    protected CrawledNode first() {
+        Iterator<ScoredNode> iterator = this.nodes.iterator();
+        return iterator.hasNext() ? iterator.next().node : null;
+    }
+
+    @Override
+    protected Iterator<CrawledNode> nodes() {
+        return this.nodes.stream().map(scored -> scored.node).iterator();
+    }
+
+    private static class ScoredNode {
+        private final CrawledNode node;
+        private final double score;
+        private final long sequence;
+
+        private ScoredNode(CrawledNode node, double score, long sequence) {
+            this.node = node;
+            this.score = score;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.acabra.jwebcrawler.control;
 import com.acabra.jwebcrawler.model.CrawledNode;
 import com.acabra.jwebcrawler.model.CrawlerAppConfig;
 import com.acabra.jwebcrawler.service.Downloader;
+import com.acabra.jwebcrawler.utils.UrlFilter;
 import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,13 +27,25 @@ public class CrawlConsumerWorker implements Runnable {
 
     private Downloader<HttpResponse<String>> downloadService;
     private final CrawlerAppConfig config;
+    // when present every download runs on its own task of this executor instead of the worker thread
+    private final Executor fetchExecutor;
+    // compiled once per worker, shared by the producers it dispatches
+    private final UrlFilter urlFilter;
 
     public CrawlConsumerWorker(BlockingQueue<CrawledNode> queue, CrawlerCoordinator coordinator,
                                Downloader<HttpResponse<String>> downloadService, CrawlerAppConfig config) {
+        this(queue, coordinator, downloadService, config, null);
+    }
+
+    public CrawlConsumerWorker(BlockingQueue<CrawledNode> queue, CrawlerCoordinator coordinator,
+                               Downloader<HttpResponse<String>> downloadService, CrawlerAppConfig config,
+                               Executor fetchExecutor) {
         this.queue = queue;
         this.coordinator = coordinator;
         this.downloadService = downloadService;
         this.config = config;
+        this.fetchExecutor = fetchExecutor;
+        this.urlFilter = UrlFilter.of(config);
     }
 
     public boolean isEndInterrupted() {
@@ -38,17 +55,21 @@ public class CrawlConsumerWorker implements Runnable {
     @Override
     public void run() {
         try {
+            List<CrawledNode> batch = new ArrayList<>(this.config.consumerBatchSize);
             while (true) {
                 if(coordinator.isJobDone()) {
                     logger.info("Terminating as requested by coordinator...");
                     return;
                 }
-                final CrawledNode node = queue.take();
-                if (node.id == CrawlerApp.POISON_PILL_ID) {
-                    logger.info("drinking poison pill ...");
-                    return;
+                batch.clear();
+                Frontier.takeBatch(queue, batch, this.config.consumerBatchSize);
+                for (CrawledNode node : batch) {
+                    if (node.id == CrawlerApp.POISON_PILL_ID) {
+                        logger.info("drinking poison pill ...");
+                        return;
+                    }
+                    processNode(node);
                 }
-                processNode(node);
             }
         } catch (InterruptedException ie) {
             this.endInterrupted = true;
@@ -61,32 +82,115 @@ public class CrawlConsumerWorker implements Runnable {
     }
 
     private void processNode(CrawledNode node) throws InterruptedException {
-        String resolvedUrl = coordinator.resolve(node.url);
-        if (coordinator.allowLink(resolvedUrl)) {
-            coordinator.processNode(node);
-            if(attemptDownload(node.url)) {
-                this.downloadService.download(resolvedUrl)
-                    .thenAccept(httpResponse ->
-                       this.coordinator.dispatchProducer(
-                           new CrawlProducerWorker(this.coordinator, this.config, this.queue, node, httpResponse)
-                       )
-                    ).join();
+        coordinator.awaitBodyBudget(); // parsing fell behind, do not download more pages meanwhile
+        String resolvedUrl = coordinator.resolve(node.url());
+        boolean retry = coordinator.isRetry(node); // throttled before, already visited
+        boolean allowed = retry || coordinator.allowLink(resolvedUrl);
+        if (allowed && coordinator.deferIfHostBusy(node, resolvedUrl, this.queue)) {
+            return; // the host is busy, the node is back in the queue once the host is ready
+        }
+        coordinator.reportFetchStarted();
+        boolean claimed = false;
+        boolean dispatched = false;
+        try {
+            claimed = allowed && (retry || coordinator.tryClaim(resolvedUrl));
+            if (claimed) {
+                if (!retry) {
+                    coordinator.processNode(node);
+                }
+                download(node, resolvedUrl);
+                dispatched = true;
+            } else {
+                coordinator.reportFailureLink(node.url());
             }
-        } else {
-            coordinator.reportFailureLink(node.url);
+        } finally {
+            if (!dispatched) {
+                coordinator.reportFetchAbandoned();
+            }
+            if (allowed && !claimed) {
+                coordinator.releaseHostSlot(resolvedUrl, null); // another worker owns the url
+            }
+        }
+    }
+
+    /**
+     * Downloads the given node, once the response arrives it is handed over to a producer. If the worker has a
+     * fetch executor the download blocks a task of that executor, else if the configuration allows requests in
+     * flight the worker does not wait for the response, otherwise it blocks until it arrives.
+     * @param node the node to download
+     * @param resolvedUrl the url to download after resolving redirections
+     * @throws InterruptedException if interrupted while waiting for a request slot
+     */
+    private void download(CrawledNode node, String resolvedUrl) throws InterruptedException {
+        if (null != this.fetchExecutor) {
+            downloadOnFetchExecutor(node, resolvedUrl);
+            return;
         }
-        if (this.config.sleepTime > 0) {
-            Thread.sleep(this.config.sleepTime);
+        if (this.config.maxInFlightRequests <= 0) {
+            downloadAndDispatch(node, resolvedUrl);
+            return;
         }
+        coordinator.acquireFetchPermit();
+        CompletableFuture<HttpResponse<String>> response;
+        try {
+            response = fetch(resolvedUrl);
+        } catch (RuntimeException e) {
+            coordinator.releaseFetchPermit();
+            throw e;
+        }
+        response.whenComplete((httpResponse, throwable) -> {
+            coordinator.releaseFetchPermit();
+            if (null == throwable) {
+                dispatchProducer(node, httpResponse);
+            } else {
+                logger.error("Download failed for: " + resolvedUrl, throwable);
+                coordinator.reportFetchAbandoned();
+            }
+        });
+    }
+
+    private void downloadOnFetchExecutor(CrawledNode node, String resolvedUrl) throws InterruptedException {
+        coordinator.acquireFetchPermit();
+        try {
+            this.fetchExecutor.execute(() -> {
+                try {
+                    downloadAndDispatch(node, resolvedUrl);
+                } catch (Exception e) {
+                    logger.error("Download failed for: " + resolvedUrl, e);
+                    coordinator.reportFetchAbandoned();
+                } finally {
+                    coordinator.releaseFetchPermit();
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            coordinator.releaseFetchPermit();
+            throw ree;
+        }
+    }
+
+    private void downloadAndDispatch(CrawledNode node, String resolvedUrl) {
+        fetch(resolvedUrl)
+                .thenAccept(httpResponse -> dispatchProducer(node, httpResponse))
+                .join();
     }
 
     /**
-     * This filter can be extended to support other types rendering html, can be part of a filter
-     * @param url url to check
-     * @return true if valid to download such content based on this url, false otherwise
+     * Downloads the url freeing the host slot taken for it once the response arrives or the download fails.
      */
-    private boolean attemptDownload(String url) {
-        //TODO implement more checks for files that want to be downloaded since can have html render content
-        return !url.endsWith(".pdf");
+    private CompletableFuture<HttpResponse<String>> fetch(String resolvedUrl) {
+        CompletableFuture<HttpResponse<String>> response;
+        try {
+            response = this.downloadService.download(resolvedUrl);
+        } catch (RuntimeException e) {
+            coordinator.releaseHostSlot(resolvedUrl, null);
+            throw e;
+        }
+        return response.whenComplete((httpResponse, throwable) -> coordinator.releaseHostSlot(resolvedUrl, httpResponse));
+    }
+
+    private void dispatchProducer(CrawledNode node, HttpResponse<String> httpResponse) {
+        this.coordinator.dispatchProducer(
+                new CrawlProducerWorker(this.coordinator, this.config, this.queue, node, httpResponse, this.urlFilter)
+        );
     }
 }
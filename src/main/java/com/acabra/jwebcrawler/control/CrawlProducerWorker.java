@@ -3,16 +3,19 @@ package com.acabra.jwebcrawler.control;
 import com.acabra.jwebcrawler.model.CrawledNode;
 import com.acabra.jwebcrawler.model.CrawlerAppConfig;
 import com.acabra.jwebcrawler.model.ProcessedResponse;
+import com.acabra.jwebcrawler.service.LinkExtractor;
+import com.acabra.jwebcrawler.service.LinkStreamBodyHandler;
+import com.acabra.jwebcrawler.utils.UrlCanonicalizer;
+import com.acabra.jwebcrawler.utils.UrlFilter;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import org.jsoup.Jsoup;
-import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,30 +23,52 @@ public class CrawlProducerWorker implements Runnable {
 
     private static final Logger logger = LoggerFactory.getLogger(CrawlProducerWorker.class);
     private final List<String> EMPTY_RESPONSE = Collections.emptyList();
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = 1000L;
     private final CrawlerCoordinator coordinator;
     private final CrawlerAppConfig config;
     private final BlockingQueue<CrawledNode> queue;
     private final HttpResponse<String> httpResponse;
     private final CrawledNode node;
+    private final UrlCanonicalizer canonicalizer;
+    private final LinkExtractor linkExtractor;
+    private final UrlFilter urlFilter;
 
 
     public CrawlProducerWorker(CrawlerCoordinator coordinator, CrawlerAppConfig config, BlockingQueue<CrawledNode> queue,
                                CrawledNode node, HttpResponse<String> httpResponse) {
+        this(coordinator, config, queue, node, httpResponse, UrlFilter.of(config));
+    }
 
+    public CrawlProducerWorker(CrawlerCoordinator coordinator, CrawlerAppConfig config, BlockingQueue<CrawledNode> queue,
+                               CrawledNode node, HttpResponse<String> httpResponse, UrlFilter urlFilter) {
         this.coordinator = coordinator;
         this.config = config;
         this.queue = queue;
         this.httpResponse = httpResponse;
         this.node = node;
+        this.canonicalizer = new UrlCanonicalizer(config.queryParameterPolicy, config.strippedQueryParameters);
+        this.linkExtractor = LinkExtractor.of(config.linkExtractor);
+        this.urlFilter = urlFilter;
     }
 
     private ProcessedResponse processHTTPResponse(CrawledNode node, HttpResponse<String> httpResponse) {
-        String uri = node.url;
+        String uri = node.url();
+        coordinator.reportStatus(node, null == httpResponse ? 0 : httpResponse.statusCode());
+        if (null != httpResponse && AdaptiveThrottle.isThrottled(httpResponse.statusCode())) {
+            // the host asked to slow down, the page is retried later instead of being reported as failure
+            long retryAfter = AdaptiveThrottle.retryAfterMillis(httpResponse.headers(),
+                    Math.max(this.config.hostDelayMillis, DEFAULT_RETRY_AFTER_MILLIS));
+            coordinator.reportThrottled(node, coordinator.resolve(uri), retryAfter, this.queue);
+            return new ProcessedResponse(httpResponse.statusCode(), EMPTY_RESPONSE, false);
+        }
+        coordinator.reportRetriesOver(node);
         if (null != httpResponse && isResponseHtml(httpResponse.headers())) {
             int statusCode = httpResponse.statusCode();
             List<String> links = EMPTY_RESPONSE;
             if (statusCode == 200) {
-                links = extractLinks(String.valueOf(httpResponse.body()), this.config.siteURI);
+                links = this.config.streamLinkExtraction
+                        ? readLinks(String.valueOf(httpResponse.body()))
+                        : extractLinks(String.valueOf(httpResponse.body()), this.config.siteURI);
             } else if (statusCode == 301 || statusCode == 302) {
                 List<String> location = httpResponse.headers().map().get("Location");
                 if (location!= null && location.size() > 0) {
@@ -62,7 +87,7 @@ public class CrawlProducerWorker implements Runnable {
                 logger.info("Error while retrieving content from url: " + uri);
             }
             coordinator.reportFailureLink(uri);
-            return ProcessedResponse.ofError(node.url);
+            return ProcessedResponse.ofError(node.url());
         }
     }
 
@@ -72,13 +97,24 @@ public class CrawlProducerWorker implements Runnable {
     }
 
     List<String> extractLinks(String htmlResponseBody, String siteURI) {
-        Elements links = Jsoup.parse(htmlResponseBody, siteURI).select("a");
-        return withLimit(links.stream()
-                .map(element -> element.attr("abs:href"))
-                .filter(link -> link.startsWith(siteURI))
+        return withLimit(this.linkExtractor.extractLinks(htmlResponseBody, siteURI).stream()
+                .map(this.canonicalizer::canonicalize)
+                .filter(this.urlFilter)
                 .distinct()).collect(Collectors.toList());
     }
 
+    /**
+     * Reads the links of a body already reduced to a uri-list while it was downloaded, see
+     * {@link LinkStreamBodyHandler}.
+     */
+    List<String> readLinks(String uriList) {
+        if (uriList.isEmpty()) {
+            return EMPTY_RESPONSE;
+        }
+        return withLimit(Stream.of(uriList.split(LinkStreamBodyHandler.LINE_SEPARATOR))
+                .filter(link -> !link.isEmpty())).collect(Collectors.toList());
+    }
+
     private Stream<String> withLimit(Stream<String> distinctLinks) {
         if (this.config.maxChildLinks > 0) {
             return distinctLinks.limit(this.config.maxChildLinks);
@@ -89,29 +125,53 @@ public class CrawlProducerWorker implements Runnable {
     private void enqueueLocalDomainLinksFound(CrawledNode node, ProcessedResponse pResponse) {
         if (pResponse.success) {
             if (pResponse.statusCode == 200) {
-                pResponse.links.forEach(link ->
-                    attemptEnqueue(link, node.level + 1, node.buildChild(link, coordinator.getNextId()))
-                );
+                enqueueChildren(node, pResponse.links);
             } else if (pResponse.statusCode == 301 || pResponse.statusCode == 302) {
                 // requeue the page with the given redirection link
                 if (pResponse.links != null && pResponse.links.size() > 0) {
                     String newLocation = pResponse.links.get(0);
-                    String redirectUri = newLocation.startsWith(this.config.siteURI) ? newLocation : this.config.siteURI + newLocation;
-                    coordinator.reportRedirect(node.url, redirectUri);
-                    attemptEnqueue(redirectUri, node.level, node.redirection(redirectUri, coordinator.getNextId()));
+                    String redirectUri = this.canonicalizer.canonicalize(
+                            newLocation.startsWith(this.config.siteURI) ? newLocation : this.config.siteURI + newLocation);
+                    coordinator.reportRedirect(node.url(), redirectUri);
+                    if (this.urlFilter.test(redirectUri)) {
+                        attemptEnqueue(redirectUri, node.level, node.redirection(redirectUri, coordinator.getNextId()));
+                    }
                 }
             } else {
-                coordinator.reportFailureLink(node.url);
+                coordinator.reportFailureLink(node.url());
             }
         }
     }
 
+    /**
+     * Publishes all the children allowed at once, so a batching frontier claims room for them in a single step.
+     */
+    private void enqueueChildren(CrawledNode node, List<String> links) {
+        List<CrawledNode> children = new ArrayList<>(links.size());
+        for (String link : links) {
+            if (coordinator.isJobDone()) {
+                break;
+            }
+            if (allowEnqueue(node.level + 1, link)) {
+                coordinator.reportEnqueued();
+                children.add(node.buildChild(link, coordinator.getNextId()));
+            }
+        }
+        for (int i = Frontier.offerAll(queue, children); i < children.size(); i++) {
+            coordinator.reportEnqueueFailed();
+        }
+    }
+
     private boolean attemptEnqueue(String redirectUri, int level, CrawledNode redirection) {
         if (coordinator.isJobDone()) {
             return false;
         }
         if (allowEnqueue(level, redirectUri)) {
-            return queue.offer(redirection);
+            coordinator.reportEnqueued();
+            if (queue.offer(redirection)) {
+                return true;
+            }
+            coordinator.reportEnqueueFailed();
         }
         return false;
     }
@@ -123,6 +183,13 @@ public class CrawlProducerWorker implements Runnable {
         return coordinator.allowLink(link);
     }
 
+    /**
+     * @return the characters of the body held by this producer until it is done
+     */
+    long getBodyLength() {
+        return null == this.httpResponse || null == this.httpResponse.body() ? 0L : this.httpResponse.body().length();
+    }
+
     void process() {
         ProcessedResponse processedResponse = processHTTPResponse(this.node, this.httpResponse);
         enqueueLocalDomainLinksFound(node, processedResponse);
@@ -134,6 +201,8 @@ public class CrawlProducerWorker implements Runnable {
             process();
         } catch (Exception e) {
             logger.error(e.getMessage());
+        } finally {
+            coordinator.reportParseCompleted();
         }
     }
 }
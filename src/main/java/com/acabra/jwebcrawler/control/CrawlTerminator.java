@@ -9,6 +9,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
+/**
+ * Stops the workers once the coordinator reports there are no nodes left to crawl, the configured
+ * timeout acts as an upper limit for the whole crawl.
+ */
 public class CrawlTerminator implements Runnable {
 
     private static final long MILLIS_BEFORE_FORCE_TERMINATE = 800;
@@ -32,8 +36,11 @@ public class CrawlTerminator implements Runnable {
     @Override
     public void run() {
         try {
-            Thread.sleep(this.timeout);
-            logger.info("Application has reached timeout ... requesting workers to stop");
+            if (coordinator.awaitQuiescence(this.timeout)) {
+                logger.info("Application has no more pages to crawl ... requesting workers to stop");
+            } else {
+                logger.info("Application has reached timeout ... requesting workers to stop");
+            }
             coordinator.requestJobDone();
             IntStream.range(0, totalConsumers)
                     .forEach(i-> {
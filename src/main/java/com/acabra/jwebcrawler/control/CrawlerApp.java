@@ -3,8 +3,14 @@ package com.acabra.jwebcrawler.control;
 import com.acabra.jwebcrawler.model.CrawlSiteResponse;
 import com.acabra.jwebcrawler.model.CrawledNode;
 import com.acabra.jwebcrawler.model.CrawlerAppConfig;
+import com.acabra.jwebcrawler.model.ExecutionMode;
+import com.acabra.jwebcrawler.model.FrontierType;
+import com.acabra.jwebcrawler.model.NodeScorerType;
 import com.acabra.jwebcrawler.service.DownloadService;
 import com.acabra.jwebcrawler.service.Downloader;
+import com.acabra.jwebcrawler.utils.ThreadPerTaskExecutors;
+import com.acabra.jwebcrawler.utils.UrlCanonicalizer;
+import com.acabra.jwebcrawler.utils.UrlFilter;
 import com.acabra.jwebcrawler.view.CrawlerReporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -19,8 +26,7 @@ import java.util.stream.IntStream;
 public class CrawlerApp {
 
     public static final long POISON_PILL_ID = Integer.MIN_VALUE;
-    public static final CrawledNode POISON_PILL = new CrawledNode("", POISON_PILL_ID);
-    private static final double PERCENTAGE_CONSUMERS = 0.8;
+    public static final CrawledNode POISON_PILL = CrawledNode.sentinel(POISON_PILL_ID);
     private final Logger logger = LoggerFactory.getLogger(CrawlerApp.class);
     private final long startedAt = System.currentTimeMillis();
     private final CrawlerAppConfig config;
@@ -38,31 +44,55 @@ public class CrawlerApp {
         logger.info(String.format("Will attempt crawl for pages of SubDomain :<%s>", this.config.siteURI));
 
 
-        //allow other 80% of capacity of the executor for Producers.
-        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(2, config.workerCount));
+        // every worker downloads, the pages downloaded are parsed on their own pool sized for the processors
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, config.workerCount));
+        ThreadPoolExecutor parseExecutor = newParseExecutor();
 
-        final CrawlerCoordinator coordinator = new CrawlerCoordinator(executorService);
+        final CrawlerCoordinator coordinator = new CrawlerCoordinator(parseExecutor, config);
+        StageMonitor stageMonitor = new StageMonitor(coordinator, parseExecutor);
 
-        BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>(){{
-            // enqueue the first website
-            add(new CrawledNode(config.startUri, coordinator.getNextId()));
-        }};
+        UrlCanonicalizer canonicalizer =
+                new UrlCanonicalizer(config.queryParameterPolicy, config.strippedQueryParameters);
+        int totalConsumers = Math.max(1, this.config.workerCount);
+        logger.info("total consumer crawlers: " + totalConsumers + ", parse threads: "
+                + parseExecutor.getMaximumPoolSize());
 
-        int totalConsumers = Double.valueOf(
-                Math.max(1, Math.floor(this.config.workerCount * PERCENTAGE_CONSUMERS))
-        ).intValue();
-        logger.info("total consumer crawlers: " + totalConsumers);
+        Frontier queue = Frontier.of(this.config.frontier, newNodeScorer(canonicalizer), coordinator.getUrls(),
+                this.config.frontierMemoryNodes, this.config.spillDirectory, totalConsumers);
+        // enqueue the first website
+        coordinator.reportEnqueued();
+        queue.add(new CrawledNode(coordinator.getUrls(), canonicalizer.canonicalize(config.startUri),
+                coordinator.getNextId()));
 
-        List<Runnable> tasks = buildTasks(queue, coordinator, supplier, totalConsumers);
+        ExecutorService fetchExecutor = this.config.executionMode == ExecutionMode.VIRTUAL_THREADS
+                ? ThreadPerTaskExecutors.newThreadPerTaskExecutor(this.config.maxInFlightRequests)
+                : null;
+
+        List<Runnable> tasks = buildTasks(queue, coordinator, supplier, totalConsumers, fetchExecutor);
         CompletableFuture<?>[] completableFutures = tasks.stream()
                 .map(task -> CompletableFuture.runAsync(task, executorService))
                 .toArray(CompletableFuture[]::new);
 
         dispatchCrawlTerminator(queue, executorService, coordinator, totalConsumers);
+        stageMonitor.start(this.config.stageMetricsIntervalMillis);
 
         CompletableFuture.allOf(completableFutures).join();
+        stageMonitor.stop();
+        queue.close();
         executorService.shutdown();
-
+        parseExecutor.shutdown();
+        if (null != fetchExecutor) {
+            fetchExecutor.shutdownNow();
+        }
+
+        if (this.config.bloomFilterExpectedUrls > 0) {
+            long lookups = coordinator.getBloomFilterLookups();
+            logger.info(String.format("bloom filter lookups: %d, hit rate: %.2f%%, false positives: %d", lookups,
+                    lookups == 0 ? 0.0 : 100.0 * coordinator.getBloomFilterHits() / lookups,
+                    coordinator.getBloomFilterFalsePositives()));
+        }
+        logger.info(String.format("peak size of the bodies waiting to be parsed: %d KB, downloads paused: %d",
+                coordinator.getPeakPendingBodyBytes() / 1024, coordinator.getBodyBudgetWaits()));
         double totalRunningInSeconds = (System.currentTimeMillis() - this.startedAt) / 1000.0d;
         return new CrawlSiteResponse(this.config.siteURI, coordinator.getGraph(),
                 coordinator.getTotalRedirects(),
@@ -72,6 +102,26 @@ public class CrawlerApp {
                 this.config.workerCount);
     }
 
+    private ThreadPoolExecutor newParseExecutor() {
+        int parseThreads = this.config.parseThreads > 0
+                ? this.config.parseThreads
+                : Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(parseThreads, parseThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+    }
+
+    private NodeScorer newNodeScorer(UrlCanonicalizer canonicalizer) {
+        Map<String, Double> sitemapPriorities = Map.of();
+        if (this.config.frontier == FrontierType.BEST_FIRST
+                && this.config.nodeScorer == NodeScorerType.SITEMAP_PRIORITY) {
+            sitemapPriorities = DownloadService.downloadText(this.config.siteURI + "/sitemap.xml")
+                    .map(sitemap -> NodeScorer.parseSitemapPriorities(sitemap, canonicalizer))
+                    .orElseGet(Map::of);
+            logger.info(String.format("sitemap priorities found: %d", sitemapPriorities.size()));
+        }
+        return NodeScorer.of(this.config.nodeScorer, sitemapPriorities);
+    }
+
     private void dispatchCrawlTerminator(BlockingQueue<CrawledNode> queue, ExecutorService executorService,
                                          CrawlerCoordinator coordinator, int totalConsumers) {
         new Thread(
@@ -79,18 +129,35 @@ public class CrawlerApp {
             ).start();//dispatch crawl terminator
     }
 
-    private List<Runnable> buildTasks(BlockingQueue<CrawledNode> queue, CrawlerCoordinator coordinator,
-                                      Supplier<Downloader<HttpResponse<String>>> supplier, int totalConsumers) {
+    private List<Runnable> buildTasks(Frontier queue, CrawlerCoordinator coordinator,
+                                      Supplier<Downloader<HttpResponse<String>>> supplier, int totalConsumers,
+                                      Executor fetchExecutor) {
         List<Runnable> tasks = new ArrayList<>();
+        // a single downloader (and connection pool) is shared by all the consumers
+        Downloader<HttpResponse<String>> downloader = supplier.get();
         IntStream.range(0, totalConsumers).forEach(i ->
-                tasks.add(new CrawlConsumerWorker(queue, coordinator, supplier.get(), this.config.copy()))
+                tasks.add(new CrawlConsumerWorker(queue.forWorker(i), coordinator, downloader, this.config.copy(),
+                        fetchExecutor))
         );
         return tasks;
     }
 
+    private Downloader<HttpResponse<String>> newDownloader() {
+        if (this.config.streamLinkExtraction) {
+            UrlCanonicalizer canonicalizer =
+                    new UrlCanonicalizer(this.config.queryParameterPolicy, this.config.strippedQueryParameters);
+            return DownloadService.ofLinkStream(this.config.siteURI, canonicalizer,
+                    UrlFilter.of(this.config), this.config.maxChildLinks, this.config.maxBodySizeKb * 1024L);
+        }
+        return DownloadService.of(this.config.siteURI, this.config.maxBodySizeKb * 1024L);
+    }
+
     public void start() {
-        CrawlSiteResponse siteResponse = crawlSite(() -> DownloadService.of(this.config.siteURI));
-        new CrawlerReporter().report(this.config.reportToFile, siteResponse, "" + System.currentTimeMillis());
+        CrawlSiteResponse siteResponse = crawlSite(this::newDownloader);
+        String identifier = "" + System.currentTimeMillis();
+        CrawlerReporter reporter = new CrawlerReporter();
+        reporter.report(this.config.reportToFile, this.config.reportGzip, siteResponse, identifier);
+        reporter.export(this.config.exportFormat, this.config.reportGzip, siteResponse, identifier);
     }
 
     public CrawlerAppConfig getConfig() {
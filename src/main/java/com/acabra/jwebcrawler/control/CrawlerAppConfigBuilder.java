@@ -2,12 +2,23 @@ package com.acabra.jwebcrawler.control;
 
 import com.acabra.jwebcrawler.dto.DefaultCrawlerConfiguration;
 import com.acabra.jwebcrawler.model.CrawlerAppConfig;
+import com.acabra.jwebcrawler.model.ExecutionMode;
+import com.acabra.jwebcrawler.model.ExportFormat;
+import com.acabra.jwebcrawler.model.FrontierType;
+import com.acabra.jwebcrawler.model.LinkExtractorType;
+import com.acabra.jwebcrawler.model.NodeScorerType;
+import com.acabra.jwebcrawler.model.QueryParameterPolicy;
 import com.acabra.jwebcrawler.utils.JsonHelper;
+import com.acabra.jwebcrawler.utils.ThreadPerTaskExecutors;
 import com.acabra.jwebcrawler.utils.UrlValidator;
 import java.net.URL;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class CrawlerAppConfigBuilder {
 
+    private static final Logger logger = LoggerFactory.getLogger(CrawlerAppConfigBuilder.class);
     private static final JsonHelper jsonHelper = JsonHelper.getInstance();
     final DefaultCrawlerConfiguration defaults;
 
@@ -18,6 +29,31 @@ class CrawlerAppConfigBuilder {
     private int siteHeight;
     private int maxSiteNodeLinks;
     private boolean reportToFile;
+    private int maxInFlightRequests;
+    private ExecutionMode executionMode;
+    private boolean exactUrlDedup;
+    private int bloomFilterExpectedUrls;
+    private QueryParameterPolicy queryParameterPolicy;
+    private List<String> strippedQueryParameters;
+    private boolean streamLinkExtraction;
+    private LinkExtractorType linkExtractor;
+    private int maxBodySizeKb;
+    private List<String> pathScopes;
+    private List<String> excludedExtensions;
+    private int maxQueryParameters;
+    private List<String> includePatterns;
+    private List<String> excludePatterns;
+    private FrontierType frontier;
+    private NodeScorerType nodeScorer;
+    private int frontierMemoryNodes;
+    private String spillDirectory;
+    private int consumerBatchSize;
+    private int parseThreads;
+    private long stageMetricsIntervalMillis;
+    private int maxPendingBodySizeKb;
+    private boolean reportGzip;
+    private ExportFormat exportFormat;
+    private long hostDelayMillis;
 
     CrawlerAppConfigBuilder() {
         defaults = jsonHelper.fromJsonFile("config.json", DefaultCrawlerConfiguration.class);
@@ -28,12 +64,41 @@ class CrawlerAppConfigBuilder {
         this.siteHeight = defaults.siteHeight;
         this.maxSiteNodeLinks = defaults.maxSiteNodeLinks;
         this.reportToFile = defaults.reportToFile;
+        this.maxInFlightRequests = defaults.maxInFlightRequests;
+        this.executionMode = ExecutionMode.of(defaults.executionMode);
+        this.exactUrlDedup = defaults.exactUrlDedup;
+        this.bloomFilterExpectedUrls = defaults.bloomFilterExpectedUrls;
+        this.queryParameterPolicy = QueryParameterPolicy.of(defaults.queryParameterPolicy);
+        this.strippedQueryParameters = defaults.strippedQueryParameters;
+        this.streamLinkExtraction = defaults.streamLinkExtraction;
+        this.linkExtractor = LinkExtractorType.of(defaults.linkExtractor);
+        this.maxBodySizeKb = defaults.maxBodySizeKb;
+        this.pathScopes = defaults.pathScopes;
+        this.excludedExtensions = defaults.excludedExtensions;
+        this.maxQueryParameters = defaults.maxQueryParameters;
+        this.includePatterns = defaults.includePatterns;
+        this.excludePatterns = defaults.excludePatterns;
+        this.frontier = FrontierType.of(defaults.frontier);
+        this.nodeScorer = NodeScorerType.of(defaults.nodeScorer);
+        this.frontierMemoryNodes = defaults.frontierMemoryNodes;
+        this.spillDirectory = defaults.spillDirectory;
+        this.consumerBatchSize = defaults.consumerBatchSize;
+        this.parseThreads = defaults.parseThreads;
+        this.stageMetricsIntervalMillis = defaults.stageMetricsIntervalMillis;
+        this.maxPendingBodySizeKb = defaults.maxPendingBodySizeKb;
+        this.reportGzip = defaults.reportGzip;
+        this.exportFormat = ExportFormat.of(defaults.exportFormat);
+        this.hostDelayMillis = defaults.hostDelayMillis;
     }
     public CrawlerAppConfigBuilder withDomain(String domain) {
         this.domain = domain;
         return this;
     }
 
+    /**
+     * @deprecated workers no longer sleep between pages, the value is ignored, use {@link #withHostDelayMillis}
+     */
+    @Deprecated
     public CrawlerAppConfigBuilder withSleepWorkerTime(double sleepTime) {
         this.sleepTime = sleepTime;
         return this;
@@ -64,17 +129,173 @@ class CrawlerAppConfigBuilder {
         return this;
     }
 
+    public CrawlerAppConfigBuilder withMaxInFlightRequests(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withExactUrlDedup(boolean exactUrlDedup) {
+        this.exactUrlDedup = exactUrlDedup;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withBloomFilterExpectedUrls(int bloomFilterExpectedUrls) {
+        this.bloomFilterExpectedUrls = bloomFilterExpectedUrls;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withQueryParameterPolicy(QueryParameterPolicy queryParameterPolicy) {
+        this.queryParameterPolicy = queryParameterPolicy;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withStrippedQueryParameters(List<String> strippedQueryParameters) {
+        this.strippedQueryParameters = strippedQueryParameters;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withStreamLinkExtraction(boolean streamLinkExtraction) {
+        this.streamLinkExtraction = streamLinkExtraction;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withLinkExtractor(LinkExtractorType linkExtractor) {
+        this.linkExtractor = linkExtractor;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withMaxBodySizeKb(int maxBodySizeKb) {
+        this.maxBodySizeKb = maxBodySizeKb;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withPathScopes(List<String> pathScopes) {
+        this.pathScopes = pathScopes;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withExcludedExtensions(List<String> excludedExtensions) {
+        this.excludedExtensions = excludedExtensions;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withMaxQueryParameters(int maxQueryParameters) {
+        this.maxQueryParameters = maxQueryParameters;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withIncludePatterns(List<String> includePatterns) {
+        this.includePatterns = includePatterns;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withExcludePatterns(List<String> excludePatterns) {
+        this.excludePatterns = excludePatterns;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withFrontier(FrontierType frontier) {
+        this.frontier = frontier;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withNodeScorer(NodeScorerType nodeScorer) {
+        this.nodeScorer = nodeScorer;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withFrontierMemoryNodes(int frontierMemoryNodes) {
+        this.frontierMemoryNodes = frontierMemoryNodes;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withConsumerBatchSize(int consumerBatchSize) {
+        this.consumerBatchSize = consumerBatchSize;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withStageMetricsIntervalMillis(long stageMetricsIntervalMillis) {
+        this.stageMetricsIntervalMillis = stageMetricsIntervalMillis;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withMaxPendingBodySizeKb(int maxPendingBodySizeKb) {
+        this.maxPendingBodySizeKb = maxPendingBodySizeKb;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withReportGzip(boolean reportGzip) {
+        this.reportGzip = reportGzip;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withExportFormat(ExportFormat exportFormat) {
+        this.exportFormat = exportFormat;
+        return this;
+    }
+
+    public CrawlerAppConfigBuilder withHostDelayMillis(long hostDelayMillis) {
+        this.hostDelayMillis = hostDelayMillis;
+        return this;
+    }
+
     public CrawlerAppConfig build() {
         URL rootUrl = UrlValidator.buildURL(domain);
-        return CrawlerAppConfig.of(
+        CrawlerAppConfig config = CrawlerAppConfig.of(
                 rootUrl,
                 this.workerCount,
                 this.sleepTime,
                 this.maxExecutionTime,
                 this.siteHeight,
                 this.maxSiteNodeLinks,
-                this.reportToFile
+                this.reportToFile,
+                this.maxInFlightRequests,
+                this.executionMode,
+                this.exactUrlDedup,
+                this.bloomFilterExpectedUrls,
+                this.queryParameterPolicy,
+                this.strippedQueryParameters,
+                this.streamLinkExtraction,
+                this.linkExtractor,
+                this.maxBodySizeKb,
+                this.pathScopes,
+                this.excludedExtensions,
+                this.maxQueryParameters,
+                this.includePatterns,
+                this.excludePatterns,
+                this.frontier,
+                this.nodeScorer,
+                this.frontierMemoryNodes,
+                this.spillDirectory,
+                this.consumerBatchSize,
+                this.parseThreads,
+                this.stageMetricsIntervalMillis,
+                this.maxPendingBodySizeKb,
+                this.reportGzip,
+                this.exportFormat,
+                this.hostDelayMillis
         );
+        if (config.executionMode == ExecutionMode.VIRTUAL_THREADS
+                && !ThreadPerTaskExecutors.isVirtualThreadSupported()) {
+            logger.warn(String.format("Virtual threads are not supported by the runtime, downloads run on at most "
+                    + "%d platform threads (maxInFlightRequests)", config.maxInFlightRequests));
+        }
+        return config;
     }
 
     private CrawlerAppConfigBuilder of(String subDomainStr, String reqThreadCountStr, String reqSleepThreadTime,
@@ -98,6 +319,8 @@ class CrawlerAppConfigBuilder {
     }
 
     private CrawlerAppConfigBuilder of(String subDomainStr, String maxExecutionTime, String reqThreadCountStr, String reqSleepThreadTime) {
+        logger.warn("The worker await time argument is deprecated and ignored, workers no longer wait between pages, "
+                + "set hostDelayMillis in the configuration to pace the downloads");
         return of(subDomainStr, maxExecutionTime, reqThreadCountStr)
                 .withSleepWorkerTime(Double.parseDouble(reqSleepThreadTime));
     }
@@ -1,25 +1,32 @@
 package com.acabra.jwebcrawler.control;
 
+import com.acabra.jwebcrawler.model.CrawlGraph;
 import com.acabra.jwebcrawler.model.CrawledNode;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
+import com.acabra.jwebcrawler.model.CrawlerAppConfig;
+import com.acabra.jwebcrawler.model.UrlArena;
+import com.acabra.jwebcrawler.utils.BloomFilter;
+import com.acabra.jwebcrawler.utils.FingerprintUrlSet;
+import com.acabra.jwebcrawler.utils.UrlSet;
+import java.net.http.HttpResponse;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class is thread safe, as all of its attributes are final and the public methods are either atomic
- * or synchronized.
+ * This class is thread safe, as all of its attributes are final and the public methods are atomic, no method
+ * locks the coordinator so workers do not serialize on it.
  *
  * This object coordinates the work done by the workers, by controlling the links visited, the redirections needed
  * and the list of failures.
@@ -30,57 +37,154 @@ public class CrawlerCoordinator {
 
 
     private final Logger logger = LoggerFactory.getLogger(CrawlerCoordinator.class);
-    private static final Comparator<CrawledNode> PATH_COMPARATOR = (n1, n2) -> n2.url.compareTo(n1.url);
-    private final Set<String> visited =  Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private static final int EXPECTED_URLS = 1 << 14;
+    private final UrlSet visited;
     private final ConcurrentHashMap<String, String> redirects = new ConcurrentHashMap<>();
-    private final Set<String> failureLinks = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final UrlSet failureLinks;
+    // visited and failed urls, null if disabled, tells most new links apart without looking up both sets
+    private final BloomFilter seenUrls;
+    private static final double BLOOM_FILTER_FALSE_POSITIVE_RATE = 0.01;
+    private final LongAdder bloomFilterLookups = new LongAdder();
+    private final LongAdder bloomFilterHits = new LongAdder();
+    private final LongAdder bloomFilterFalsePositives = new LongAdder();
     private final AtomicInteger ids = new AtomicInteger();
-    private final Map<Long, Set<CrawledNode>> graph = new HashMap<>();
+    // the urls of the crawl, interned once for the graph, the frontier and the nodes
+    private final UrlArena urls = new UrlArena();
+    private final CrawlGraph graph = new CrawlGraph(this.urls);
     private final ExecutorService ex;
     private LongAdder rejections = new LongAdder();
     private volatile boolean jobDone = false;
 
+    // nodes queued, being fetched or being parsed, the crawl is complete once this reaches zero
+    private final AtomicInteger pendingNodes = new AtomicInteger();
+    private final AtomicInteger queuedNodes = new AtomicInteger();
+    private final AtomicInteger fetchingNodes = new AtomicInteger();
+    private final AtomicInteger parsingNodes = new AtomicInteger();
+    private final CountDownLatch quiescence = new CountDownLatch(1);
+
+    // bounds the requests in flight when consumers do not wait for their downloads, null if not bounded
+    private final Semaphore inFlightRequests;
+
+    // bytes of the bodies downloaded and not parsed yet, consumers stop downloading beyond the budget
+    private final long pendingBodyBudget;
+    private final AtomicLong pendingBodyBytes = new AtomicLong();
+    private final AtomicLong peakPendingBodyBytes = new AtomicLong();
+    private final LongAdder bodyBudgetWaits = new LongAdder();
+    private final ReentrantLock bodyBudgetLock = new ReentrantLock();
+    private final Condition bodiesParsed = this.bodyBudgetLock.newCondition();
+    private static final long BODY_BUDGET_RECHECK_MILLIS = 100L;
+    // bodies are held as strings, utf-16 takes two bytes per character
+    private static final long BODY_BYTES_PER_CHAR = Character.BYTES;
+
+    private final HostPolitenessScheduler politeness;
+    private static final int MAX_THROTTLE_RETRIES = 3;
+    private static final long HOST_BUSY_RETRY_MILLIS = 50L;
+    private final AdaptiveThrottle throttle = new AdaptiveThrottle();
+    private final ConcurrentHashMap<Long, Integer> throttleRetries = new ConcurrentHashMap<>();
+
     CrawlerCoordinator(ExecutorService executorService) {
+        this(executorService, 0, 0L, false, 0, 0L);
+    }
+
+    CrawlerCoordinator(ExecutorService executorService, CrawlerAppConfig config) {
+        this(executorService, config.maxInFlightRequests, config.hostDelayMillis, config.exactUrlDedup,
+                config.bloomFilterExpectedUrls, config.maxPendingBodySizeKb * 1024L);
+    }
+
+    /**
+     * @param pendingBodyBudget the bytes of the bodies not parsed yet beyond which consumers stop downloading,
+     * 0 for no limit
+     */
+    CrawlerCoordinator(ExecutorService executorService, int maxInFlightRequests, long hostDelayMillis,
+                       boolean exactUrlDedup, int bloomFilterExpectedUrls, long pendingBodyBudget) {
         this.ex = executorService;
+        int expectedUrls = bloomFilterExpectedUrls > 0 ? bloomFilterExpectedUrls : EXPECTED_URLS;
+        this.visited = UrlSet.of(exactUrlDedup, expectedUrls);
+        this.failureLinks = UrlSet.of(exactUrlDedup, expectedUrls);
+        this.seenUrls = bloomFilterExpectedUrls > 0
+                ? new BloomFilter(bloomFilterExpectedUrls, BLOOM_FILTER_FALSE_POSITIVE_RATE)
+                : null;
+        this.inFlightRequests = maxInFlightRequests > 0 ? new Semaphore(maxInFlightRequests) : null;
+        this.politeness = new HostPolitenessScheduler(hostDelayMillis);
+        this.pendingBodyBudget = pendingBodyBudget;
     }
 
     /**
      * This method indicates whether or not the given link is allowed for processing, it should not have been
-     * visited, not marked as failure and should start with the crawl site domain.
+     * visited, not marked as failure and should start with the crawl site domain. This is only a hint, the link
+     * may be claimed by another worker right after, use {@link #tryClaim} to own it.
      * @param otherDomain
      * @return
      */
-    public synchronized boolean allowLink(String otherDomain) {
-        return !visited.contains(otherDomain) && !failureLinks.contains(otherDomain);
+    public boolean allowLink(String otherDomain) {
+        if (null != this.seenUrls) {
+            this.bloomFilterLookups.increment();
+            if (!this.seenUrls.mightContain(FingerprintUrlSet.fingerprint(otherDomain))) {
+                this.bloomFilterHits.increment();
+                return true; // definitely new
+            }
+        }
+        boolean allowed = !visited.contains(otherDomain) && !failureLinks.contains(otherDomain);
+        if (allowed && null != this.seenUrls) {
+            this.bloomFilterFalsePositives.increment();
+        }
+        return allowed;
+    }
+
+    /**
+     * Atomically checks and marks the given url as visited, among concurrent callers for the same url only one
+     * succeeds, so a url is downloaded at most once.
+     * @param url the url to claim
+     * @return true if the caller owns the url, false if it was visited or marked as failure
+     */
+    public boolean tryClaim(String url) {
+        return !failureLinks.contains(url) && addSeen(visited, url);
+    }
+
+    private boolean addSeen(UrlSet urls, String url) {
+        if (null != this.seenUrls) {
+            // the filter is updated first so it never misses a url already in the set
+            this.seenUrls.put(FingerprintUrlSet.fingerprint(url));
+        }
+        return urls.add(url);
     }
 
     public int getNextId() {
         return this.ids.getAndIncrement();
     }
 
-    public synchronized void processNode(CrawledNode node) {
-        this.visited.add(node.url);
-        this.graph.computeIfAbsent(node.parentId, newKey -> new HashSet<>()).add(node);
+    public void processNode(CrawledNode node) {
+        addSeen(this.visited, node.url());
+        this.graph.add(node);
     }
 
     /**
-     * Returns a copy of the crawled site graph for one where the child nodes of every
-     * parent page are sorted in descending order, this allows the DFS traversal to print
-     * the site map in ascending order for sibling pages at each level.
-     * @return
+     * Sorts the crawled site graph in place, the child nodes of every parent page in descending order, this allows
+     * the DFS traversal to print the site map in ascending order for sibling pages at each level. The graph is read
+     * only from then on, so this is called once the workers are done.
+     * @return a read only view of the graph
+     */
+    public CrawlGraph.View getGraph() {
+        return this.graph.sortedView();
+    }
+
+    /**
+     * @return the arena the nodes of this crawl intern their urls in
      */
-    public synchronized Map<Long, PriorityQueue<CrawledNode>> getGraph() {
-        Map<Long, PriorityQueue<CrawledNode>> map = new HashMap<>();
-        this.graph.forEach((key, value) -> {
-            PriorityQueue<CrawledNode> nodes = new PriorityQueue<>(PATH_COMPARATOR);
-            nodes.addAll(value);
-            map.put(key, nodes);
-        });
-        return Collections.unmodifiableMap(map);
+    public UrlArena getUrls() {
+        return this.urls;
     }
 
-    public synchronized boolean reportFailureLink(String url) {
-        return this.failureLinks.add(url);
+    /**
+     * Keeps the http status of the download of a node in the graph.
+     * @param statusCode the status code of the response, 0 if there was no response
+     */
+    public void reportStatus(CrawledNode node, int statusCode) {
+        this.graph.setStatus(node.id, statusCode);
+    }
+
+    public boolean reportFailureLink(String url) {
+        return addSeen(this.failureLinks, url);
     }
 
     public void reportRedirect(String url, String redirectUri) {
@@ -99,20 +203,286 @@ public class CrawlerCoordinator {
         return this.failureLinks.size();
     }
 
+    public long getBloomFilterLookups() {
+        return this.bloomFilterLookups.sum();
+    }
+
+    /**
+     * @return the lookups the bloom filter answered alone as definitely new links
+     */
+    public long getBloomFilterHits() {
+        return this.bloomFilterHits.sum();
+    }
+
+    /**
+     * @return the lookups the bloom filter could not answer that turned out to be new links
+     */
+    public long getBloomFilterFalsePositives() {
+        return this.bloomFilterFalsePositives.sum();
+    }
+
+    /**
+     * Hands the downloaded node over to a producer, moving it from the fetching stage to the parsing stage.
+     * If the producer can not be dispatched the node is considered done.
+     * @param producer the producer in charge of parsing the downloaded content
+     */
     public void dispatchProducer(CrawlProducerWorker producer) {
+        this.fetchingNodes.decrementAndGet();
         if (!jobDone) {
+            long bodyLength = producer.getBodyLength() * BODY_BYTES_PER_CHAR;
             try {
-                CompletableFuture.runAsync(producer, ex);
+                this.parsingNodes.incrementAndGet();
+                holdBody(bodyLength);
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        producer.run();
+                    } finally {
+                        releaseBody(bodyLength);
+                    }
+                }, ex);
+                return;
             } catch (RejectedExecutionException ex) {
+                releaseBody(bodyLength);
+                this.parsingNodes.decrementAndGet();
                 rejections.increment();
             }
         } else {
             rejections.increment();
         }
+        completeNode();
+    }
+
+    private void holdBody(long bodyLength) {
+        long held = this.pendingBodyBytes.addAndGet(bodyLength);
+        this.peakPendingBodyBytes.accumulateAndGet(held, Math::max);
+    }
+
+    private void releaseBody(long bodyLength) {
+        long held = this.pendingBodyBytes.addAndGet(-bodyLength);
+        if (this.pendingBodyBudget > 0 && held + bodyLength > this.pendingBodyBudget
+                && held <= this.pendingBodyBudget) {
+            this.bodyBudgetLock.lock();
+            try {
+                this.bodiesParsed.signalAll();
+            } finally {
+                this.bodyBudgetLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Blocks a consumer about to download while the bodies downloaded and not parsed yet exceed the budget, so
+     * pages do not pile up in memory when parsing falls behind. Downloads already in flight still complete, the
+     * budget is exceeded by them at most.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitBodyBudget() throws InterruptedException {
+        if (this.pendingBodyBudget <= 0 || this.pendingBodyBytes.get() <= this.pendingBodyBudget) {
+            return;
+        }
+        this.bodyBudgetWaits.increment();
+        this.bodyBudgetLock.lockInterruptibly();
+        try {
+            while (!this.jobDone && this.pendingBodyBytes.get() > this.pendingBodyBudget) {
+                this.bodiesParsed.await(BODY_BUDGET_RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            this.bodyBudgetLock.unlock();
+        }
+    }
+
+    /**
+     * @return the bytes of the bodies downloaded and waiting to be parsed or being parsed
+     */
+    public long getPendingBodyBytes() {
+        return this.pendingBodyBytes.get();
+    }
+
+    public long getPeakPendingBodyBytes() {
+        return this.peakPendingBodyBytes.get();
+    }
+
+    /**
+     * @return the times a consumer waited for bodies to be parsed before downloading
+     */
+    public long getBodyBudgetWaits() {
+        return this.bodyBudgetWaits.sum();
+    }
+
+    /**
+     * Must be called before a node is offered to the queue, if the offer fails {@link #reportEnqueueFailed()}
+     * is expected.
+     */
+    public void reportEnqueued() {
+        this.pendingNodes.incrementAndGet();
+        this.queuedNodes.incrementAndGet();
+    }
+
+    public void reportEnqueueFailed() {
+        this.queuedNodes.decrementAndGet();
+        completeNode();
+    }
+
+    /**
+     * A consumer took a node from the queue and is about to download it.
+     */
+    public void reportFetchStarted() {
+        this.fetchingNodes.incrementAndGet();
+        this.queuedNodes.decrementAndGet();
+    }
+
+    /**
+     * The node taken by a consumer will not be handed over to a producer (not allowed, not downloadable or failed).
+     */
+    public void reportFetchAbandoned() {
+        this.fetchingNodes.decrementAndGet();
+        completeNode();
+    }
+
+    public void reportParseCompleted() {
+        this.parsingNodes.decrementAndGet();
+        completeNode();
+    }
+
+    private void completeNode() {
+        if (this.pendingNodes.decrementAndGet() == 0) {
+            logger.info("No more nodes queued, fetching or parsing, crawl is complete");
+            this.quiescence.countDown();
+        }
+    }
+
+    /**
+     * Blocks until there are no nodes left queued, being fetched or being parsed, or the given time elapses.
+     * @param timeoutMillis the maximum time to wait
+     * @return true if the crawl finished before the timeout, false otherwise
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitQuiescence(long timeoutMillis) throws InterruptedException {
+        return this.quiescence.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Blocks until a new request can be issued without exceeding the maximum requests in flight.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquireFetchPermit() throws InterruptedException {
+        if (null != this.inFlightRequests) {
+            this.inFlightRequests.acquire();
+        }
+    }
+
+    public void releaseFetchPermit() {
+        if (null != this.inFlightRequests) {
+            this.inFlightRequests.release();
+        }
+    }
+
+    public int getPendingNodes() {
+        return this.pendingNodes.get();
+    }
+
+    public int getQueuedNodes() {
+        return this.queuedNodes.get();
+    }
+
+    public int getFetchingNodes() {
+        return this.fetchingNodes.get();
+    }
+
+    public int getParsingNodes() {
+        return this.parsingNodes.get();
     }
 
     public void requestJobDone() {
         this.jobDone = true;
+        this.politeness.shutdown();
+    }
+
+    /**
+     * Parks the node until its host can be downloaded again, honoring the minimum delay between downloads of
+     * the same host and the concurrency the host tolerates. The node is still considered queued while parked.
+     * @param node the node taken from the queue
+     * @param url the url that will be downloaded for the node
+     * @param queue the queue the node is offered to once its host is ready
+     * @return true if the node was parked, false if it can be downloaded right away, in which case the slot
+     * taken must be freed with {@link #releaseHostSlot} once the download is over
+     */
+    public boolean deferIfHostBusy(CrawledNode node, String url, BlockingQueue<CrawledNode> queue) {
+        if (!this.throttle.tryAcquire(url)) {
+            deferNode(node, queue, HOST_BUSY_RETRY_MILLIS);
+            return true;
+        }
+        long waitMillis = this.politeness.reserve(node.id, url);
+        if (waitMillis <= 0L) {
+            return false;
+        }
+        this.throttle.release(url, 0);
+        deferNode(node, queue, waitMillis);
+        return true;
+    }
+
+    private void deferNode(CrawledNode node, BlockingQueue<CrawledNode> queue, long delayMillis) {
+        try {
+            this.politeness.schedule(() -> {
+                if (!queue.offer(node)) {
+                    dropDeferredNode(node);
+                }
+            }, delayMillis);
+        } catch (RejectedExecutionException ree) {
+            dropDeferredNode(node); // job is done, the node will not be crawled
+        }
+    }
+
+    private void dropDeferredNode(CrawledNode node) {
+        this.politeness.cancel(node.id);
+        this.throttleRetries.remove(node.id);
+        reportEnqueueFailed();
+    }
+
+    /**
+     * Frees the download slot taken by {@link #deferIfHostBusy} once the download of the url is over.
+     * @param url the downloaded url
+     * @param httpResponse the response, null if the download failed
+     */
+    public void releaseHostSlot(String url, HttpResponse<?> httpResponse) {
+        this.throttle.release(url, null == httpResponse ? 0 : httpResponse.statusCode());
+    }
+
+    /**
+     * The host of the node asked to slow down (429 or 503), the node is queued again once the given delay
+     * elapses and the host is not downloaded meanwhile.
+     * @param node the throttled node
+     * @param url the throttled url
+     * @param retryAfterMillis the delay requested by the host
+     * @param queue the queue the node is offered to
+     * @return true if the node will be retried, false if it ran out of retries and was reported as failure
+     */
+    public boolean reportThrottled(CrawledNode node, String url, long retryAfterMillis,
+                                   BlockingQueue<CrawledNode> queue) {
+        if (this.throttleRetries.merge(node.id, 1, Integer::sum) > MAX_THROTTLE_RETRIES) {
+            this.throttleRetries.remove(node.id);
+            reportFailureLink(node.url());
+            return false;
+        }
+        this.politeness.delayHost(url, retryAfterMillis);
+        reportEnqueued();
+        deferNode(node, queue, retryAfterMillis);
+        return true;
+    }
+
+    /**
+     * @return true if the node is being retried after being throttled, it was already processed and must be
+     * downloaded again
+     */
+    public boolean isRetry(CrawledNode node) {
+        return this.throttleRetries.containsKey(node.id);
+    }
+
+    /**
+     * Forgets the retries of a node once a download of it was not throttled, whether it succeeded or failed.
+     */
+    public void reportRetriesOver(CrawledNode node) {
+        this.throttleRetries.remove(node.id);
     }
 
     public Long getTotalEnqueueRejections() {
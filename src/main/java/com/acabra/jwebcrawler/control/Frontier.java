@@ -0,0 +1,122 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.FrontierType;
+import com.acabra.jwebcrawler.model.UrlArena;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The nodes waiting to be crawled, the order in which they are taken is given by the implementation. Poison pills
+ * are always taken before any node so workers stop as soon as they are requested to. A frontier is closed once the
+ * crawl is over to release what it holds outside the heap.
+ */
+public interface Frontier extends BlockingQueue<CrawledNode>, AutoCloseable {
+
+    static Frontier of(FrontierType type, NodeScorer scorer, UrlArena urls) {
+        return of(type, scorer, urls, SpillFrontier.DEFAULT_MEMORY_NODES, "", 1);
+    }
+
+    /**
+     * @param urls the arena of the crawl, a SPILL frontier reads the nodes back from disk with it
+     * @param memoryNodes the nodes a SPILL frontier keeps in memory, the capacity of a RING frontier
+     * @param spillDirectory where a SPILL frontier writes its segments, empty for the system temporary directory
+     * @param workers the workers taking nodes, each one owns a deque of a WORK_STEALING frontier
+     */
+    static Frontier of(FrontierType type, NodeScorer scorer, UrlArena urls, int memoryNodes, String spillDirectory,
+                       int workers) {
+        switch (type) {
+            case WORK_STEALING:
+                return new WorkStealingFrontier(workers);
+            case SPILL:
+                return new SpillFrontier(urls, spillDirectory.isEmpty() ? null : Path.of(spillDirectory), memoryNodes,
+                        SpillFrontier.DEFAULT_SEGMENT_BYTES);
+            case RING:
+                return new RingFrontier(memoryNodes);
+            case LEVEL:
+                return new LevelFrontier();
+            case BEST_FIRST:
+                return new BestFirstFrontier(scorer);
+            default:
+                return new FifoFrontier();
+        }
+    }
+
+    /**
+     * Offers the nodes in order, stopping at the first one rejected.
+     * @return the nodes accepted, the first ones of the list
+     */
+    default int offerAll(List<CrawledNode> nodes) {
+        return offerEach(this, nodes);
+    }
+
+    /**
+     * Takes up to max nodes, waiting for the first one if the frontier is empty. A poison pill is always taken
+     * alone, so each one still stops a single worker.
+     * @param into the list the nodes taken are added to
+     * @return the nodes taken
+     */
+    default int takeBatch(List<CrawledNode> into, int max) throws InterruptedException {
+        return takeEach(this, into, max);
+    }
+
+    /**
+     * @param worker the index of a worker, from 0 to the number of workers the frontier was created for
+     * @return the frontier the worker takes nodes from and offers the nodes it finds to, this one unless the
+     * frontier keeps the nodes of each worker apart
+     */
+    default Frontier forWorker(int worker) {
+        return this;
+    }
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * @see #offerAll(List)
+     */
+    static int offerAll(BlockingQueue<CrawledNode> queue, List<CrawledNode> nodes) {
+        return queue instanceof Frontier ? ((Frontier) queue).offerAll(nodes) : offerEach(queue, nodes);
+    }
+
+    /**
+     * @see #takeBatch(List, int)
+     */
+    static int takeBatch(BlockingQueue<CrawledNode> queue, List<CrawledNode> into, int max)
+            throws InterruptedException {
+        return queue instanceof Frontier ? ((Frontier) queue).takeBatch(into, max) : takeEach(queue, into, max);
+    }
+
+    private static int offerEach(BlockingQueue<CrawledNode> queue, List<CrawledNode> nodes) {
+        int accepted = 0;
+        while (accepted < nodes.size() && queue.offer(nodes.get(accepted))) {
+            ++accepted;
+        }
+        return accepted;
+    }
+
+    private static int takeEach(BlockingQueue<CrawledNode> queue, List<CrawledNode> into, int max)
+            throws InterruptedException {
+        CrawledNode node = queue.take();
+        into.add(node);
+        int taken = 1;
+        while (node.id != CrawlerApp.POISON_PILL_ID && taken < max && null != (node = queue.poll())) {
+            if (node.id == CrawlerApp.POISON_PILL_ID) {
+                queue.offer(node); // left for another worker
+                break;
+            }
+            into.add(node);
+            ++taken;
+        }
+        return taken;
+    }
+
+    /**
+     * Nodes are taken in the order they were offered.
+     */
+    class FifoFrontier extends LinkedBlockingQueue<CrawledNode> implements Frontier {
+    }
+}
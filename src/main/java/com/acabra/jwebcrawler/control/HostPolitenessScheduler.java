@@ -0,0 +1,98 @@
+package com.acabra.jwebcrawler.control;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces a minimum delay between the downloads of the same host without blocking the workers. A node whose
+ * host is not ready reserves the next free slot of that host and is parked in a delay queue until then, the
+ * worker moves on to other nodes meanwhile.
+ */
+class HostPolitenessScheduler {
+
+    private final long minDelayNanos;
+    private final ConcurrentHashMap<String, AtomicLong> nextSlotByHost = new ConcurrentHashMap<>();
+    // nodes that already own a slot of their host, they are not checked again when taken from the queue
+    private final Set<Long> reservedNodes = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService delayQueue;
+
+    HostPolitenessScheduler(long minDelayMillis) {
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, minDelayMillis));
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "host-politeness-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.delayQueue = executor;
+    }
+
+    /**
+     * Reserves a slot to download the given url from its host.
+     * @param nodeId the node requesting the slot
+     * @param url the url to download
+     * @return 0 if the download can start now, otherwise the milliseconds to wait for the reserved slot
+     */
+    long reserve(long nodeId, String url) {
+        if (this.reservedNodes.remove(nodeId)) {
+            return 0L;
+        }
+        AtomicLong nextSlot = this.minDelayNanos == 0L
+                ? this.nextSlotByHost.get(hostOf(url)) // only hosts that asked to back off are tracked
+                : this.nextSlotByHost.computeIfAbsent(hostOf(url), host -> new AtomicLong(Long.MIN_VALUE));
+        if (null == nextSlot) {
+            return 0L;
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long slot = nextSlot.get();
+            long reserved = slot == Long.MIN_VALUE || slot - now <= 0 ? now : slot;
+            if (nextSlot.compareAndSet(slot, reserved + this.minDelayNanos)) {
+                long waitMillis = TimeUnit.NANOSECONDS.toMillis(reserved - now);
+                if (waitMillis > 0) {
+                    this.reservedNodes.add(nodeId);
+                }
+                return waitMillis;
+            }
+        }
+    }
+
+    /**
+     * Gives up the slot reserved by a node that will not be offered to the queue again.
+     * @param nodeId the node that reserved the slot
+     */
+    void cancel(long nodeId) {
+        this.reservedNodes.remove(nodeId);
+    }
+
+    /**
+     * Prevents new slots of the url's host from starting before the given delay elapses.
+     * @param url a url of the host to delay
+     * @param delayMillis the milliseconds from now the host should not be downloaded
+     */
+    void delayHost(String url, long delayMillis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.nextSlotByHost.computeIfAbsent(hostOf(url), host -> new AtomicLong(Long.MIN_VALUE))
+                .accumulateAndGet(until, (current, candidate) ->
+                        current == Long.MIN_VALUE || candidate - current > 0 ? candidate : current);
+    }
+
+    void schedule(Runnable task, long delayMillis) {
+        this.delayQueue.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void shutdown() {
+        this.delayQueue.shutdownNow();
+    }
+
+    static String hostOf(String url) {
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = url.indexOf('/', start);
+        return end < 0 ? url.substring(start) : url.substring(start, end);
+    }
+}
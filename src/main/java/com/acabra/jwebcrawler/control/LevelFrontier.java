@@ -0,0 +1,57 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Breadth first frontier: nodes of lower levels are taken first, nodes of the same level in the order they were
+ * offered. It is a bucket queue with a lock free queue per level, levels deeper than the buckets share the last.
+ */
+class LevelFrontier extends AbstractFrontier {
+
+    static final int LEVELS = 64;
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedQueue<CrawledNode>[] levels = new ConcurrentLinkedQueue[LEVELS];
+
+    LevelFrontier() {
+        Arrays.setAll(this.levels, i -> new ConcurrentLinkedQueue<>());
+    }
+
+    private ConcurrentLinkedQueue<CrawledNode> levelOf(CrawledNode node) {
+        return this.levels[Math.max(0, Math.min(node.level, LEVELS - 1))];
+    }
+
+    @Override
+    protected void insert(CrawledNode node) {
+        levelOf(node).offer(node);
+    }
+
+    @Override
+    protected CrawledNode removeFirst() {
+        for (ConcurrentLinkedQueue<CrawledNode> level : this.levels) {
+            CrawledNode node = level.poll();
+            if (null != node) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected CrawledNode first() {
+        for (ConcurrentLinkedQueue<CrawledNode> level : this.levels) {
+            CrawledNode node = level.peek();
+            if (null != node) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected Iterator<CrawledNode> nodes() {
+        return Arrays.stream(this.levels).flatMap(ConcurrentLinkedQueue::stream).iterator();
+    }
+}
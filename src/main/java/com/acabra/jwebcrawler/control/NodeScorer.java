@@ -0,0 +1,87 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.NodeScorerType;
+import com.acabra.jwebcrawler.utils.UrlCanonicalizer;
+import java.util.HashMap;
+import java.util.Map;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+
+/**
+ * Scores the nodes of a best first frontier, nodes with lower scores are crawled first.
+ */
+@FunctionalInterface
+public interface NodeScorer {
+
+    double DEFAULT_SITEMAP_PRIORITY = 0.5;
+
+    double score(CrawledNode node);
+
+    static NodeScorer byDepth() {
+        return node -> node.level;
+    }
+
+    /**
+     * Scores by the segments of the path, the query counts as one more segment.
+     */
+    static NodeScorer byPathLength() {
+        return node -> {
+            String url = node.url();
+            int pathStart = url.indexOf('/', url.indexOf("://") + 3);
+            int segments = 0;
+            for (int i = pathStart; i >= 0 && i < url.length(); i = url.indexOf('/', i + 1)) {
+                ++segments;
+            }
+            return url.indexOf('?') >= 0 ? segments + 1 : segments;
+        };
+    }
+
+    /**
+     * Scores by the priority of the page in the sitemap, a higher priority gives a lower score. Pages with the same
+     * priority are crawled by level.
+     * @param priorities the priority of every canonical url of the sitemap
+     */
+    static NodeScorer bySitemapPriority(Map<String, Double> priorities) {
+        // thousandths of priority first, then the level
+        return node -> Math.round((1.0 - priorities.getOrDefault(node.url(), DEFAULT_SITEMAP_PRIORITY)) * 1000) * 1000.0
+                + Math.min(node.level, 999);
+    }
+
+    static NodeScorer of(NodeScorerType type, Map<String, Double> sitemapPriorities) {
+        switch (type) {
+            case PATH_LENGTH:
+                return byPathLength();
+            case SITEMAP_PRIORITY:
+                return bySitemapPriority(sitemapPriorities);
+            default:
+                return byDepth();
+        }
+    }
+
+    /**
+     * Reads the priority of the urls of a sitemap (https://www.sitemaps.org/protocol.html), urls without a valid
+     * priority have the default one.
+     * @param sitemapXml the sitemap
+     * @param canonicalizer canonicalizes the urls of the sitemap as the links found are
+     * @return the priority of every url of the sitemap
+     */
+    static Map<String, Double> parseSitemapPriorities(String sitemapXml, UrlCanonicalizer canonicalizer) {
+        Map<String, Double> priorities = new HashMap<>();
+        for (Element url : Jsoup.parse(sitemapXml, "", Parser.xmlParser()).select("url")) {
+            String loc = url.select("loc").text().trim();
+            if (loc.isEmpty()) {
+                continue;
+            }
+            double priority = DEFAULT_SITEMAP_PRIORITY;
+            try {
+                priority = Math.max(0.0, Math.min(1.0, Double.parseDouble(url.select("priority").text().trim())));
+            } catch (NumberFormatException nfe) {
+                // missing or invalid priority, the default one applies
+            }
+            priorities.put(canonicalizer.canonicalize(loc), priority);
+        }
+        return priorities;
+    }
+}
@@ -0,0 +1,299 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded frontier over a ring of slots shared by many producers and consumers without locks. A producer claims a
+ * range of free slots moving the tail, a consumer a range of published slots moving the head, and the sequence of
+ * each slot tells whether it is free or published for the current lap of the ring (D. Vyukov's bounded queue, by
+ * ranges). Nodes are taken in the order they were offered and offers are rejected once the ring is full.
+ *
+ * All the children of a page are published with a single claim and consumers take up to a batch per wake up, they
+ * only block while the ring is empty and producers signal them only if any is waiting.
+ */
+class RingFrontier extends AbstractQueue<CrawledNode> implements Frontier {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int SPINS_BEFORE_YIELD = 64;
+
+    private final AtomicReferenceArray<CrawledNode> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final ConcurrentLinkedQueue<CrawledNode> poisonPills = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+
+    /**
+     * @param capacity the nodes held at most, rounded up to a power of two
+     */
+    RingFrontier(int capacity) {
+        int size = Integer.highestOneBit(Math.min(MAX_CAPACITY, Math.max(2, capacity)));
+        if (size < capacity) {
+            size = Math.min(MAX_CAPACITY, size << 1);
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return this.slots.length();
+    }
+
+    @Override
+    public boolean offer(CrawledNode node) {
+        Objects.requireNonNull(node);
+        if (node.id == CrawlerApp.POISON_PILL_ID) {
+            this.poisonPills.offer(node);
+            signalWaitingConsumers();
+            return true;
+        }
+        return publish(List.of(node)) == 1;
+    }
+
+    @Override
+    public int offerAll(List<CrawledNode> nodes) {
+        for (CrawledNode node : nodes) {
+            if (node.id == CrawlerApp.POISON_PILL_ID) {
+                return Frontier.super.offerAll(nodes);
+            }
+        }
+        return publish(nodes);
+    }
+
+    /**
+     * Claims as many free slots as nodes fit with a single move of the tail and publishes the nodes in them.
+     * @return the nodes published, the first ones of the list
+     */
+    private int publish(List<CrawledNode> nodes) {
+        long claimed;
+        int count;
+        do {
+            claimed = this.tail.get();
+            count = (int) Math.min(nodes.size(), capacity() - (claimed - this.head.get()));
+            if (count <= 0) {
+                return 0;
+            }
+        } while (!this.tail.compareAndSet(claimed, claimed + count));
+        for (int i = 0; i < count; i++) {
+            long position = claimed + i;
+            int index = (int) position & this.mask;
+            awaitSequence(index, position); // the consumer of the previous lap may still be reading the slot
+            this.slots.set(index, nodes.get(i));
+            this.sequences.set(index, position + 1);
+        }
+        signalWaitingConsumers();
+        return count;
+    }
+
+    /**
+     * Claims up to max published slots with a single move of the head, a poison pill is always claimed alone.
+     * @return the nodes added, 0 if the frontier is empty
+     */
+    private int claim(Collection<? super CrawledNode> into, int max) {
+        CrawledNode poisonPill = this.poisonPills.poll();
+        if (null != poisonPill) {
+            into.add(poisonPill);
+            return 1;
+        }
+        long claimed;
+        int count;
+        do {
+            claimed = this.head.get();
+            count = (int) Math.min(max, this.tail.get() - claimed);
+            if (count <= 0) {
+                return 0;
+            }
+        } while (!this.head.compareAndSet(claimed, claimed + count));
+        for (int i = 0; i < count; i++) {
+            long position = claimed + i;
+            int index = (int) position & this.mask;
+            awaitSequence(index, position + 1); // the producer may still be writing the slot
+            into.add(this.slots.get(index));
+            this.slots.set(index, null);
+            this.sequences.set(index, position + capacity());
+        }
+        return count;
+    }
+
+    /**
+     * Waits for the thread that claimed a slot before to finish with it, a matter of a few instructions.
+     */
+    private void awaitSequence(int index, long sequence) {
+        for (int spins = 0; this.sequences.get(index) != sequence; spins++) {
+            if (spins < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void signalWaitingConsumers() {
+        if (this.waitingConsumers.get() > 0) {
+            this.lock.lock();
+            try {
+                this.notEmpty.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int takeBatch(List<CrawledNode> into, int max) throws InterruptedException {
+        int taken = claim(into, max);
+        if (taken > 0) {
+            return taken;
+        }
+        this.waitingConsumers.incrementAndGet();
+        try {
+            while (0 == (taken = claim(into, max))) {
+                this.lock.lockInterruptibly();
+                try {
+                    if (isEmpty()) {
+                        this.notEmpty.await();
+                    }
+                } finally {
+                    this.lock.unlock();
+                }
+            }
+            return taken;
+        } finally {
+            this.waitingConsumers.decrementAndGet();
+        }
+    }
+
+    @Override
+    public CrawledNode take() throws InterruptedException {
+        List<CrawledNode> node = new ArrayList<>(1);
+        takeBatch(node, 1);
+        return node.get(0);
+    }
+
+    @Override
+    public CrawledNode poll(long timeout, TimeUnit unit) throws InterruptedException {
+        List<CrawledNode> node = new ArrayList<>(1);
+        if (claim(node, 1) > 0) {
+            return node.get(0);
+        }
+        long nanos = unit.toNanos(timeout);
+        this.waitingConsumers.incrementAndGet();
+        try {
+            while (0 == claim(node, 1)) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                this.lock.lockInterruptibly();
+                try {
+                    if (isEmpty()) {
+                        nanos = this.notEmpty.awaitNanos(nanos);
+                    }
+                } finally {
+                    this.lock.unlock();
+                }
+            }
+            return node.get(0);
+        } finally {
+            this.waitingConsumers.decrementAndGet();
+        }
+    }
+
+    @Override
+    public CrawledNode poll() {
+        List<CrawledNode> node = new ArrayList<>(1);
+        return claim(node, 1) > 0 ? node.get(0) : null;
+    }
+
+    @Override
+    public void put(CrawledNode node) throws InterruptedException {
+        while (!offer(node)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Thread.yield(); // full, consumers free a slot soon
+        }
+    }
+
+    @Override
+    public boolean offer(CrawledNode node, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(node)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0L) {
+                return false;
+            }
+            Thread.yield();
+        }
+        return true;
+    }
+
+    @Override
+    public CrawledNode peek() {
+        CrawledNode poisonPill = this.poisonPills.peek();
+        return null == poisonPill ? this.slots.get((int) this.head.get() & this.mask) : poisonPill;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE,
+                this.poisonPills.size() + Math.max(0L, this.tail.get() - this.head.get()));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return (int) Math.max(0L, capacity() - (this.tail.get() - this.head.get()));
+    }
+
+    @Override
+    public int drainTo(Collection<? super CrawledNode> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super CrawledNode> c, int maxElements) {
+        int drained = 0;
+        int taken;
+        while (drained < maxElements && (taken = claim(c, maxElements - drained)) > 0) {
+            drained += taken;
+        }
+        return drained;
+    }
+
+    /**
+     * @return a weakly consistent iterator over a copy of the nodes in the frontier
+     */
+    @Override
+    public Iterator<CrawledNode> iterator() {
+        List<CrawledNode> nodes = new ArrayList<>(this.poisonPills);
+        for (long position = this.head.get(), end = this.tail.get(); position < end; position++) {
+            CrawledNode node = this.slots.get((int) position & this.mask);
+            if (null != node) {
+                nodes.add(node);
+            }
+        }
+        return nodes.iterator();
+    }
+}
@@ -0,0 +1,297 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.UrlArena;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Frontier for crawls larger than the heap: nodes are taken in the order they were offered, up to a number of them
+ * are kept in memory and the rest are appended to memory mapped segment files, read back in order once the nodes in
+ * memory are taken. While any node is on disk the nodes offered are spilled too, so the order is kept.
+ *
+ * A node is encoded as varints of its id, parent id (zig zag), level and url id, a dozen bytes outside the heap
+ * against the tens of a node in it, the url itself is already in the {@link UrlArena} of the crawl. Segments are
+ * deleted once read, the last one is rewound instead, and the whole directory is deleted when the frontier is
+ * closed.
+ */
+class SpillFrontier extends AbstractFrontier {
+
+    static final int DEFAULT_MEMORY_NODES = 100_000;
+    static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    // nodes read back from disk at once, so a refill never holds the lock for long
+    private static final int REFILL_BATCH = 4096;
+    private static final int MAX_NODE_BYTES = 2 * 10 + 2 * 5;
+
+    private final Logger logger = LoggerFactory.getLogger(SpillFrontier.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<CrawledNode> memory = new ArrayDeque<>();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final UrlArena urls;
+    private final Path directory;
+    private final int memoryNodes;
+    private final int segmentBytes;
+    private long spilledNodes;
+    private long totalSpilledNodes;
+    private int totalSegments;
+
+    /**
+     * @param urls the arena the urls of the nodes offered are interned in
+     * @param parent the directory where the directory of the segments is created, null for the system temporary one
+     * @param memoryNodes the nodes kept in memory at most, 0 spills every node
+     * @param segmentBytes the size of each segment file
+     */
+    SpillFrontier(UrlArena urls, Path parent, int memoryNodes, int segmentBytes) {
+        this.urls = urls;
+        try {
+            this.directory = null == parent
+                    ? Files.createTempDirectory("jwebcrawler-frontier-")
+                    : Files.createTempDirectory(Files.createDirectories(parent), "jwebcrawler-frontier-");
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        this.memoryNodes = memoryNodes;
+        this.segmentBytes = segmentBytes;
+    }
+
+    @Override
+    protected void insert(CrawledNode node) {
+        this.lock.lock();
+        try {
+            if (this.spilledNodes == 0 && this.memory.size() < this.memoryNodes) {
+                this.memory.addLast(node);
+            } else {
+                spill(node);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void spill(CrawledNode node) {
+        Segment tail = this.segments.peekLast();
+        if (null == tail || !tail.fits(MAX_NODE_BYTES)) {
+            tail = newSegment(Math.max(this.segmentBytes, MAX_NODE_BYTES));
+            this.segments.addLast(tail);
+        }
+        tail.write(node);
+        ++this.spilledNodes;
+        ++this.totalSpilledNodes;
+    }
+
+    private Segment newSegment(int capacity) {
+        try {
+            Path file = this.directory.resolve(String.format("segment-%06d", this.totalSegments++));
+            return new Segment(this.urls, file, capacity);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    @Override
+    protected CrawledNode removeFirst() {
+        this.lock.lock();
+        try {
+            if (this.memory.isEmpty()) {
+                refill();
+            }
+            return this.memory.pollFirst();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    protected CrawledNode first() {
+        this.lock.lock();
+        try {
+            if (this.memory.isEmpty()) {
+                refill();
+            }
+            return this.memory.peekFirst();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the oldest spilled nodes back to memory, deleting the segments read and rewinding the last one once the
+     * disk is empty.
+     */
+    private void refill() {
+        int batch = Math.max(1, Math.min(REFILL_BATCH, this.memoryNodes));
+        while (this.spilledNodes > 0 && this.memory.size() < batch) {
+            Segment head = this.segments.peekFirst();
+            if (head.hasRemaining()) {
+                this.memory.addLast(head.read());
+                --this.spilledNodes;
+            } else {
+                this.segments.removeFirst().delete();
+            }
+        }
+        if (this.spilledNodes == 0) {
+            while (this.segments.size() > 1) {
+                this.segments.removeFirst().delete();
+            }
+            if (!this.segments.isEmpty()) {
+                this.segments.peekFirst().rewind();
+            }
+        }
+    }
+
+    @Override
+    protected Iterator<CrawledNode> nodes() {
+        this.lock.lock();
+        try {
+            List<Iterator<CrawledNode>> parts = new ArrayList<>(this.segments.size() + 1);
+            parts.add(new ArrayList<>(this.memory).iterator());
+            this.segments.forEach(segment -> parts.add(segment.nodes()));
+            return parts.stream()
+                    .flatMap(part -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(part, 0), false))
+                    .iterator();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the nodes written to disk since the frontier was created
+     */
+    long getTotalSpilledNodes() {
+        return this.totalSpilledNodes;
+    }
+
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.segments.forEach(Segment::delete);
+            this.segments.clear();
+            this.memory.clear();
+            this.spilledNodes = 0;
+            Files.deleteIfExists(this.directory);
+            logger.info(String.format("frontier spilled %d nodes to %d segments", this.totalSpilledNodes,
+                    this.totalSegments));
+        } catch (IOException ioe) {
+            logger.error("unable to delete the frontier directory: " + ioe.getMessage());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * An append only file mapped in memory, nodes are written at its position and read back from a second view of it.
+     */
+    private static class Segment {
+        private final UrlArena urls;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final ByteBuffer reader;
+
+        private Segment(UrlArena urls, Path file, int capacity) throws IOException {
+            this.urls = urls;
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity); // valid once closed
+            }
+            this.reader = this.buffer.duplicate();
+        }
+
+        private boolean fits(int bytes) {
+            return this.buffer.remaining() >= bytes;
+        }
+
+        private void write(CrawledNode node) {
+            writeVarLong(this.buffer, node.id);
+            writeVarLong(this.buffer, (node.parentId << 1) ^ (node.parentId >> 63));
+            writeVarLong(this.buffer, node.level);
+            writeVarLong(this.buffer, node.urlId);
+        }
+
+        private boolean hasRemaining() {
+            return this.reader.position() < this.buffer.position();
+        }
+
+        private CrawledNode read() {
+            return decode(this.urls, this.reader);
+        }
+
+        private void rewind() {
+            this.buffer.clear();
+            this.reader.clear();
+        }
+
+        /**
+         * @return the nodes not read yet, over a view of the segment valid even once deleted
+         */
+        private Iterator<CrawledNode> nodes() {
+            ByteBuffer view = this.buffer.duplicate().limit(this.buffer.position()).position(this.reader.position());
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return view.hasRemaining();
+                }
+
+                @Override
+                public CrawledNode next() {
+                    if (!view.hasRemaining()) {
+                        throw new NoSuchElementException();
+                    }
+                    return decode(urls, view);
+                }
+            };
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(this.file);
+            } catch (IOException ioe) {
+                this.file.toFile().deleteOnExit(); // still mapped where open files can not be deleted
+            }
+        }
+
+        private static CrawledNode decode(UrlArena urls, ByteBuffer in) {
+            long id = readVarLong(in);
+            long zigZagParentId = readVarLong(in);
+            int level = (int) readVarLong(in);
+            int urlId = (int) readVarLong(in);
+            return new CrawledNode(urls, urlId, id, level, (zigZagParentId >>> 1) ^ -(zigZagParentId & 1));
+        }
+
+        private static void writeVarLong(ByteBuffer out, long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.put((byte) value);
+        }
+
+        private static long readVarLong(ByteBuffer in) {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
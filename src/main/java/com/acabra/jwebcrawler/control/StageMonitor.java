@@ -0,0 +1,69 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.StageMetrics;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples the depth of each stage of the crawl and the bodies held and logs them periodically, along with the peaks
+ * once stopped. The stage that keeps growing is the bottleneck: nodes waiting to be parsed ask for more parse
+ * threads, nodes queued while few are fetched for more workers or requests in flight.
+ */
+class StageMonitor {
+
+    private final Logger logger = LoggerFactory.getLogger(StageMonitor.class);
+    private final CrawlerCoordinator coordinator;
+    private final ThreadPoolExecutor parseExecutor;
+    private final AtomicReference<StageMetrics> peaks = new AtomicReference<>(new StageMetrics(0, 0, 0, 0, 0L));
+    private ScheduledExecutorService sampler;
+
+    /**
+     * @param coordinator tells the nodes queued and fetched
+     * @param parseExecutor tells the nodes waiting to be parsed and being parsed
+     */
+    StageMonitor(CrawlerCoordinator coordinator, ThreadPoolExecutor parseExecutor) {
+        this.coordinator = coordinator;
+        this.parseExecutor = parseExecutor;
+    }
+
+    StageMetrics sample() {
+        StageMetrics metrics = new StageMetrics(this.coordinator.getQueuedNodes(),
+                this.coordinator.getFetchingNodes(), this.parseExecutor.getQueue().size(),
+                this.parseExecutor.getActiveCount(), this.coordinator.getPendingBodyBytes());
+        this.peaks.accumulateAndGet(metrics, StageMetrics::max);
+        return metrics;
+    }
+
+    StageMetrics getPeaks() {
+        return this.peaks.get();
+    }
+
+    /**
+     * Logs a sample every given interval until stopped, nothing if the interval is not positive.
+     */
+    void start(long intervalMillis) {
+        if (intervalMillis <= 0L) {
+            return;
+        }
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "stage-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> logger.info("stage depths: " + sample()), intervalMillis,
+                intervalMillis, TimeUnit.MILLISECONDS);
+        this.sampler = executor;
+    }
+
+    void stop() {
+        if (null != this.sampler) {
+            this.sampler.shutdownNow();
+            logger.info("peak stage depths: " + getPeaks());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Frontier with a lock free deque per worker. Each worker has its own view of the frontier, which it hands to the
+ * producers of the pages it downloads, so the children of a page go to the deque of the worker that crawled it. A
+ * worker takes the oldest node of its own deque and, once it is empty, steals the newest node of the others, away
+ * from the end their owners take from.
+ *
+ * All the views share the poison pills and the count of nodes, a worker blocks only while every deque is empty and
+ * wakes up as soon as any worker offers a node or a poison pill, so the crawl ends exactly as with a shared queue.
+ * Nodes offered to the frontier itself, like the root, are spread over the deques.
+ */
+class WorkStealingFrontier extends AbstractFrontier {
+
+    private final Logger logger = LoggerFactory.getLogger(WorkStealingFrontier.class);
+    private final ConcurrentLinkedDeque<CrawledNode>[] deques;
+    private final AtomicInteger nextDeque = new AtomicInteger();
+    private final LongAdder localNodes = new LongAdder();
+    private final LongAdder stolenNodes = new LongAdder();
+
+    /**
+     * @param workers the workers taking nodes, one deque each
+     */
+    @SuppressWarnings("unchecked")
+    WorkStealingFrontier(int workers) {
+        this.deques = new ConcurrentLinkedDeque[Math.max(1, workers)];
+        Arrays.setAll(this.deques, i -> new ConcurrentLinkedDeque<>());
+    }
+
+    @Override
+    public Frontier forWorker(int worker) {
+        return new WorkerFrontier(this, Math.floorMod(worker, this.deques.length));
+    }
+
+    @Override
+    protected void insert(CrawledNode node) {
+        this.deques[Math.floorMod(this.nextDeque.getAndIncrement(), this.deques.length)].offerLast(node);
+    }
+
+    @Override
+    protected CrawledNode removeFirst() {
+        return steal(-1);
+    }
+
+    /**
+     * @return the newest node of any deque but the given one, null if none was found
+     */
+    private CrawledNode steal(int worker) {
+        for (int i = 1; i <= this.deques.length; i++) {
+            int victim = (worker + i) % this.deques.length;
+            if (victim != worker) {
+                CrawledNode node = this.deques[victim].pollLast();
+                if (null != node) {
+                    this.stolenNodes.increment();
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected CrawledNode first() {
+        for (ConcurrentLinkedDeque<CrawledNode> deque : this.deques) {
+            CrawledNode node = deque.peekFirst();
+            if (null != node) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected Iterator<CrawledNode> nodes() {
+        return Arrays.stream(this.deques).flatMap(ConcurrentLinkedDeque::stream).iterator();
+    }
+
+    long getLocalNodes() {
+        return this.localNodes.sum();
+    }
+
+    long getStolenNodes() {
+        return this.stolenNodes.sum();
+    }
+
+    @Override
+    public void close() {
+        logger.info(String.format("work stealing frontier: %d nodes taken from the own deque, %d stolen",
+                getLocalNodes(), getStolenNodes()));
+    }
+
+    /**
+     * The view of a worker: offers go to its deque and takes come from it before stealing from the others.
+     */
+    private static class WorkerFrontier extends AbstractFrontier {
+
+        private final WorkStealingFrontier frontier;
+        private final int worker;
+
+        private WorkerFrontier(WorkStealingFrontier frontier, int worker) {
+            super(frontier);
+            this.frontier = frontier;
+            this.worker = worker;
+        }
+
+        @Override
+        protected void insert(CrawledNode node) {
+            this.frontier.deques[this.worker].offerLast(node);
+        }
+
+        @Override
+        protected CrawledNode removeFirst() {
+            CrawledNode node = this.frontier.deques[this.worker].pollFirst();
+            if (null != node) {
+                this.frontier.localNodes.increment();
+                return node;
+            }
+            return this.frontier.steal(this.worker);
+        }
+
+        @Override
+        protected CrawledNode first() {
+            CrawledNode node = this.frontier.deques[this.worker].peekFirst();
+            return null == node ? this.frontier.first() : node;
+        }
+
+        @Override
+        protected Iterator<CrawledNode> nodes() {
+            return this.frontier.nodes();
+        }
+
+        @Override
+        public Frontier forWorker(int worker) {
+            return this.frontier.forWorker(worker);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.acabra.jwebcrawler.dto;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class DefaultCrawlerConfiguration {
@@ -12,6 +13,31 @@ public class DefaultCrawlerConfiguration {
     public final int maxSiteNodeLinks;
     public final double maxExecutionTime;
     public final boolean reportToFile;
+    public final int maxInFlightRequests;
+    public final String executionMode;
+    public final boolean exactUrlDedup;
+    public final int bloomFilterExpectedUrls;
+    public final String queryParameterPolicy;
+    public final List<String> strippedQueryParameters;
+    public final boolean streamLinkExtraction;
+    public final String linkExtractor;
+    public final int maxBodySizeKb;
+    public final List<String> pathScopes;
+    public final List<String> excludedExtensions;
+    public final int maxQueryParameters;
+    public final List<String> includePatterns;
+    public final List<String> excludePatterns;
+    public final String frontier;
+    public final String nodeScorer;
+    public final int frontierMemoryNodes;
+    public final String spillDirectory;
+    public final int consumerBatchSize;
+    public final int parseThreads;
+    public final long stageMetricsIntervalMillis;
+    public final int maxPendingBodySizeKb;
+    public final boolean reportGzip;
+    public final String exportFormat;
+    public final long hostDelayMillis;
 
     @JsonCreator
     public DefaultCrawlerConfiguration(@JsonProperty(value = "sleepTime", required = true)
@@ -25,7 +51,57 @@ public class DefaultCrawlerConfiguration {
                                        @JsonProperty(value = "maxExecutionTime", required = true)
                                        int maxExecutionTime,
                                        @JsonProperty(value = "reportToFile", required = true)
-                                       boolean reportToFile
+                                       boolean reportToFile,
+                                       @JsonProperty(value = "maxInFlightRequests")
+                                       int maxInFlightRequests,
+                                       @JsonProperty(value = "executionMode")
+                                       String executionMode,
+                                       @JsonProperty(value = "exactUrlDedup")
+                                       boolean exactUrlDedup,
+                                       @JsonProperty(value = "bloomFilterExpectedUrls")
+                                       int bloomFilterExpectedUrls,
+                                       @JsonProperty(value = "queryParameterPolicy")
+                                       String queryParameterPolicy,
+                                       @JsonProperty(value = "strippedQueryParameters")
+                                       List<String> strippedQueryParameters,
+                                       @JsonProperty(value = "streamLinkExtraction")
+                                       boolean streamLinkExtraction,
+                                       @JsonProperty(value = "linkExtractor")
+                                       String linkExtractor,
+                                       @JsonProperty(value = "maxBodySizeKb")
+                                       int maxBodySizeKb,
+                                       @JsonProperty(value = "pathScopes")
+                                       List<String> pathScopes,
+                                       @JsonProperty(value = "excludedExtensions")
+                                       List<String> excludedExtensions,
+                                       @JsonProperty(value = "maxQueryParameters")
+                                       int maxQueryParameters,
+                                       @JsonProperty(value = "includePatterns")
+                                       List<String> includePatterns,
+                                       @JsonProperty(value = "excludePatterns")
+                                       List<String> excludePatterns,
+                                       @JsonProperty(value = "frontier")
+                                       String frontier,
+                                       @JsonProperty(value = "nodeScorer")
+                                       String nodeScorer,
+                                       @JsonProperty(value = "frontierMemoryNodes")
+                                       int frontierMemoryNodes,
+                                       @JsonProperty(value = "spillDirectory")
+                                       String spillDirectory,
+                                       @JsonProperty(value = "consumerBatchSize")
+                                       int consumerBatchSize,
+                                       @JsonProperty(value = "parseThreads")
+                                       int parseThreads,
+                                       @JsonProperty(value = "stageMetricsIntervalMillis")
+                                       long stageMetricsIntervalMillis,
+                                       @JsonProperty(value = "maxPendingBodySizeKb")
+                                       int maxPendingBodySizeKb,
+                                       @JsonProperty(value = "reportGzip")
+                                       boolean reportGzip,
+                                       @JsonProperty(value = "exportFormat")
+                                       String exportFormat,
+                                       @JsonProperty(value = "hostDelayMillis")
+                                       long hostDelayMillis
                                        ) {
         this.sleepTime = sleepTime;
         this.workerCount = workerCount;
@@ -33,5 +109,30 @@ public class DefaultCrawlerConfiguration {
         this.maxSiteNodeLinks = maxSiteNodeLinks;
         this.maxExecutionTime = maxExecutionTime;
         this.reportToFile = reportToFile;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.executionMode = executionMode;
+        this.exactUrlDedup = exactUrlDedup;
+        this.bloomFilterExpectedUrls = bloomFilterExpectedUrls;
+        this.queryParameterPolicy = queryParameterPolicy;
+        this.strippedQueryParameters = strippedQueryParameters;
+        this.streamLinkExtraction = streamLinkExtraction;
+        this.linkExtractor = linkExtractor;
+        this.maxBodySizeKb = maxBodySizeKb;
+        this.pathScopes = pathScopes;
+        this.excludedExtensions = excludedExtensions;
+        this.maxQueryParameters = maxQueryParameters;
+        this.includePatterns = includePatterns;
+        this.excludePatterns = excludePatterns;
+        this.frontier = frontier;
+        this.nodeScorer = nodeScorer;
+        this.frontierMemoryNodes = frontierMemoryNodes;
+        this.spillDirectory = spillDirectory;
+        this.consumerBatchSize = consumerBatchSize;
+        this.parseThreads = parseThreads;
+        this.stageMetricsIntervalMillis = stageMetricsIntervalMillis;
+        this.maxPendingBodySizeKb = maxPendingBodySizeKb;
+        this.reportGzip = reportGzip;
+        this.exportFormat = exportFormat;
+        this.hostDelayMillis = hostDelayMillis;
     }
 }
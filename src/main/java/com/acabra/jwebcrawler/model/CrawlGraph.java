@@ -0,0 +1,314 @@
+package com.acabra.jwebcrawler.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The pages of a crawl and the links between them, kept in int arrays indexed by node id instead of a map of boxed
+ * parent ids to sets of nodes. Every node owns a few ints: its url id, level, parent id and the http status of its
+ * download, the head of the list of its children and the next node of the list it belongs to, the children of a
+ * page are a list linked through those ints and the pages at the root of the crawl a list of their own.
+ *
+ * Nodes are added without locks: the ints of a node are only written by the thread adding it and the node is linked
+ * at the head of the list of its parent with a compare and set, the arrays grow by chunks that never move.
+ *
+ * Once the crawl is done the graph is sorted in place, each list of children by url, and read through a
+ * {@link View} over the same arrays: nothing is copied and the graph is read only from then on.
+ */
+public class CrawlGraph {
+
+    public static final int NONE = -1;
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    // ints of a node, the ids are stored plus one so the zeros of a new chunk mean none
+    private static final int URL_ID = 0;
+    private static final int LEVEL = 1;
+    private static final int PARENT_ID = 2;
+    private static final int NEXT_SIBLING = 3;
+    private static final int FIRST_CHILD = 4;
+    private static final int STATUS = 5;
+    private static final int STRIDE = 6;
+
+    private final UrlArena urls;
+    private final AtomicReference<AtomicIntegerArray[]> chunks = new AtomicReference<>(new AtomicIntegerArray[0]);
+    private final AtomicIntegerArray firstRoot = new AtomicIntegerArray(1);
+    private final AtomicInteger nodes = new AtomicInteger();
+    private final AtomicInteger parents = new AtomicInteger();
+    private final AtomicInteger maxId = new AtomicInteger(NONE);
+    private volatile View view;
+
+    /**
+     * @param urls the arena the urls of the nodes are interned in, their order sorts the children of every page
+     */
+    public CrawlGraph(UrlArena urls) {
+        this.urls = urls;
+    }
+
+    /**
+     * Adds a node under its parent, the parent does not need to be added first.
+     * @return true if the node was added, false if a node with the same id was already added or the graph was
+     * already sorted
+     */
+    public boolean add(CrawledNode node) {
+        if (node.id < 0 || node.id > Integer.MAX_VALUE
+                || node.parentId < CrawledNode.ROOT_NODE_PARENT_ID || node.parentId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Node ids out of range: %d, parent %d", node.id,
+                    node.parentId));
+        }
+        if (node.urls != this.urls) {
+            throw new IllegalArgumentException("Node of another crawl: " + node.id);
+        }
+        if (null != this.view) {
+            return false;
+        }
+        int id = (int) node.id;
+        AtomicIntegerArray chunk = chunk(id);
+        int base = base(id);
+        if (!chunk.compareAndSet(base + URL_ID, 0, node.urlId + 1)) {
+            return false;
+        }
+        int parentId = (int) node.parentId;
+        chunk.set(base + LEVEL, node.level);
+        chunk.set(base + PARENT_ID, parentId);
+        AtomicIntegerArray heads = parentId == CrawledNode.ROOT_NODE_PARENT_ID ? this.firstRoot : chunk(parentId);
+        int head = parentId == CrawledNode.ROOT_NODE_PARENT_ID ? 0 : base(parentId) + FIRST_CHILD;
+        int first;
+        do {
+            first = heads.get(head);
+            chunk.set(base + NEXT_SIBLING, first);
+        } while (!heads.compareAndSet(head, first, id + 1));
+        if (first == 0) {
+            this.parents.incrementAndGet();
+        }
+        this.nodes.incrementAndGet();
+        this.maxId.accumulateAndGet(Math.max(id, parentId), Math::max);
+        return true;
+    }
+
+    /**
+     * Keeps the http status of the download of a node, written by the thread that downloaded it, the last one
+     * written if the node is downloaded again.
+     * @param statusCode the status code of the response, 0 if there was no response
+     * @return true if the status was kept, false if the node was not added or the graph was already sorted
+     */
+    public boolean setStatus(long id, int statusCode) {
+        if (id < 0 || id > this.maxId.get() || null != this.view) {
+            return false;
+        }
+        AtomicIntegerArray chunk = chunk((int) id);
+        int base = base((int) id);
+        if (chunk.get(base + URL_ID) == 0) {
+            return false;
+        }
+        chunk.set(base + STATUS, statusCode);
+        return true;
+    }
+
+    /**
+     * @return the chunk holding the ints of the given node, growing the arrays up to it if needed
+     */
+    private AtomicIntegerArray chunk(int id) {
+        int index = id >>> CHUNK_BITS;
+        AtomicIntegerArray[] current = this.chunks.get();
+        while (index >= current.length) {
+            AtomicIntegerArray[] grown = Arrays.copyOf(current, index + 1);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicIntegerArray(CHUNK_SIZE * STRIDE);
+            }
+            if (this.chunks.compareAndSet(current, grown)) {
+                return grown[index];
+            }
+            current = this.chunks.get();
+        }
+        return current[index];
+    }
+
+    private static int base(int id) {
+        return (id & (CHUNK_SIZE - 1)) * STRIDE;
+    }
+
+    /**
+     * Sorts the children of every page in descending order of their urls, so a depth first traversal pushing them
+     * on a stack visits the siblings in ascending order, and makes the graph read only. Must be called once the
+     * nodes are all added, later calls return the same view.
+     */
+    public synchronized View sortedView() {
+        if (null == this.view) {
+            int[] siblings = new int[16];
+            siblings = sortChildren(this.firstRoot, 0, siblings);
+            AtomicIntegerArray[] chunks = this.chunks.get();
+            for (int id = 0; id <= this.maxId.get(); id++) {
+                siblings = sortChildren(chunks[id >>> CHUNK_BITS], base(id) + FIRST_CHILD, siblings);
+            }
+            this.view = new View(chunks);
+        }
+        return this.view;
+    }
+
+    /**
+     * Relinks a list of children in descending order of their urls.
+     * @return the array the ids of the list were sorted in, grown if it did not fit them
+     */
+    private int[] sortChildren(AtomicIntegerArray heads, int head, int[] siblings) {
+        int first = heads.get(head);
+        if (first == 0 || next(first - 1) == 0) {
+            return siblings;
+        }
+        int count = 0;
+        for (int child = first; child != 0; child = next(child - 1)) {
+            if (count == siblings.length) {
+                siblings = Arrays.copyOf(siblings, count * 2);
+            }
+            siblings[count++] = child - 1;
+        }
+        mergeSort(siblings, new int[count], 0, count);
+        heads.set(head, siblings[0] + 1);
+        for (int i = 0; i < count; i++) {
+            int id = siblings[i];
+            chunk(id).set(base(id) + NEXT_SIBLING, i + 1 < count ? siblings[i + 1] + 1 : 0);
+        }
+        return siblings;
+    }
+
+    private int next(int id) {
+        return chunk(id).get(base(id) + NEXT_SIBLING);
+    }
+
+    private int urlIdOf(int id) {
+        return chunk(id).get(base(id) + URL_ID) - 1;
+    }
+
+    /**
+     * Sorts the node ids between from and to in descending order of their urls.
+     */
+    private void mergeSort(int[] ids, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(ids, buffer, from, middle);
+        mergeSort(ids, buffer, middle, to);
+        if (this.urls.compare(urlIdOf(ids[middle - 1]), urlIdOf(ids[middle])) >= 0) {
+            return;
+        }
+        System.arraycopy(ids, from, buffer, from, to - from);
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right == to
+                    || (left < middle && this.urls.compare(urlIdOf(buffer[left]), urlIdOf(buffer[right])) >= 0)) {
+                ids[i] = buffer[left++];
+            } else {
+                ids[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Read only view of a sorted graph over its arrays. The children of a page are walked from
+     * {@link #firstChild(long)} following {@link #nextSibling(int)} until {@link #NONE}.
+     */
+    public final class View {
+
+        private final AtomicIntegerArray[] chunks;
+
+        private View(AtomicIntegerArray[] chunks) {
+            this.chunks = chunks;
+        }
+
+        /**
+         * @param parentId the id of a page, {@link CrawledNode#ROOT_NODE_PARENT_ID} for the pages at the root
+         * @return the id of the child with the greatest url, {@link #NONE} if the page has no children
+         */
+        public int firstChild(long parentId) {
+            if (parentId == CrawledNode.ROOT_NODE_PARENT_ID) {
+                return firstRoot.get(0) - 1;
+            }
+            return parentId >= 0 && parentId <= maxId.get() ? get((int) parentId, FIRST_CHILD) - 1 : NONE;
+        }
+
+        /**
+         * @return the id of the sibling following the given node, {@link #NONE} after the last one
+         */
+        public int nextSibling(int id) {
+            return get(id, NEXT_SIBLING) - 1;
+        }
+
+        /**
+         * @return the number of children of a page, walking their list
+         */
+        public int childCount(long parentId) {
+            int count = 0;
+            for (int child = firstChild(parentId); child != NONE; child = nextSibling(child)) {
+                ++count;
+            }
+            return count;
+        }
+
+        public boolean contains(long id) {
+            return id >= 0 && id <= maxId.get() && get((int) id, URL_ID) != 0;
+        }
+
+        public int urlId(int id) {
+            return get(id, URL_ID) - 1;
+        }
+
+        public String url(int id) {
+            return urls.url(urlId(id));
+        }
+
+        public int level(int id) {
+            return get(id, LEVEL);
+        }
+
+        public long parentId(int id) {
+            return get(id, PARENT_ID);
+        }
+
+        /**
+         * @return the http status of the download of the node, 0 if it was not downloaded or got no response
+         */
+        public int status(int id) {
+            return get(id, STATUS);
+        }
+
+        /**
+         * @return a node with the fields of the given id, created on every call
+         */
+        public CrawledNode node(int id) {
+            return new CrawledNode(urls, urlId(id), id, level(id), parentId(id));
+        }
+
+        /**
+         * @return the nodes added, every link discovered
+         */
+        public int nodes() {
+            return nodes.get();
+        }
+
+        /**
+         * @return the greatest id of the nodes and their parents, {@link #NONE} if the graph is empty
+         */
+        public int maxId() {
+            return maxId.get();
+        }
+
+        /**
+         * @return the pages with children, counting the root of the crawl as one
+         */
+        public int parents() {
+            return parents.get();
+        }
+
+        public UrlArena urls() {
+            return urls;
+        }
+
+        private int get(int id, int field) {
+            if (!(id >= 0 && id <= maxId.get())) {
+                throw new IllegalArgumentException("Unknown node id: " + id);
+            }
+            return this.chunks[id >>> CHUNK_BITS].get(base(id) + field);
+        }
+    }
+}
@@ -1,11 +1,8 @@
 package com.acabra.jwebcrawler.model;
 
 
-import java.util.Map;
-import java.util.PriorityQueue;
-
 public class CrawlSiteResponse {
-    final Map<Long, PriorityQueue<CrawledNode>> graph;
+    final CrawlGraph.View graph;
     final int totalRedirects;
     final int totalFailures;
     private final double totalTime;
@@ -14,7 +11,7 @@ public class CrawlSiteResponse {
     private final int workerCount;
 
 
-    public CrawlSiteResponse(String siteURI, Map<Long, PriorityQueue<CrawledNode>> graph, int totalRedirects,
+    public CrawlSiteResponse(String siteURI, CrawlGraph.View graph, int totalRedirects,
                              int totalFailures, Long rejections, double totalTime, int workerCount) {
         this.siteURI = siteURI;
         this.graph = graph;
@@ -25,7 +22,7 @@ public class CrawlSiteResponse {
         this.workerCount = workerCount;
     }
 
-    public Map<Long, PriorityQueue<CrawledNode>> getGraph() {
+    public CrawlGraph.View getGraph() {
         return graph;
     }
 
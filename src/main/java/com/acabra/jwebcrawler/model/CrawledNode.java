@@ -3,34 +3,63 @@ package com.acabra.jwebcrawler.model;
 
 import java.util.Objects;
 
+/**
+ * A page of the crawl, a small fixed size record: its url is interned in the arena of the crawl and the node only
+ * holds its id, along with the arena to read it back.
+ */
 public class CrawledNode {
     public static final long ROOT_NODE_PARENT_ID = -1L;
+    private static final int NO_URL = -1;
 
-    public final String url;
+    public final UrlArena urls;
+    public final int urlId;
     public final int level;
     public final long id;
     public final long parentId;
 
-    public CrawledNode(String url, long id) {
-        this.url = url;
-        this.id = id;
-        this.level = 0;
-        this.parentId = ROOT_NODE_PARENT_ID;
+    public CrawledNode(UrlArena urls, String url, long id) {
+        this(urls, url, id, 0, ROOT_NODE_PARENT_ID);
+    }
+
+    /**
+     * @param urls the arena of the crawl, the url is interned in it
+     */
+    public CrawledNode(UrlArena urls, String url, long id, int level, long parentId) {
+        this(urls, urls.intern(url), id, level, parentId);
     }
 
-    public CrawledNode(String url, long id, int level, long parentId) {
-        this.url = url;
+    /**
+     * @param urlId the id of the url in the given arena
+     */
+    public CrawledNode(UrlArena urls, int urlId, long id, int level, long parentId) {
+        this.urls = urls;
+        this.urlId = urlId;
         this.level = level;
         this.id = id;
         this.parentId = parentId;
     }
 
+    /**
+     * A node without url nor arena, for the markers handed over the queue alongside the pages of any crawl.
+     * @param id the id telling the marker apart
+     */
+    public static CrawledNode sentinel(long id) {
+        return new CrawledNode(null, NO_URL, id, 0, ROOT_NODE_PARENT_ID);
+    }
+
+    /**
+     * @return the url of the node, decoded from its arena on every call, empty for a sentinel
+     */
+    public String url() {
+        return this.urlId == NO_URL ? "" : this.urls.url(this.urlId);
+    }
+
     public CrawledNode buildChild(String link, long nextId) {
-        return new CrawledNode(link, nextId, this.level + 1, this.id);
+        return new CrawledNode(this.urls, link, nextId, this.level + 1, this.id);
     }
 
     public CrawledNode redirection(String redirectURI, long nextId) {
-        return new CrawledNode(redirectURI, nextId, this.level, this.parentId);
+        return new CrawledNode(this.urls, redirectURI, nextId, this.level, this.parentId);
     }
 
     @Override
@@ -38,11 +67,11 @@ public class CrawledNode {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         CrawledNode that = (CrawledNode) o;
-        return id == that.id && url.equals(that.url);
+        return id == that.id && urlId == that.urlId && urls == that.urls;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, url);
+        return Objects.hash(id, urlId);
     }
 }
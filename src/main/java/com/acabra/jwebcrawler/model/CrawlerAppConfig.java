@@ -1,6 +1,8 @@
 package com.acabra.jwebcrawler.model;
 
 import java.net.URL;
+import java.util.List;
+import java.util.Locale;
 
 public class CrawlerAppConfig {
 
@@ -9,20 +11,61 @@ public class CrawlerAppConfig {
     private static final int MAX_CHILD_PER_PAGE = 100;
     private static final int MAX_DEPTH = 10;
     private static final Long MAX_EXECUTION_TIME = 300000L; // 5 minutes max execution time
+    private static final int MAX_IN_FLIGHT_REQUESTS = 1000;
+    private static final int DEFAULT_VIRTUAL_IN_FLIGHT_REQUESTS = 100;
+    private static final int MAX_BLOOM_FILTER_EXPECTED_URLS = 10_000_000;
 
     public final URL rootUrl;
     public final boolean reportToFile;
     public final int workerCount;
+    /**
+     * @deprecated workers no longer sleep between pages, the value is kept but ignored, see {@link #hostDelayMillis}
+     */
+    @Deprecated
     public final long sleepTime;
     public final long timeout;
     public final int siteHeight;
     public final int maxChildLinks;
     public final String startUri;
     public final String siteURI;
+    public final int maxInFlightRequests;
+    public final ExecutionMode executionMode;
+    public final boolean exactUrlDedup;
+    public final int bloomFilterExpectedUrls;
+    public final QueryParameterPolicy queryParameterPolicy;
+    public final List<String> strippedQueryParameters;
+    public final boolean streamLinkExtraction;
+    public final LinkExtractorType linkExtractor;
+    public final int maxBodySizeKb;
+    public final List<String> pathScopes;
+    public final List<String> excludedExtensions;
+    public final int maxQueryParameters;
+    public final List<String> includePatterns;
+    public final List<String> excludePatterns;
+    public final FrontierType frontier;
+    public final NodeScorerType nodeScorer;
+    public final int frontierMemoryNodes;
+    public final String spillDirectory;
+    public final int consumerBatchSize;
+    public final int parseThreads;
+    public final long stageMetricsIntervalMillis;
+    public final int maxPendingBodySizeKb;
+    public final boolean reportGzip;
+    public final ExportFormat exportFormat;
+    public final long hostDelayMillis;
 
     private CrawlerAppConfig(URL rootUrl, String siteURI, int workerCount, long sleepTime,
                              long timeout, int siteHeight, int maxSiteNodeLinks,
-                             boolean reportToFile) {
+                             boolean reportToFile, int maxInFlightRequests, ExecutionMode executionMode,
+                             boolean exactUrlDedup, int bloomFilterExpectedUrls,
+                             QueryParameterPolicy queryParameterPolicy, List<String> strippedQueryParameters,
+                             boolean streamLinkExtraction, LinkExtractorType linkExtractor, int maxBodySizeKb,
+                             List<String> pathScopes, List<String> excludedExtensions, int maxQueryParameters,
+                             List<String> includePatterns, List<String> excludePatterns, FrontierType frontier,
+                             NodeScorerType nodeScorer, int frontierMemoryNodes, String spillDirectory,
+                             int consumerBatchSize, int parseThreads, long stageMetricsIntervalMillis,
+                             int maxPendingBodySizeKb, boolean reportGzip, ExportFormat exportFormat,
+                             long hostDelayMillis) {
         this.rootUrl = rootUrl;
         this.siteURI = siteURI;
         this.startUri = siteURI + rootUrl.getPath();
@@ -32,20 +75,102 @@ public class CrawlerAppConfig {
         this.siteHeight = siteHeight;
         this.maxChildLinks = maxSiteNodeLinks;
         this.reportToFile = reportToFile;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.executionMode = executionMode;
+        this.exactUrlDedup = exactUrlDedup;
+        this.bloomFilterExpectedUrls = bloomFilterExpectedUrls;
+        this.queryParameterPolicy = queryParameterPolicy;
+        this.strippedQueryParameters = strippedQueryParameters;
+        this.streamLinkExtraction = streamLinkExtraction;
+        this.linkExtractor = linkExtractor;
+        this.maxBodySizeKb = maxBodySizeKb;
+        this.pathScopes = pathScopes;
+        this.excludedExtensions = excludedExtensions;
+        this.maxQueryParameters = maxQueryParameters;
+        this.includePatterns = includePatterns;
+        this.excludePatterns = excludePatterns;
+        this.frontier = frontier;
+        this.nodeScorer = nodeScorer;
+        this.frontierMemoryNodes = frontierMemoryNodes;
+        this.spillDirectory = spillDirectory;
+        this.consumerBatchSize = consumerBatchSize;
+        this.parseThreads = parseThreads;
+        this.stageMetricsIntervalMillis = stageMetricsIntervalMillis;
+        this.maxPendingBodySizeKb = maxPendingBodySizeKb;
+        this.reportGzip = reportGzip;
+        this.exportFormat = exportFormat;
+        this.hostDelayMillis = hostDelayMillis;
     }
 
     public static CrawlerAppConfig of(URL rootUrl, int workerCount, double sleepTime, double maxExecutionTime,
-                                      int siteHeight, int maxSiteNodeLinks, boolean reportToFile) {
+                                      int siteHeight, int maxSiteNodeLinks, boolean reportToFile,
+                                      int maxInFlightRequests, ExecutionMode executionMode,
+                                      boolean exactUrlDedup, int bloomFilterExpectedUrls,
+                                      QueryParameterPolicy queryParameterPolicy,
+                                      List<String> strippedQueryParameters, boolean streamLinkExtraction,
+                                      LinkExtractorType linkExtractor, int maxBodySizeKb, List<String> pathScopes,
+                                      List<String> excludedExtensions, int maxQueryParameters,
+                                      List<String> includePatterns, List<String> excludePatterns,
+                                      FrontierType frontier, NodeScorerType nodeScorer, int frontierMemoryNodes,
+                                      String spillDirectory, int consumerBatchSize, int parseThreads,
+                                      long stageMetricsIntervalMillis, int maxPendingBodySizeKb, boolean reportGzip,
+                                      ExportFormat exportFormat, long hostDelayMillis) {
         long totalSleepTime = Double.valueOf(Math.min(sleepTime, 10.0) * 1000).longValue();
         return new CrawlerAppConfig(
                 rootUrl,
-                String.format("%s://%s", rootUrl.getProtocol(), rootUrl.getAuthority()),
+                siteOf(rootUrl),
                 Math.min(MAX_WORKER_COUNT, Math.max(workerCount, 1)),
                 Math.min(MAX_SLEEP_TIME, Math.max(0, totalSleepTime)),
                 Math.max(1000L, Math.min(MAX_EXECUTION_TIME, Double.valueOf(maxExecutionTime * 1000).longValue())),
                 siteHeight <= 0 ? 0 : Math.min(siteHeight, MAX_DEPTH),
                 maxSiteNodeLinks <= 0 ? 0 : Math.min(maxSiteNodeLinks, MAX_CHILD_PER_PAGE),
-                reportToFile);
+                reportToFile,
+                adjustMaxInFlightRequests(maxInFlightRequests, executionMode),
+                executionMode,
+                exactUrlDedup,
+                bloomFilterExpectedUrls <= 0 ? 0 : Math.min(bloomFilterExpectedUrls, MAX_BLOOM_FILTER_EXPECTED_URLS),
+                queryParameterPolicy,
+                null == strippedQueryParameters ? List.of() : List.copyOf(strippedQueryParameters),
+                streamLinkExtraction,
+                null == linkExtractor ? LinkExtractorType.JSOUP : linkExtractor,
+                Math.max(0, maxBodySizeKb),
+                null == pathScopes ? List.of() : List.copyOf(pathScopes),
+                null == excludedExtensions ? List.of() : List.copyOf(excludedExtensions),
+                Math.max(0, maxQueryParameters),
+                null == includePatterns ? List.of() : List.copyOf(includePatterns),
+                null == excludePatterns ? List.of() : List.copyOf(excludePatterns),
+                null == frontier ? FrontierType.LEVEL : frontier,
+                null == nodeScorer ? NodeScorerType.DEPTH : nodeScorer,
+                Math.max(0, frontierMemoryNodes),
+                null == spillDirectory ? "" : spillDirectory.trim(),
+                Math.max(1, consumerBatchSize),
+                Math.max(0, parseThreads),
+                Math.max(0L, stageMetricsIntervalMillis),
+                Math.max(0, maxPendingBodySizeKb),
+                reportGzip,
+                null == exportFormat ? ExportFormat.NONE : exportFormat,
+                Math.max(0L, hostDelayMillis));
+    }
+
+    /**
+     * The site in canonical form, with the host lower cased and without the default port, as the links found are.
+     */
+    private static String siteOf(URL rootUrl) {
+        String host = rootUrl.getHost().toLowerCase(Locale.ROOT);
+        int port = rootUrl.getPort();
+        return String.format("%s://%s", rootUrl.getProtocol(),
+                port < 0 || port == rootUrl.getDefaultPort() ? host : host + ":" + port);
+    }
+
+    /**
+     * Virtual threads are only bounded by the in-flight requests budget, so a default budget is given if none was set,
+     * it also bounds the platform threads that replace them on a runtime without virtual threads.
+     */
+    private static int adjustMaxInFlightRequests(int maxInFlightRequests, ExecutionMode executionMode) {
+        if (maxInFlightRequests <= 0) {
+            return executionMode == ExecutionMode.VIRTUAL_THREADS ? DEFAULT_VIRTUAL_IN_FLIGHT_REQUESTS : 0;
+        }
+        return Math.min(maxInFlightRequests, MAX_IN_FLIGHT_REQUESTS);
     }
 
     @Override
@@ -60,6 +185,31 @@ public class CrawlerAppConfig {
                 ", maxChildLinks=" + maxChildLinks +
                 ", startUri='" + startUri + '\'' +
                 ", siteURI='" + siteURI + '\'' +
+                ", maxInFlightRequests=" + maxInFlightRequests +
+                ", executionMode=" + executionMode +
+                ", exactUrlDedup=" + exactUrlDedup +
+                ", bloomFilterExpectedUrls=" + bloomFilterExpectedUrls +
+                ", queryParameterPolicy=" + queryParameterPolicy +
+                ", strippedQueryParameters=" + strippedQueryParameters +
+                ", streamLinkExtraction=" + streamLinkExtraction +
+                ", linkExtractor=" + linkExtractor +
+                ", maxBodySizeKb=" + maxBodySizeKb +
+                ", pathScopes=" + pathScopes +
+                ", excludedExtensions=" + excludedExtensions +
+                ", maxQueryParameters=" + maxQueryParameters +
+                ", includePatterns=" + includePatterns +
+                ", excludePatterns=" + excludePatterns +
+                ", frontier=" + frontier +
+                ", nodeScorer=" + nodeScorer +
+                ", frontierMemoryNodes=" + frontierMemoryNodes +
+                ", spillDirectory=" + spillDirectory +
+                ", consumerBatchSize=" + consumerBatchSize +
+                ", parseThreads=" + parseThreads +
+                ", stageMetricsIntervalMillis=" + stageMetricsIntervalMillis +
+                ", maxPendingBodySizeKb=" + maxPendingBodySizeKb +
+                ", reportGzip=" + reportGzip +
+                ", exportFormat=" + exportFormat +
+                ", hostDelayMillis=" + hostDelayMillis +
                 '}';
     }
 
@@ -72,7 +222,32 @@ public class CrawlerAppConfig {
                 this.timeout,
                 this.siteHeight,
                 this.maxChildLinks,
-                this.reportToFile
+                this.reportToFile,
+                this.maxInFlightRequests,
+                this.executionMode,
+                this.exactUrlDedup,
+                this.bloomFilterExpectedUrls,
+                this.queryParameterPolicy,
+                this.strippedQueryParameters,
+                this.streamLinkExtraction,
+                this.linkExtractor,
+                this.maxBodySizeKb,
+                this.pathScopes,
+                this.excludedExtensions,
+                this.maxQueryParameters,
+                this.includePatterns,
+                this.excludePatterns,
+                this.frontier,
+                this.nodeScorer,
+                this.frontierMemoryNodes,
+                this.spillDirectory,
+                this.consumerBatchSize,
+                this.parseThreads,
+                this.stageMetricsIntervalMillis,
+                this.maxPendingBodySizeKb,
+                this.reportGzip,
+                this.exportFormat,
+                this.hostDelayMillis
         );
     }
 }
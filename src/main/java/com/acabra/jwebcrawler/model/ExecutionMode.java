@@ -0,0 +1,22 @@
+package com.acabra.jwebcrawler.model;
+
+/**
+ * Indicates how the downloads of a crawl are executed.
+ */
+public enum ExecutionMode {
+    /**
+     * Downloads are performed by the consumer workers of the fixed thread pool.
+     */
+    FIXED_POOL,
+    /**
+     * Every download runs on its own virtual thread, concurrency is limited by the in-flight requests budget.
+     */
+    VIRTUAL_THREADS;
+
+    public static ExecutionMode of(String mode) {
+        if (null == mode || mode.trim().isEmpty()) {
+            return FIXED_POOL;
+        }
+        return ExecutionMode.valueOf(mode.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,31 @@
+package com.acabra.jwebcrawler.model;
+
+/**
+ * Indicates the machine readable file the graph of a crawl is exported to, besides the report.
+ */
+public enum ExportFormat {
+    /**
+     * The graph is not exported.
+     */
+    NONE,
+    /**
+     * A json object per node, a line each, with its id, parent id, level, url and the http status of its download.
+     */
+    JSON_LINES,
+    /**
+     * A header line and a line per node, with the same fields as {@link #JSON_LINES}.
+     */
+    CSV,
+    /**
+     * The links between the nodes in compressed sparse row form: big endian ints, the offsets of the children of
+     * every node followed by the ids of the children.
+     */
+    CSR;
+
+    public static ExportFormat of(String format) {
+        if (null == format || format.trim().isEmpty()) {
+            return NONE;
+        }
+        return ExportFormat.valueOf(format.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,40 @@
+package com.acabra.jwebcrawler.model;
+
+/**
+ * Indicates the order in which the pages found are crawled.
+ */
+public enum FrontierType {
+    /**
+     * Pages are crawled in the order they are found.
+     */
+    FIFO,
+    /**
+     * Pages closer to the root are crawled first, pages of the same level in the order they are found.
+     */
+    LEVEL,
+    /**
+     * Pages with the lowest score are crawled first, see {@link NodeScorerType}.
+     */
+    BEST_FIRST,
+    /**
+     * Pages are crawled in the order they are found, the pages waiting beyond a number of them are kept on disk.
+     */
+    SPILL,
+    /**
+     * Pages are crawled in the order they are found, up to a number of them wait in a bounded ring shared without
+     * locks, the pages found beyond it are rejected.
+     */
+    RING,
+    /**
+     * Every worker crawls first the pages found in the pages it crawled, in the order they are found, and takes the
+     * latest pages found by other workers once it has none left.
+     */
+    WORK_STEALING;
+
+    public static FrontierType of(String type) {
+        if (null == type || type.trim().isEmpty()) {
+            return LEVEL;
+        }
+        return FrontierType.valueOf(type.trim().toUpperCase());
+    }
+}
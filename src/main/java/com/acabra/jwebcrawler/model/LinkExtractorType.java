@@ -0,0 +1,22 @@
+package com.acabra.jwebcrawler.model;
+
+/**
+ * Indicates how the links of the pages downloaded are extracted.
+ */
+public enum LinkExtractorType {
+    /**
+     * The page is parsed into a document by jsoup and its anchors are selected.
+     */
+    JSOUP,
+    /**
+     * The page is scanned once for the href of its anchors, no document is built.
+     */
+    SCANNER;
+
+    public static LinkExtractorType of(String type) {
+        if (null == type || type.trim().isEmpty()) {
+            return JSOUP;
+        }
+        return LinkExtractorType.valueOf(type.trim().toUpperCase());
+    }
+}
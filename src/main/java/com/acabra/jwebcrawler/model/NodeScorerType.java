@@ -0,0 +1,26 @@
+package com.acabra.jwebcrawler.model;
+
+/**
+ * Indicates how pages are scored by the best first frontier, lower scores are crawled first.
+ */
+public enum NodeScorerType {
+    /**
+     * The level of the page, as the level frontier but without its buckets.
+     */
+    DEPTH,
+    /**
+     * The segments in the path of the page, shallow urls are usually hubs linking to many pages.
+     */
+    PATH_LENGTH,
+    /**
+     * The priority of the page in the sitemap of the site, pages not in the sitemap have the default priority.
+     */
+    SITEMAP_PRIORITY;
+
+    public static NodeScorerType of(String type) {
+        if (null == type || type.trim().isEmpty()) {
+            return DEPTH;
+        }
+        return NodeScorerType.valueOf(type.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,27 @@
+package com.acabra.jwebcrawler.model;
+
+/**
+ * Indicates how the query of the links found is canonicalized, so the same page is not downloaded once per
+ * spelling of its query.
+ */
+public enum QueryParameterPolicy {
+    /**
+     * The parameters are kept in the given order, the default: the order may matter to the server.
+     */
+    KEEP,
+    /**
+     * The parameters are sorted, links differing only in the order of their parameters are the same page.
+     */
+    SORT,
+    /**
+     * The query is removed, links differing only in their query are the same page.
+     */
+    STRIP;
+
+    public static QueryParameterPolicy of(String policy) {
+        if (null == policy || policy.trim().isEmpty()) {
+            return KEEP;
+        }
+        return QueryParameterPolicy.valueOf(policy.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,39 @@
+package com.acabra.jwebcrawler.model;
+
+/**
+ * The nodes in each stage of the crawl at a given time: queued in the frontier, being fetched, waiting for a parser
+ * and being parsed, along with the bytes of the bodies held until they are parsed.
+ */
+public class StageMetrics {
+    public final int queued;
+    public final int fetching;
+    public final int waitingToParse;
+    public final int parsing;
+    public final long pendingBodyBytes;
+
+    public StageMetrics(int queued, int fetching, int waitingToParse, int parsing, long pendingBodyBytes) {
+        this.queued = queued;
+        this.fetching = fetching;
+        this.waitingToParse = waitingToParse;
+        this.parsing = parsing;
+        this.pendingBodyBytes = pendingBodyBytes;
+    }
+
+    /**
+     * @return the largest depth of each stage of both metrics
+     */
+    public StageMetrics max(StageMetrics other) {
+        return new StageMetrics(Math.max(this.queued, other.queued), Math.max(this.fetching, other.fetching),
+                Math.max(this.waitingToParse, other.waitingToParse), Math.max(this.parsing, other.parsing),
+                Math.max(this.pendingBodyBytes, other.pendingBodyBytes));
+    }
+
+    @Override
+    public String toString() {
+        return "queued=" + queued +
+                ", fetching=" + fetching +
+                ", waitingToParse=" + waitingToParse +
+                ", parsing=" + parsing +
+                ", pendingBodyBytes=" + pendingBodyBytes;
+    }
+}
@@ -0,0 +1,301 @@
+package com.acabra.jwebcrawler.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns urls once in a compact utf-8 arena and names each one by an int id. A url is stored as the id of its
+ * parent prefix followed by its last segment, cut after every '/' of the path, so the scheme and host of a site and
+ * every directory are stored once however many urls share them: a trie of path segments.
+ *
+ * "http://mysite.com/docs/a.html" is the segment "a.html" under "docs/", itself under "http://mysite.com/". An id
+ * never changes and its url is never removed.
+ *
+ * Urls are interned under a lock through an open addressing table of ints, they are read back without locks: the
+ * arena grows by chunks that never move once written, so an id handed over to another thread is readable there.
+ *
+ * An arena belongs to a crawl and is collected along with it, ids of different arenas are not comparable.
+ */
+public class UrlArena {
+
+    private static final int NO_PARENT = -1;
+    // segments longer than this are stored as several entries, a chunk of bytes always holds a whole entry
+    private static final int MAX_SEGMENT_BYTES = 4096;
+    private static final int ENTRY_CHUNK_BITS = 14;
+    private static final int ENTRY_CHUNK_SIZE = 1 << ENTRY_CHUNK_BITS;
+    // chunks of bytes start small and double up to the largest size, so an arena of a few urls stays small
+    private static final int FIRST_BYTE_CHUNK_SIZE = MAX_SEGMENT_BYTES;
+    private static final int BYTE_CHUNK_SIZE = 1 << 20;
+
+    // per entry: the id of the parent, the chunk and offset of the bytes of its segment and their length
+    private volatile int[][] parents = new int[0][];
+    private volatile long[][] locations = new long[0][];
+    private volatile byte[][] bytes = new byte[0][];
+    private int byteChunkUsed;
+    private volatile int size;
+    private long storedBytes;
+    // ids + 1 of the entries by hash of parent and segment, 0 is a free slot
+    private int[] table = new int[1 << 10];
+
+    /**
+     * @return the id of the given url, the same for equal urls
+     */
+    public int intern(String url) {
+        byte[] utf8 = url.getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            int id = NO_PARENT;
+            int start = 0;
+            do {
+                int end = segmentEnd(utf8, start);
+                id = internSegment(id, utf8, start, end);
+                start = end;
+            } while (start < utf8.length);
+            return id;
+        }
+    }
+
+    /**
+     * @return where the segment starting at the given index ends: after its next '/' or at the end of the url, the
+     * first segment holds the scheme and the host
+     */
+    private static int segmentEnd(byte[] utf8, int start) {
+        int from = start;
+        for (int i = 0; start == 0 && i + 2 < utf8.length && utf8[i] != '/'; i++) {
+            if (utf8[i] == ':' && utf8[i + 1] == '/' && utf8[i + 2] == '/') {
+                from = i + 3;
+            }
+        }
+        int limit = Math.min(utf8.length, start + MAX_SEGMENT_BYTES);
+        for (int i = from; i < limit; i++) {
+            if (utf8[i] == '/') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    private int internSegment(int parent, byte[] utf8, int start, int end) {
+        int hash = hash(parent, utf8, start, end);
+        int mask = this.table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = this.table[slot] - 1;
+            if (entry < 0) {
+                int id = append(parent, utf8, start, end);
+                this.table[slot] = id + 1;
+                if (this.size * 2 > this.table.length) {
+                    rehash();
+                }
+                return id;
+            }
+            if (parentOf(entry) == parent && segmentEquals(entry, utf8, start, end)) {
+                return entry;
+            }
+        }
+    }
+
+    private int append(int parent, byte[] utf8, int start, int end) {
+        int length = end - start;
+        if (this.bytes.length == 0 || this.byteChunkUsed + length > this.bytes[this.bytes.length - 1].length) {
+            int chunkSize = this.bytes.length == 0 ? FIRST_BYTE_CHUNK_SIZE
+                    : Math.min(BYTE_CHUNK_SIZE, 2 * this.bytes[this.bytes.length - 1].length);
+            this.bytes = Arrays.copyOf(this.bytes, this.bytes.length + 1);
+            this.bytes[this.bytes.length - 1] = new byte[chunkSize];
+            this.byteChunkUsed = 0;
+        }
+        int byteChunk = this.bytes.length - 1;
+        System.arraycopy(utf8, start, this.bytes[byteChunk], this.byteChunkUsed, length);
+
+        int id = this.size;
+        if ((id & (ENTRY_CHUNK_SIZE - 1)) == 0) {
+            this.parents = Arrays.copyOf(this.parents, this.parents.length + 1);
+            this.parents[this.parents.length - 1] = new int[ENTRY_CHUNK_SIZE];
+            this.locations = Arrays.copyOf(this.locations, this.locations.length + 1);
+            this.locations[this.locations.length - 1] = new long[ENTRY_CHUNK_SIZE];
+        }
+        this.parents[id >>> ENTRY_CHUNK_BITS][id & (ENTRY_CHUNK_SIZE - 1)] = parent;
+        this.locations[id >>> ENTRY_CHUNK_BITS][id & (ENTRY_CHUNK_SIZE - 1)] =
+                ((long) byteChunk << 40) | ((long) this.byteChunkUsed << 16) | length;
+        this.byteChunkUsed += length;
+        this.storedBytes += length;
+        this.size = id + 1; // publishes the entry
+        return id;
+    }
+
+    private void rehash() {
+        int[] table = new int[this.table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < this.size; id++) {
+            long location = locationOf(id);
+            byte[] chunk = this.bytes[chunkOf(location)];
+            int offset = offsetOf(location);
+            int slot = hash(parentOf(id), chunk, offset, offset + lengthOf(location)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+        this.table = table;
+    }
+
+    private boolean segmentEquals(int entry, byte[] utf8, int start, int end) {
+        long location = locationOf(entry);
+        int length = lengthOf(location);
+        if (length != end - start) {
+            return false;
+        }
+        byte[] chunk = this.bytes[chunkOf(location)];
+        int offset = offsetOf(location);
+        for (int i = 0; i < length; i++) {
+            if (chunk[offset + i] != utf8[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(int parent, byte[] utf8, int start, int end) {
+        int hash = 0x811c9dc5 ^ parent;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ utf8[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param id an id returned by {@link #intern}
+     * @return the url of the id
+     */
+    public String url(int id) {
+        if (id < 0 || id >= this.size) {
+            throw new IllegalArgumentException("Unknown url id: " + id);
+        }
+        return new String(utf8(id), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param id an id returned by {@link #intern}
+     * @return the length of the url of the id in utf-8 bytes
+     */
+    public int utf8Length(int id) {
+        if (id < 0 || id >= this.size) {
+            throw new IllegalArgumentException("Unknown url id: " + id);
+        }
+        int length = 0;
+        for (int entry = id; entry != NO_PARENT; entry = parentOf(entry)) {
+            length += lengthOf(locationOf(entry));
+        }
+        return length;
+    }
+
+    /**
+     * Copies the url of an id in utf-8 bytes, without decoding it to a string.
+     * @param id an id returned by {@link #intern}
+     * @param into an array with room for the {@link #utf8Length utf-8 length} of the url at the given offset
+     * @return the offset after the url copied
+     */
+    public int copyUtf8(int id, byte[] into, int offset) {
+        int end = offset + utf8Length(id);
+        int start = end;
+        for (int entry = id; entry != NO_PARENT; entry = parentOf(entry)) {
+            long location = locationOf(entry);
+            int segmentLength = lengthOf(location);
+            start -= segmentLength;
+            System.arraycopy(this.bytes[chunkOf(location)], offsetOf(location), into, start, segmentLength);
+        }
+        return end;
+    }
+
+    private byte[] utf8(int id) {
+        byte[] utf8 = new byte[utf8Length(id)];
+        copyUtf8(id, utf8, 0);
+        return utf8;
+    }
+
+    /**
+     * Compares two urls in the order of their utf-8 bytes, which is the order of their code points, without decoding
+     * them: the bytes of the prefix they share are the same entry, so only the segments that follow it are compared.
+     * @param a an id returned by {@link #intern}
+     * @param b an id returned by {@link #intern}
+     * @return a negative number, zero or a positive number if the first url is less than, equal or greater than the
+     * second one
+     */
+    public int compare(int a, int b) {
+        if (a < 0 || a >= this.size || b < 0 || b >= this.size) {
+            throw new IllegalArgumentException("Unknown url ids: " + a + ", " + b);
+        }
+        int left = a;
+        int right = b;
+        int leftDepth = depthOf(left);
+        int rightDepth = depthOf(right);
+        for (; leftDepth > rightDepth; leftDepth--) {
+            left = parentOf(left);
+        }
+        for (; rightDepth > leftDepth; rightDepth--) {
+            right = parentOf(right);
+        }
+        if (left == right) { // one url is a prefix of the other
+            return Integer.compare(depthOf(a), depthOf(b));
+        }
+        while (parentOf(left) != parentOf(right)) {
+            left = parentOf(left);
+            right = parentOf(right);
+        }
+        long leftLocation = locationOf(left);
+        long rightLocation = locationOf(right);
+        int leftLength = lengthOf(leftLocation);
+        int rightLength = lengthOf(rightLocation);
+        byte[] leftChunk = this.bytes[chunkOf(leftLocation)];
+        byte[] rightChunk = this.bytes[chunkOf(rightLocation)];
+        int leftOffset = offsetOf(leftLocation);
+        int rightOffset = offsetOf(rightLocation);
+        int mismatch = Arrays.mismatch(leftChunk, leftOffset, leftOffset + leftLength,
+                rightChunk, rightOffset, rightOffset + rightLength);
+        if (mismatch < 0 || mismatch == Math.min(leftLength, rightLength)) {
+            // one segment is a prefix of the other, the bytes that follow it belong to other entries
+            return Arrays.compareUnsigned(utf8(a), utf8(b));
+        }
+        return Byte.compareUnsigned(leftChunk[leftOffset + mismatch], rightChunk[rightOffset + mismatch]);
+    }
+
+    private int depthOf(int id) {
+        int depth = 0;
+        for (int entry = id; entry != NO_PARENT; entry = parentOf(entry)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * @return the entries stored, urls and the prefixes they share
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the bytes of the segments stored
+     */
+    public synchronized long getStoredBytes() {
+        return this.storedBytes;
+    }
+
+    private int parentOf(int id) {
+        return this.parents[id >>> ENTRY_CHUNK_BITS][id & (ENTRY_CHUNK_SIZE - 1)];
+    }
+
+    private long locationOf(int id) {
+        return this.locations[id >>> ENTRY_CHUNK_BITS][id & (ENTRY_CHUNK_SIZE - 1)];
+    }
+
+    private static int chunkOf(long location) {
+        return (int) (location >>> 40);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) (location >>> 16) & 0xFFFFFF;
+    }
+
+    private static int lengthOf(long location) {
+        return (int) location & 0xFFFF;
+    }
+}
@@ -1,36 +1,118 @@
 package com.acabra.jwebcrawler.service;
 
+import com.acabra.jwebcrawler.utils.UrlCanonicalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
+/**
+ * Downloads the contents of urls, a single instance (and its underlying {@link HttpClient} and connection pool)
+ * is meant to be shared by all the workers of a crawl. The idle connections the pool keeps are bounded by the
+ * jdk.httpclient.connectionPoolSize system property, read by the jdk once per jvm, so it is given as a -D flag of
+ * the jvm and not set per crawl.
+ */
 public class DownloadService<E> implements Downloader<E> {
 
     private static final Logger logger = LoggerFactory.getLogger(DownloadService.class);
     private final HttpClient client;
-    private static final HttpResponse.BodyHandler<String> STRING_BODY_HANDLER = HttpResponse.BodyHandlers.ofString();
+    private static final HttpResponse.BodyHandler<String> HTML_BODY_HANDLER = new HtmlBodyHandler(0L);
+    // gives the body handler for each url downloaded
+    private final Function<String, HttpResponse.BodyHandler<String>> bodyHandlers;
 
     DownloadService(HttpClient client, String siteURI) {
+        this(client, siteURI, url -> HTML_BODY_HANDLER);
+    }
+
+    DownloadService(HttpClient client, String siteURI,
+                    Function<String, HttpResponse.BodyHandler<String>> bodyHandlers) {
         this.client = client;
-        this.client.sendAsync(buildHttpRequest(siteURI), STRING_BODY_HANDLER)
-                .handle((r, ex) -> r).join(); //warm up connection ignore results
+        this.bodyHandlers = bodyHandlers;
+        //warm up connection in the background, the crawl does not wait for it
+        this.client.sendAsync(buildHttpRequest(siteURI), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((r, ex) -> {
+                    if (null != ex) {
+                        logger.warn(String.format("unable to warm up the connection to %s: %s", siteURI,
+                                ex.getMessage()));
+                    }
+                });
     }
 
+    /**
+     * Creates a service backed by a new HTTP/2 capable client.
+     * @param siteURI the site to warm up the connection for
+     * @return the download service
+     */
     public static DownloadService<HttpResponse<String>> of(String siteURI) {
-        HttpClient client = HttpClient.newBuilder()
+        return new DownloadService<>(newClient(), siteURI);
+    }
+
+    /**
+     * Creates a service backed by a new HTTP/2 capable client whose pages are read up to the given size, see
+     * {@link HtmlBodyHandler}.
+     * @param siteURI the site to warm up the connection for
+     * @param maxBodyBytes the bytes read at most per page, 0 for no limit
+     * @return the download service
+     */
+    public static DownloadService<HttpResponse<String>> of(String siteURI, long maxBodyBytes) {
+        HttpResponse.BodyHandler<String> bodyHandler = new HtmlBodyHandler(maxBodyBytes);
+        return new DownloadService<>(newClient(), siteURI, url -> bodyHandler);
+    }
+
+    /**
+     * Creates a service whose responses have as body the links of the page instead of the page, see
+     * {@link LinkStreamBodyHandler}.
+     * @param siteURI the site to warm up the connection for
+     * @param canonicalizer canonicalizes the links found
+     * @param linkFilter only the canonical links accepted by this filter are kept
+     * @param maxLinks the links per page after which its download stops, 0 to read whole pages
+     * @param maxBodyBytes the bytes read at most per page, 0 for no limit
+     * @return the download service
+     */
+    public static DownloadService<HttpResponse<String>> ofLinkStream(String siteURI, UrlCanonicalizer canonicalizer,
+                                                                     Predicate<String> linkFilter, int maxLinks,
+                                                                     long maxBodyBytes) {
+        return new DownloadService<>(newClient(), siteURI,
+                url -> new LinkStreamBodyHandler(url, linkFilter, canonicalizer, maxLinks, maxBodyBytes));
+    }
+
+    /**
+     * Downloads a single text resource of any content type outside of a crawl, e.g. the sitemap of the site.
+     * @param url the resource
+     * @return the body of the resource, empty if it could not be downloaded
+     */
+    public static Optional<String> downloadText(String url) {
+        try {
+            HttpResponse<String> response = newClient().send(
+                    HttpRequest.newBuilder().uri(URI.create(url)).timeout(Duration.ofSeconds(10)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? Optional.of(response.body()) : Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            logger.info(String.format("unable to download %s: %s", url, e.getMessage()));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        return Optional.empty();
+    }
+
+    private static HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
                 .connectTimeout(Duration.ofSeconds(4)).build();
-        return new DownloadService<>(client, siteURI);
     }
 
     @SuppressWarnings("unchecked")
     public CompletableFuture<E> download(String url) {
-        return client.sendAsync(buildHttpRequest(url), STRING_BODY_HANDLER)
+        return client.sendAsync(buildHttpRequest(url), this.bodyHandlers.apply(url))
                 .handleAsync((res, ex) -> {
                     if(res == null) {
                         logger.error(ex.getMessage());
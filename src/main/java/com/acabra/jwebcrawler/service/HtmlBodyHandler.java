@@ -0,0 +1,155 @@
+package com.acabra.jwebcrawler.service;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Reads the body of successful html pages only, deciding on the headers of the response before any byte of the
+ * body is read: any other response (media, documents, errors, redirects) is discarded with an empty body and
+ * its download is aborted, unless the body is known to be small.
+ *
+ * Pages larger than the maximum body size are truncated, the download is cancelled once the limit is reached and
+ * the body holds the bytes read up to it.
+ */
+public class HtmlBodyHandler implements HttpResponse.BodyHandler<String> {
+
+    // bodies known to be this small are drained, so the connection is kept, instead of aborted
+    private static final long DRAIN_LIMIT_BYTES = 16 * 1024;
+    private final long maxBodyBytes;
+
+    /**
+     * @param maxBodyBytes the bytes read at most per page, 0 for no limit
+     */
+    public HtmlBodyHandler(long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<String> apply(HttpResponse.ResponseInfo responseInfo) {
+        if (!isHtmlPage(responseInfo)) {
+            return discard(responseInfo);
+        }
+        return new LimitedStringSubscriber(charsetOf(contentTypeOf(responseInfo)), this.maxBodyBytes);
+    }
+
+    /**
+     * @return a subscriber with an empty body that drains small bodies and cancels the download of any other
+     */
+    static HttpResponse.BodySubscriber<String> discard(HttpResponse.ResponseInfo responseInfo) {
+        long contentLength = responseInfo.headers().firstValueAsLong("content-length").orElse(-1L);
+        if (contentLength >= 0 && contentLength <= DRAIN_LIMIT_BYTES) {
+            return HttpResponse.BodySubscribers.replacing("");
+        }
+        return new LimitedStringSubscriber(StandardCharsets.UTF_8, -1L);
+    }
+
+    static String contentTypeOf(HttpResponse.ResponseInfo responseInfo) {
+        return responseInfo.headers().firstValue("content-type").orElse("");
+    }
+
+    /**
+     * @return true if the response is a successful html page, the only responses whose body is used
+     */
+    static boolean isHtmlPage(HttpResponse.ResponseInfo responseInfo) {
+        return responseInfo.statusCode() == 200 && contentTypeOf(responseInfo).contains("text/html");
+    }
+
+    static Charset charsetOf(String contentType) {
+        int charset = contentType.toLowerCase().indexOf("charset=");
+        if (charset >= 0) {
+            String name = contentType.substring(charset + "charset=".length()).split(";")[0].replace("\"", "").trim();
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException iae) {
+                // unknown charset, ascii compatible default
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static class LimitedStringSubscriber implements HttpResponse.BodySubscriber<String> {
+
+        private final CompletableFuture<String> body = new CompletableFuture<>();
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private final Charset charset;
+        private final long maxBodyBytes;
+        private long received;
+        private Flow.Subscription subscription;
+
+        /**
+         * @param maxBodyBytes the bytes read at most, 0 for no limit, a negative value reads none
+         */
+        private LimitedStringSubscriber(Charset charset, long maxBodyBytes) {
+            this.charset = charset;
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        @Override
+        public CompletionStage<String> getBody() {
+            return this.body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (this.maxBodyBytes < 0) {
+                subscription.cancel();
+                complete();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (this.body.isDone()) {
+                return;
+            }
+            for (ByteBuffer item : items) {
+                long available = this.maxBodyBytes - this.received;
+                if (this.maxBodyBytes > 0 && item.remaining() > available) {
+                    this.chunks.add(item.limit(item.position() + (int) available));
+                    this.received = this.maxBodyBytes;
+                    this.subscription.cancel(); // the rest of the page is never read
+                    complete();
+                    return;
+                }
+                this.received += item.remaining();
+                this.chunks.add(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.chunks.clear();
+            this.body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            complete();
+        }
+
+        private void complete() {
+            if (this.body.isDone()) {
+                return;
+            }
+            byte[] bytes = new byte[(int) this.received];
+            int offset = 0;
+            for (ByteBuffer chunk : this.chunks) {
+                int length = chunk.remaining();
+                chunk.get(bytes, offset, length);
+                offset += length;
+            }
+            this.chunks.clear();
+            this.body.complete(new String(bytes, this.charset));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.acabra.jwebcrawler.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jsoup.Jsoup;
+
+/**
+ * Parses the whole page into a jsoup document to select its anchors.
+ */
+public class JsoupLinkExtractor implements LinkExtractor {
+
+    @Override
+    public List<String> extractLinks(String html, String baseUri) {
+        return Jsoup.parse(html, baseUri).select("a").stream()
+                .map(element -> element.attr("abs:href"))
+                .filter(link -> !link.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,19 @@
+package com.acabra.jwebcrawler.service;
+
+import com.acabra.jwebcrawler.model.LinkExtractorType;
+import java.util.List;
+
+public interface LinkExtractor {
+
+    /**
+     * Finds the links of the anchors of an html page
+     * @param html the page
+     * @param baseUri the uri relative links are resolved against, unless the page declares its own base
+     * @return the absolute links in the order they appear in the page, links that can not be resolved are skipped
+     */
+    List<String> extractLinks(String html, String baseUri);
+
+    static LinkExtractor of(LinkExtractorType type) {
+        return type == LinkExtractorType.SCANNER ? new ScannerLinkExtractor() : new JsoupLinkExtractor();
+    }
+}
@@ -0,0 +1,40 @@
+package com.acabra.jwebcrawler.service;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * Resolves the hrefs of a page against its base with {@link URL}, the way jsoup resolves the absolute links of a
+ * parsed document, so the extractors scanning the page find the same links as the one parsing it.
+ */
+final class LinkResolver {
+
+    private LinkResolver() {}
+
+    /**
+     * @param baseUri the uri of the page or its base
+     * @param href a link as written in the page, relative or absolute
+     * @return the absolute link, empty if it can not be resolved
+     */
+    static String resolve(String baseUri, String href) {
+        try {
+            URL base;
+            try {
+                base = new URL(baseUri);
+            } catch (MalformedURLException mue) {
+                return new URL(href).toExternalForm(); // only absolute links without a valid base
+            }
+            // a query alone replaces the query of the base, the url class would drop the last segment of its path
+            if (href.startsWith("?")) {
+                href = base.getPath() + href;
+            }
+            // a dot segment against a base without path would be kept, as in http://mysite.com/./a
+            if (href.indexOf('.') == 0 && base.getFile().indexOf('/') != 0) {
+                base = new URL(base.getProtocol(), base.getHost(), base.getPort(), "/" + base.getFile());
+            }
+            return new URL(base, href).toExternalForm();
+        } catch (MalformedURLException mue) {
+            return "";
+        }
+    }
+}
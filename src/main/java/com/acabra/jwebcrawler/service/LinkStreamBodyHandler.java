@@ -0,0 +1,140 @@
+package com.acabra.jwebcrawler.service;
+
+import com.acabra.jwebcrawler.utils.HrefScanner;
+import com.acabra.jwebcrawler.utils.UrlCanonicalizer;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+
+/**
+ * Extracts the links of an html page while its bytes arrive instead of buffering the page, they are resolved
+ * against the page url or its base. The body of the response is a text/uri-list (RFC 2483) with the distinct
+ * canonical links found in the page accepted by the filter, the download stops as soon as the maximum links per
+ * page were found or the maximum body size was read.
+ *
+ * Responses that are not successful html pages are discarded with an empty body, see {@link HtmlBodyHandler}.
+ */
+public class LinkStreamBodyHandler implements HttpResponse.BodyHandler<String> {
+
+    public static final String LINE_SEPARATOR = "\r\n";
+
+    private final String pageUrl;
+    private final Predicate<String> linkFilter;
+    private final UrlCanonicalizer canonicalizer;
+    private final int maxLinks;
+    private final long maxBodyBytes;
+
+    /**
+     * @param pageUrl the url downloaded, relative links are resolved against it
+     * @param linkFilter only the canonical links accepted by this filter are kept
+     * @param canonicalizer canonicalizes the links found
+     * @param maxLinks the links after which the download stops, 0 to read the whole page
+     * @param maxBodyBytes the bytes after which the download stops, 0 for no limit
+     */
+    public LinkStreamBodyHandler(String pageUrl, Predicate<String> linkFilter, UrlCanonicalizer canonicalizer,
+                                 int maxLinks, long maxBodyBytes) {
+        this.pageUrl = pageUrl;
+        this.linkFilter = linkFilter;
+        this.canonicalizer = canonicalizer;
+        this.maxLinks = maxLinks;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<String> apply(HttpResponse.ResponseInfo responseInfo) {
+        if (!HtmlBodyHandler.isHtmlPage(responseInfo)) {
+            return HtmlBodyHandler.discard(responseInfo);
+        }
+        return new LinkStreamBodySubscriber(HtmlBodyHandler.charsetOf(HtmlBodyHandler.contentTypeOf(responseInfo)));
+    }
+
+    private class LinkStreamBodySubscriber implements HttpResponse.BodySubscriber<String> {
+
+        private final CompletableFuture<String> body = new CompletableFuture<>();
+        private final Set<String> links = new LinkedHashSet<>();
+        private final HrefScanner scanner;
+        private Flow.Subscription subscription;
+        private long received;
+        private String baseUri = pageUrl;
+        private boolean baseFound;
+
+        private LinkStreamBodySubscriber(Charset charset) {
+            this.scanner = new HrefScanner(this::onHref, this::onBase, charset);
+        }
+
+        private void onBase(String href) {
+            // only the first base counts, the links found before it (against the standard) keep the page url
+            String base = this.baseFound ? "" : LinkResolver.resolve(pageUrl, href);
+            if (!base.isEmpty()) {
+                this.baseUri = base;
+                this.baseFound = true;
+            }
+        }
+
+        private void onHref(String href) {
+            if (isComplete()) {
+                return;
+            }
+            String link = canonicalizer.canonicalize(LinkResolver.resolve(this.baseUri, href));
+            if (linkFilter.test(link)) {
+                links.add(link);
+            }
+        }
+
+        private boolean isComplete() {
+            return maxLinks > 0 && links.size() >= maxLinks;
+        }
+
+        @Override
+        public CompletionStage<String> getBody() {
+            return this.body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+            if (this.body.isDone()) {
+                return;
+            }
+            for (ByteBuffer chunk : chunks) {
+                if (maxBodyBytes > 0 && chunk.remaining() > maxBodyBytes - this.received) {
+                    chunk.limit(chunk.position() + (int) (maxBodyBytes - this.received));
+                }
+                this.received += chunk.remaining();
+                this.scanner.feed(chunk);
+            }
+            if (isComplete() || (maxBodyBytes > 0 && this.received >= maxBodyBytes)) {
+                this.subscription.cancel(); // the rest of the page is never read
+                complete();
+            } else {
+                this.subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            complete();
+        }
+
+        private void complete() {
+            this.body.complete(String.join(LINE_SEPARATOR, this.links));
+        }
+    }
+}
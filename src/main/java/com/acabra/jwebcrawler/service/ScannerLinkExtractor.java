@@ -0,0 +1,45 @@
+package com.acabra.jwebcrawler.service;
+
+import com.acabra.jwebcrawler.utils.HrefScanner;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scans the page once with a {@link HrefScanner}, only the hrefs of its anchors and base are copied out of it.
+ * The links are resolved once the page was scanned as the base applies to the anchors written before it too.
+ */
+public class ScannerLinkExtractor implements LinkExtractor {
+
+    @Override
+    public List<String> extractLinks(String html, String baseUri) {
+        ScannedPage page = new ScannedPage(baseUri);
+        new HrefScanner(page.hrefs::add, page::onBase, null).feed(html);
+        List<String> links = new ArrayList<>(page.hrefs.size());
+        for (String href : page.hrefs) {
+            String link = LinkResolver.resolve(page.baseUri, href);
+            if (!link.isEmpty()) {
+                links.add(link);
+            }
+        }
+        return links;
+    }
+
+    private static class ScannedPage {
+        private final List<String> hrefs = new ArrayList<>();
+        private String baseUri;
+        private boolean baseFound;
+
+        private ScannedPage(String baseUri) {
+            this.baseUri = baseUri;
+        }
+
+        private void onBase(String href) {
+            // only the first base that resolves counts
+            String base = this.baseFound ? "" : LinkResolver.resolve(this.baseUri, href);
+            if (!base.isEmpty()) {
+                this.baseUri = base;
+                this.baseFound = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free bloom filter over 64-bit hashes. It may answer that a hash was added when it was not, but never the
+ * opposite, the bits are set with compare and swap so concurrent additions are never lost.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long totalBits;
+    private final int totalHashes;
+
+    /**
+     * @param expectedInsertions the hashes expected to be added
+     * @param falsePositiveRate the expected rate of false positives once that many hashes were added
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact(Math.max(1L, (bits + Long.SIZE - 1) / Long.SIZE)));
+        this.totalBits = this.words.length() * (long) Long.SIZE;
+        this.totalHashes = Math.max(1, (int) Math.round((double) this.totalBits / n * Math.log(2)));
+    }
+
+    public void put(long hash) {
+        long secondHash = ConcurrentLongSet.mix(hash);
+        long combined = hash;
+        for (int i = 0; i < this.totalHashes; i++, combined += secondHash) {
+            long bit = (combined & Long.MAX_VALUE) % this.totalBits;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = this.words.get(word);
+            while ((current & mask) == 0L && !this.words.compareAndSet(word, current, current | mask)) {
+                current = this.words.get(word);
+            }
+        }
+    }
+
+    /**
+     * @return false if the hash was definitely never added, true if it may have been
+     */
+    public boolean mightContain(long hash) {
+        long secondHash = ConcurrentLongSet.mix(hash);
+        long combined = hash;
+        for (int i = 0; i < this.totalHashes; i++, combined += secondHash) {
+            long bit = (combined & Long.MAX_VALUE) % this.totalBits;
+            if ((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long sizeInBits() {
+        return this.totalBits;
+    }
+
+    public int getTotalHashes() {
+        return this.totalHashes;
+    }
+}
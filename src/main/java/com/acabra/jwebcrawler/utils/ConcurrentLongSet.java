@@ -0,0 +1,156 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent set of primitive longs using open addressing with linear probing, values are stored inline in
+ * long arrays so every entry costs 8 bytes per slot instead of a boxed key and a map node.
+ *
+ * The set is split in segments, lookups never lock, inserts lock only the segment the value belongs to so
+ * concurrent inserts of different values rarely contend.
+ */
+public class ConcurrentLongSet {
+
+    private static final long EMPTY = 0L;
+    private static final int SEGMENT_BITS = 6;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    // zero marks the empty slots, so it is tracked apart
+    private final AtomicBoolean containsZero = new AtomicBoolean();
+
+    public ConcurrentLongSet() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize the values the set is expected to hold, the set grows beyond it if needed
+     */
+    public ConcurrentLongSet(int expectedSize) {
+        int perSegment = Math.max(MIN_SEGMENT_CAPACITY, Integer.highestOneBit(
+                Math.max(1, (expectedSize >> SEGMENT_BITS) * 2 - 1)) << 1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * @return true if the value was not in the set, among concurrent callers adding the same value only one
+     * gets true
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            return this.containsZero.compareAndSet(false, true);
+        }
+        long hash = mix(value);
+        return segmentOf(hash).add(value, hash);
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return this.containsZero.get();
+        }
+        long hash = mix(value);
+        return segmentOf(hash).contains(value, hash);
+    }
+
+    public int size() {
+        int size = this.containsZero.get() ? 1 : 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the bytes taken by the slots of the set
+     */
+    public long capacityBytes() {
+        long bytes = 0L;
+        for (Segment segment : segments) {
+            bytes += segment.table.length() * (long) Long.BYTES;
+        }
+        return bytes;
+    }
+
+    private Segment segmentOf(long hash) {
+        return this.segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    /**
+     * Spreads the bits of the value so sequential values do not cluster in the same slots.
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static final class Segment {
+        // replaced on resize, the previous table is not modified afterwards so lock free readers are safe
+        private volatile AtomicLongArray table;
+        private int size;
+
+        private Segment(int capacity) {
+            this.table = new AtomicLongArray(capacity);
+        }
+
+        boolean contains(long value, long hash) {
+            return contains(this.table, value, hash);
+        }
+
+        synchronized boolean add(long value, long hash) {
+            if (contains(this.table, value, hash)) {
+                return false;
+            }
+            if ((this.size + 1) * 4L > this.table.length() * 3L) {
+                resize();
+            }
+            insert(this.table, value, hash);
+            ++this.size;
+            return true;
+        }
+
+        synchronized int size() {
+            return this.size;
+        }
+
+        private void resize() {
+            AtomicLongArray current = this.table;
+            AtomicLongArray resized = new AtomicLongArray(current.length() << 1);
+            for (int i = 0; i < current.length(); i++) {
+                long value = current.get(i);
+                if (value != EMPTY) {
+                    insert(resized, value, mix(value));
+                }
+            }
+            this.table = resized;
+        }
+
+        private static boolean contains(AtomicLongArray table, long value, long hash) {
+            int mask = table.length() - 1;
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                long current = table.get(i);
+                if (current == value) {
+                    return true;
+                }
+                if (current == EMPTY) {
+                    return false;
+                }
+            }
+        }
+
+        private static void insert(AtomicLongArray table, long value, long hash) {
+            int mask = table.length() - 1;
+            int i = (int) hash & mask;
+            while (table.get(i) != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table.set(i, value);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every url as is, lookups never give false positives at the cost of storing the whole string per url.
+ */
+public class ExactUrlSet implements UrlSet {
+
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(String url) {
+        return this.urls.add(url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return this.urls.contains(url);
+    }
+
+    @Override
+    public int size() {
+        return this.urls.size();
+    }
+}
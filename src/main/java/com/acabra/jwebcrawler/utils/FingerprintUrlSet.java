@@ -0,0 +1,68 @@
+package com.acabra.jwebcrawler.utils;
+
+/**
+ * Keeps a 64-bit fingerprint per url instead of the url, two different urls are taken as the same one only if
+ * their fingerprints collide, which for a million urls happens with a probability around 1 in 37 million.
+ */
+public class FingerprintUrlSet implements UrlSet {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final ConcurrentLongSet fingerprints;
+
+    public FingerprintUrlSet(int expectedSize) {
+        this.fingerprints = new ConcurrentLongSet(expectedSize);
+    }
+
+    @Override
+    public boolean add(String url) {
+        return this.fingerprints.add(fingerprint(url));
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return this.fingerprints.contains(fingerprint(url));
+    }
+
+    @Override
+    public int size() {
+        return this.fingerprints.size();
+    }
+
+    public long capacityBytes() {
+        return this.fingerprints.capacityBytes();
+    }
+
+    /**
+     * Hashes the characters of the url four at a time with the mixing steps of MurmurHash3.
+     * @param url the url to hash
+     * @return the 64-bit fingerprint of the url
+     */
+    public static long fingerprint(String url) {
+        int length = url.length();
+        long hash = 0x9e3779b97f4a7c15L;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = url.charAt(i)
+                    | (long) url.charAt(i + 1) << 16
+                    | (long) url.charAt(i + 2) << 32
+                    | (long) url.charAt(i + 3) << 48;
+            hash ^= mixBlock(block);
+            hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+        }
+        long tail = 0L;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            tail |= (long) url.charAt(i) << shift;
+        }
+        hash ^= mixBlock(tail);
+        hash ^= length;
+        return ConcurrentLongSet.mix(hash);
+    }
+
+    private static long mixBlock(long block) {
+        block *= C1;
+        block = Long.rotateLeft(block, 31);
+        return block * C2;
+    }
+}
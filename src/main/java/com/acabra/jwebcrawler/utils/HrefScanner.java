@@ -0,0 +1,414 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+/**
+ * Finds the href attribute of the anchor and base tags of an html document in a single pass, fed either as chunks
+ * of bytes while they arrive or as a whole string. The document is never held in memory, only the value of the
+ * attribute being read, up to a fixed size, so any charset compatible with ascii is supported.
+ *
+ * Comments and the content of the elements holding raw text (scripts, styles, titles, ...) are skipped as an html
+ * parser does, so links written inside them are not found.
+ */
+public class HrefScanner {
+
+    private static final int MAX_VALUE_LENGTH = 8192;
+    private static final int MAX_TAG_NAME_LENGTH = 10;
+    private static final String HREF = "href";
+    // elements whose content is text up to their end tag
+    private static final String[] RAW_TEXT_ELEMENTS = {
+            "script", "style", "textarea", "title", "xmp", "iframe", "noembed", "noframes"
+    };
+
+    private enum State {
+        TEXT, TAG_OPEN, TAG_NAME, SKIPPED_TAG, MARKUP_DECLARATION, COMMENT_START, COMMENT, BEFORE_ATTRIBUTE,
+        ATTRIBUTE_NAME, AFTER_ATTRIBUTE_NAME, BEFORE_VALUE, DOUBLE_QUOTED_VALUE, SINGLE_QUOTED_VALUE,
+        UNQUOTED_VALUE, RAW_TEXT, PLAIN_TEXT
+    }
+
+    private enum Tag {
+        ANCHOR, BASE, OTHER
+    }
+
+    private final Consumer<String> anchorListener;
+    private final Consumer<String> baseListener;
+    private final Charset charset;
+    private final char[] value = new char[MAX_VALUE_LENGTH];
+    private final char[] tagName = new char[MAX_TAG_NAME_LENGTH];
+    private byte[] valueBytes;
+    private State state = State.TEXT;
+    private int valueLength;
+    private boolean valueOverflow;
+    private boolean valueNonAscii;
+    private int tagNameLength;
+    private Tag tag;
+    private String rawTextElement;
+    private int rawTextEndMatched = -1;
+    private int commentDashes;
+    private boolean hrefFound;
+    private int attributeNameLength;
+    private boolean hrefAttribute;
+
+    /**
+     * @param anchorListener receives the value of every anchor href found, with its character references decoded
+     * @param baseListener receives the value of every base href found, with its character references decoded
+     * @param charset the charset of the bytes of the document, null when the document is fed as a string
+     */
+    public HrefScanner(Consumer<String> anchorListener, Consumer<String> baseListener, Charset charset) {
+        this.anchorListener = anchorListener;
+        this.baseListener = baseListener;
+        this.charset = charset;
+    }
+
+    /**
+     * @param listener receives the value of every anchor href found, with its character references decoded
+     * @param charset the charset of the bytes of the document
+     */
+    public HrefScanner(Consumer<String> listener, Charset charset) {
+        this(listener, href -> { }, charset);
+    }
+
+    public void feed(ByteBuffer chunk) {
+        while (chunk.hasRemaining()) {
+            feed((char) (chunk.get() & 0xff));
+        }
+    }
+
+    public void feed(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            feed((char) (bytes[i] & 0xff));
+        }
+    }
+
+    /**
+     * Scans a document already decoded, the text between tags is skipped without looking at every character.
+     */
+    public void feed(String html) {
+        int length = html.length();
+        int i = 0;
+        while (i < length) {
+            if (this.state == State.TEXT || (this.state == State.RAW_TEXT && this.rawTextEndMatched < 0)) {
+                int tagStart = html.indexOf('<', i);
+                if (tagStart < 0) {
+                    return;
+                }
+                i = tagStart;
+            } else if (this.state == State.PLAIN_TEXT) {
+                return;
+            }
+            feed(html.charAt(i++));
+        }
+    }
+
+    private void feed(char c) {
+        switch (this.state) {
+            case TEXT:
+                if (c == '<') {
+                    this.state = State.TAG_OPEN;
+                }
+                break;
+            case TAG_OPEN:
+                if (isLetter(c)) {
+                    this.tagNameLength = 0;
+                    this.hrefFound = false;
+                    this.state = State.TAG_NAME;
+                    feed(c);
+                } else if (c == '!') {
+                    this.state = State.MARKUP_DECLARATION;
+                } else if (c == '/' || c == '?') {
+                    this.state = State.SKIPPED_TAG;
+                } else if (c != '<') {
+                    this.state = State.TEXT;
+                }
+                break;
+            case TAG_NAME:
+                if (c == '>') {
+                    endTagName();
+                    closeTag();
+                } else if (isSpace(c) || c == '/') {
+                    endTagName();
+                    this.state = State.BEFORE_ATTRIBUTE;
+                } else {
+                    if (this.tagNameLength < MAX_TAG_NAME_LENGTH) {
+                        this.tagName[this.tagNameLength] = toLowerCase(c);
+                    }
+                    ++this.tagNameLength;
+                }
+                break;
+            case SKIPPED_TAG:
+                if (c == '>') {
+                    this.state = State.TEXT;
+                }
+                break;
+            case MARKUP_DECLARATION:
+                this.state = c == '-' ? State.COMMENT_START : c == '>' ? State.TEXT : State.SKIPPED_TAG;
+                break;
+            case COMMENT_START:
+                if (c == '-') {
+                    this.commentDashes = 2; // so "<!-->" is an empty comment
+                    this.state = State.COMMENT;
+                } else {
+                    this.state = c == '>' ? State.TEXT : State.SKIPPED_TAG;
+                }
+                break;
+            case COMMENT:
+                if (c == '-') {
+                    ++this.commentDashes;
+                } else if (c == '>' && this.commentDashes >= 2) {
+                    this.state = State.TEXT;
+                } else {
+                    this.commentDashes = 0;
+                }
+                break;
+            case BEFORE_ATTRIBUTE:
+                if (c == '>') {
+                    closeTag();
+                } else if (!isSpace(c) && c != '/') {
+                    startAttribute(c);
+                }
+                break;
+            case ATTRIBUTE_NAME:
+                if (c == '=') {
+                    this.state = State.BEFORE_VALUE;
+                } else if (c == '>') {
+                    closeTag();
+                } else if (isSpace(c)) {
+                    this.state = State.AFTER_ATTRIBUTE_NAME;
+                } else if (c == '/') {
+                    this.state = State.BEFORE_ATTRIBUTE;
+                } else {
+                    matchAttributeName(c);
+                }
+                break;
+            case AFTER_ATTRIBUTE_NAME:
+                if (c == '=') {
+                    this.state = State.BEFORE_VALUE;
+                } else if (c == '>') {
+                    closeTag();
+                } else if (!isSpace(c) && c != '/') {
+                    startAttribute(c);
+                }
+                break;
+            case BEFORE_VALUE:
+                this.valueLength = 0;
+                this.valueOverflow = false;
+                this.valueNonAscii = false;
+                if (c == '"') {
+                    this.state = State.DOUBLE_QUOTED_VALUE;
+                } else if (c == '\'') {
+                    this.state = State.SINGLE_QUOTED_VALUE;
+                } else if (c == '>') {
+                    emitValue();
+                    closeTag();
+                } else if (!isSpace(c)) {
+                    this.state = State.UNQUOTED_VALUE;
+                    appendValue(c);
+                }
+                break;
+            case DOUBLE_QUOTED_VALUE:
+            case SINGLE_QUOTED_VALUE:
+                if (c == (this.state == State.DOUBLE_QUOTED_VALUE ? '"' : '\'')) {
+                    emitValue();
+                    this.state = State.BEFORE_ATTRIBUTE;
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case UNQUOTED_VALUE:
+                if (isSpace(c)) {
+                    emitValue();
+                    this.state = State.BEFORE_ATTRIBUTE;
+                } else if (c == '>') {
+                    emitValue();
+                    closeTag();
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case RAW_TEXT:
+                matchRawTextEnd(c);
+                break;
+            case PLAIN_TEXT:
+                break;
+            default:
+                throw new IllegalStateException("Unknown state: " + this.state);
+        }
+    }
+
+    private void endTagName() {
+        this.rawTextElement = null;
+        if (isTagName("a")) {
+            this.tag = Tag.ANCHOR;
+            return;
+        }
+        this.tag = isTagName("base") ? Tag.BASE : Tag.OTHER;
+        for (String element : RAW_TEXT_ELEMENTS) {
+            if (isTagName(element)) {
+                this.rawTextElement = element;
+                return;
+            }
+        }
+        if (isTagName("plaintext")) {
+            this.rawTextElement = "plaintext";
+        }
+    }
+
+    private boolean isTagName(String name) {
+        if (this.tagNameLength != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < this.tagNameLength; i++) {
+            if (this.tagName[i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void closeTag() {
+        if (null == this.rawTextElement) {
+            this.state = State.TEXT;
+        } else if ("plaintext".equals(this.rawTextElement)) {
+            this.state = State.PLAIN_TEXT; // there is no end tag, the rest of the document is text
+        } else {
+            this.rawTextEndMatched = -1;
+            this.state = State.RAW_TEXT;
+        }
+    }
+
+    /**
+     * Raw text ends at "&lt;/name" followed by a space, a slash or the end of the tag, case insensitive.
+     * rawTextEndMatched is -1 until a '&lt;' is found and then the count of characters matched after it.
+     */
+    private void matchRawTextEnd(char c) {
+        int matched = this.rawTextEndMatched;
+        int nameLength = this.rawTextElement.length();
+        if (matched < 0) {
+            matched = c == '<' ? 0 : -1;
+        } else if (matched == 0) {
+            matched = c == '/' ? 1 : c == '<' ? 0 : -1;
+        } else if (matched <= nameLength) {
+            if (toLowerCase(c) == this.rawTextElement.charAt(matched - 1)) {
+                ++matched;
+            } else {
+                matched = c == '<' ? 0 : -1;
+            }
+        } else if (isSpace(c) || c == '/' || c == '>') {
+            this.state = c == '>' ? State.TEXT : State.SKIPPED_TAG;
+            matched = -1;
+        } else {
+            matched = c == '<' ? 0 : -1;
+        }
+        this.rawTextEndMatched = matched;
+    }
+
+    private void startAttribute(char c) {
+        this.attributeNameLength = 0;
+        this.hrefAttribute = true;
+        this.state = State.ATTRIBUTE_NAME;
+        matchAttributeName(c);
+    }
+
+    private void matchAttributeName(char c) {
+        this.hrefAttribute &= this.attributeNameLength < HREF.length()
+                && HREF.charAt(this.attributeNameLength) == toLowerCase(c);
+        ++this.attributeNameLength;
+    }
+
+    private void appendValue(char c) {
+        if (this.valueLength < MAX_VALUE_LENGTH) {
+            this.valueNonAscii |= c >= 0x80;
+            this.value[this.valueLength++] = c;
+        } else {
+            this.valueOverflow = true;
+        }
+    }
+
+    private void emitValue() {
+        boolean isHref = this.tag != Tag.OTHER && this.hrefAttribute && this.attributeNameLength == HREF.length();
+        if (isHref && !this.hrefFound && !this.valueOverflow) {
+            this.hrefFound = true; // as browsers do, only the first href of a tag counts
+            String href = decodeCharacterReferences(valueAsString()).trim();
+            (this.tag == Tag.ANCHOR ? this.anchorListener : this.baseListener).accept(href);
+        }
+        this.valueLength = 0;
+    }
+
+    private String valueAsString() {
+        if (null == this.charset || !this.valueNonAscii) {
+            return new String(this.value, 0, this.valueLength);
+        }
+        // fed with bytes, each char of the value holds one byte
+        if (null == this.valueBytes) {
+            this.valueBytes = new byte[MAX_VALUE_LENGTH];
+        }
+        for (int i = 0; i < this.valueLength; i++) {
+            this.valueBytes[i] = (byte) this.value[i];
+        }
+        return new String(this.valueBytes, 0, this.valueLength, this.charset);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Decodes the numeric character references and the named ones that can appear in urls.
+     */
+    static String decodeCharacterReferences(String value) {
+        int ampersand = value.indexOf('&');
+        if (ampersand < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        sb.append(value, 0, ampersand);
+        int i = ampersand;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            int semicolon = c == '&' ? value.indexOf(';', i) : -1;
+            String decoded = semicolon > i + 1 && semicolon - i <= 10
+                    ? decodeReference(value.substring(i + 1, semicolon))
+                    : null;
+            if (null != decoded) {
+                sb.append(decoded);
+                i = semicolon + 1;
+            } else {
+                sb.append(c);
+                ++i;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String decodeReference(String name) {
+        switch (name) {
+            case "amp": return "&";
+            case "quot": return "\"";
+            case "apos": return "'";
+            case "lt": return "<";
+            case "gt": return ">";
+            case "nbsp": return "\u00a0";
+            default:
+                if (name.charAt(0) != '#' || name.length() < 2) {
+                    return null;
+                }
+                try {
+                    boolean hex = name.charAt(1) == 'x' || name.charAt(1) == 'X';
+                    int codePoint = Integer.parseInt(name.substring(hex ? 2 : 1), hex ? 16 : 10);
+                    return Character.isValidCodePoint(codePoint) ? new String(Character.toChars(codePoint)) : null;
+                } catch (NumberFormatException nfe) {
+                    return null;
+                }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds executors that start a new virtual thread per submitted task when the runtime supports them, the project
+ * targets an older jdk so they are looked up reflectively. Platform threads are too expensive to start one per
+ * task, without virtual threads the tasks run on a bounded pool instead.
+ */
+public class ThreadPerTaskExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadPerTaskExecutors.class);
+    private static final Method VIRTUAL_EXECUTOR_FACTORY = findVirtualExecutorFactory();
+
+    private ThreadPerTaskExecutors() {}
+
+    public static boolean isVirtualThreadSupported() {
+        return null != VIRTUAL_EXECUTOR_FACTORY;
+    }
+
+    /**
+     * @param maxPlatformThreads the daemon platform threads the tasks run on if the runtime does not support virtual
+     *                           threads, the tasks beyond them wait for one to be free
+     * @return an executor running each task on a new virtual thread, or on a pool of at most the given platform
+     * threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor(int maxPlatformThreads) {
+        if (isVirtualThreadSupported()) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR_FACTORY.invoke(null);
+            } catch (ReflectiveOperationException roe) {
+                logger.error("Unable to create virtual thread executor: " + roe.getMessage());
+            }
+        }
+        int threads = Math.max(1, maxPlatformThreads);
+        logger.info(String.format("Virtual threads not supported by the runtime, using a pool of %d platform threads",
+                threads));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new DaemonThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException nsme) {
+            return null;
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger ids = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "fetch-task-" + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
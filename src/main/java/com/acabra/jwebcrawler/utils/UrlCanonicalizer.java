@@ -0,0 +1,198 @@
+package com.acabra.jwebcrawler.utils;
+
+import com.acabra.jwebcrawler.model.QueryParameterPolicy;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rewrites absolute urls to a single spelling per page: the scheme and host are lower cased, the default port,
+ * the fragment and the dot segments of the path are removed, an empty path becomes "/" and the query parameters
+ * are sorted or stripped according to the policy. Parameters whose name starts with one of the stripped prefixes
+ * are always removed.
+ *
+ * The url is scanned once, urls already canonical are returned as given.
+ */
+public class UrlCanonicalizer {
+
+    private final QueryParameterPolicy policy;
+    private final String[] strippedParameterPrefixes;
+
+    public UrlCanonicalizer(QueryParameterPolicy policy, List<String> strippedParameterPrefixes) {
+        this.policy = policy;
+        this.strippedParameterPrefixes = strippedParameterPrefixes.stream()
+                .filter(prefix -> !prefix.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * @param url an absolute url
+     * @return the canonical form of the url, or the url as given if it is not a hierarchical url
+     */
+    public String canonicalize(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd <= 0) {
+            return url;
+        }
+        int length = url.length();
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = indexOfAny(url, authorityStart, length, "/?#");
+        int pathEnd = indexOfAny(url, authorityEnd, length, "?#");
+        int fragmentStart = url.indexOf('#', pathEnd);
+        int queryEnd = fragmentStart < 0 ? length : fragmentStart;
+
+        StringBuilder sb = new StringBuilder(length + 1);
+        appendLowerCase(sb, url, 0, authorityStart);
+        appendAuthority(sb, url, schemeEnd, authorityStart, authorityEnd);
+        appendPath(sb, url, authorityEnd, pathEnd);
+        if (pathEnd < queryEnd && url.charAt(pathEnd) == '?') {
+            appendQuery(sb, url, pathEnd + 1, queryEnd);
+        }
+        return url.contentEquals(sb) ? url : sb.toString();
+    }
+
+    private static int indexOfAny(String url, int from, int to, String chars) {
+        for (int i = from; i < to; i++) {
+            if (chars.indexOf(url.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static void appendLowerCase(StringBuilder sb, String url, int from, int to) {
+        int upper = from;
+        while (upper < to && (url.charAt(upper) < 'A' || url.charAt(upper) > 'Z')) {
+            ++upper;
+        }
+        sb.append(url, from, upper);
+        for (int i = upper; i < to; i++) {
+            char c = url.charAt(i);
+            sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+    }
+
+    private static void appendAuthority(StringBuilder sb, String url, int schemeEnd, int start, int end) {
+        int hostStart = url.lastIndexOf('@', end - 1) + 1;
+        if (hostStart > start) {
+            sb.append(url, start, hostStart); // user info is case sensitive
+        } else {
+            hostStart = start;
+        }
+        int portStart = url.lastIndexOf(':', end - 1);
+        if (portStart < hostStart || url.lastIndexOf(']', end - 1) > portStart) {
+            portStart = end; // no port, or the colon belongs to an ipv6 address
+        }
+        appendLowerCase(sb, url, hostStart, portStart);
+        if (portStart < end && !isDefaultPort(url, schemeEnd, portStart + 1, end)) {
+            sb.append(url, portStart, end);
+        }
+    }
+
+    private static boolean isDefaultPort(String url, int schemeEnd, int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        return schemeEnd == 4 && url.regionMatches(true, 0, "http", 0, 4) && isPort(url, from, to, "80")
+                || schemeEnd == 5 && url.regionMatches(true, 0, "https", 0, 5) && isPort(url, from, to, "443");
+    }
+
+    private static boolean isPort(String url, int from, int to, String port) {
+        return to - from == port.length() && url.startsWith(port, from);
+    }
+
+    /**
+     * Appends the path removing its dot segments as described in RFC 3986 section 5.2.4.
+     */
+    private static void appendPath(StringBuilder sb, String url, int start, int end) {
+        if (start == end) {
+            sb.append('/');
+            return;
+        }
+        int dot = url.indexOf("/.", start);
+        if (dot < 0 || dot >= end) {
+            sb.append(url, start, end);
+            return;
+        }
+        int base = sb.length();
+        int i = start;
+        while (i < end) {
+            int next = url.indexOf('/', i + 1);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            int segmentLength = next - i - 1;
+            if (segmentLength == 1 && url.charAt(i + 1) == '.') {
+                if (next == end) {
+                    sb.append('/');
+                }
+            } else if (segmentLength == 2 && url.charAt(i + 1) == '.' && url.charAt(i + 2) == '.') {
+                sb.setLength(Math.max(base, sb.lastIndexOf("/")));
+                if (next == end) {
+                    sb.append('/');
+                }
+            } else {
+                sb.append(url, i, next);
+            }
+            i = next;
+        }
+        if (sb.length() == base) {
+            sb.append('/');
+        }
+    }
+
+    private void appendQuery(StringBuilder sb, String url, int start, int end) {
+        if (this.policy == QueryParameterPolicy.STRIP || start == end) {
+            return;
+        }
+        boolean sorted = true;
+        boolean stripped = false;
+        int previousStart = -1;
+        int previousEnd = -1;
+        for (int i = start; i < end; ) {
+            int next = indexOfAny(url, i, end, "&");
+            if (next == i || isStripped(url, i, next)) {
+                stripped = true;
+            } else {
+                if (previousStart >= 0 && compare(url, previousStart, previousEnd, i, next) > 0) {
+                    sorted = false;
+                }
+                previousStart = i;
+                previousEnd = next;
+            }
+            i = next + 1;
+        }
+        if (!stripped && (sorted || this.policy == QueryParameterPolicy.KEEP)) {
+            sb.append('?').append(url, start, end);
+            return;
+        }
+        String[] parameters = Arrays.stream(url.substring(start, end).split("&"))
+                .filter(parameter -> !parameter.isEmpty() && !isStripped(parameter, 0, parameter.length()))
+                .toArray(String[]::new);
+        if (this.policy == QueryParameterPolicy.SORT) {
+            Arrays.sort(parameters);
+        }
+        if (parameters.length > 0) {
+            sb.append('?').append(String.join("&", parameters));
+        }
+    }
+
+    private boolean isStripped(String url, int from, int to) {
+        for (String prefix : this.strippedParameterPrefixes) {
+            if (to - from >= prefix.length() && url.startsWith(prefix, from)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(String url, int aFrom, int aTo, int bFrom, int bTo) {
+        int length = Math.min(aTo - aFrom, bTo - bFrom);
+        for (int i = 0; i < length; i++) {
+            int diff = url.charAt(aFrom + i) - url.charAt(bFrom + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (aTo - aFrom) - (bTo - bFrom);
+    }
+}
@@ -0,0 +1,207 @@
+package com.acabra.jwebcrawler.utils;
+
+import com.acabra.jwebcrawler.model.CrawlerAppConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which of the canonical links found are crawled, the rules are compiled once and checked from the
+ * cheapest to the most expensive:
+ * <ol>
+ *     <li>the link is in the site and, if any, in one of the path scopes: a single walk of a trie of prefixes</li>
+ *     <li>the query has at most the maximum parameters</li>
+ *     <li>the extension of the last path segment is not excluded: a hash lookup</li>
+ *     <li>the path and query match none of the exclude patterns and, if any, one of the include patterns: each
+ *     group of patterns is a single alternation</li>
+ * </ol>
+ * Patterns are globs unless prefixed by "regex:", a "glob:" prefix is allowed too. In a glob "**" matches any
+ * characters, "*" and "?" do not match a '/'.
+ */
+public class UrlFilter implements Predicate<String> {
+
+    private static final String GLOB = "glob:";
+    private static final String REGEX = "regex:";
+
+    private final PrefixTrie scopes = new PrefixTrie();
+    private final Set<String> excludedExtensions;
+    private final int maxExtensionLength;
+    private final int maxQueryParameters;
+    private final Pattern includes;
+    private final Pattern excludes;
+
+    /**
+     * @param siteURI only links of this site are accepted
+     * @param pathScopes if not empty only links whose path starts with one of these are accepted
+     * @param excludedExtensions extensions of the files not crawled, case insensitive
+     * @param maxQueryParameters the parameters a query has at most, 0 for no limit
+     * @param includePatterns if not empty only links whose path and query match one of these are accepted
+     * @param excludePatterns links whose path and query match any of these are rejected
+     */
+    public UrlFilter(String siteURI, List<String> pathScopes, List<String> excludedExtensions, int maxQueryParameters,
+                     List<String> includePatterns, List<String> excludePatterns) {
+        if (pathScopes.isEmpty()) {
+            this.scopes.add(siteURI + "/"); // canonical links always have a path, "http://site.com.evil" is out
+        } else {
+            pathScopes.forEach(scope -> this.scopes.add(siteURI + (scope.startsWith("/") ? scope : "/" + scope)));
+        }
+        this.excludedExtensions = excludedExtensions.stream()
+                .map(extension -> extension.toLowerCase(Locale.ROOT).replaceFirst("^\\.", ""))
+                .filter(extension -> !extension.isEmpty())
+                .collect(Collectors.toCollection(HashSet::new));
+        this.maxExtensionLength = this.excludedExtensions.stream().mapToInt(String::length).max().orElse(0);
+        this.maxQueryParameters = maxQueryParameters;
+        this.includes = compile(includePatterns);
+        this.excludes = compile(excludePatterns);
+    }
+
+    public static UrlFilter of(CrawlerAppConfig config) {
+        return new UrlFilter(config.siteURI, config.pathScopes, config.excludedExtensions, config.maxQueryParameters,
+                config.includePatterns, config.excludePatterns);
+    }
+
+    /**
+     * @param url a canonical url
+     * @return true if the url is crawled
+     */
+    @Override
+    public boolean test(String url) {
+        if (!this.scopes.matchesAnyPrefix(url)) {
+            return false;
+        }
+        int pathStart = url.indexOf('/', url.indexOf("://") + 3);
+        if (pathStart < 0) {
+            pathStart = url.length();
+        }
+        int queryStart = url.indexOf('?', pathStart);
+        int pathEnd = queryStart < 0 ? url.length() : queryStart;
+        if (this.maxQueryParameters > 0 && queryStart >= 0
+                && countParameters(url, queryStart + 1) > this.maxQueryParameters) {
+            return false;
+        }
+        if (isExtensionExcluded(url, pathStart, pathEnd)) {
+            return false;
+        }
+        if (null == this.excludes && null == this.includes) {
+            return true;
+        }
+        String pathAndQuery = url.substring(pathStart);
+        return (null == this.excludes || !this.excludes.matcher(pathAndQuery).matches())
+                && (null == this.includes || this.includes.matcher(pathAndQuery).matches());
+    }
+
+    private static int countParameters(String url, int from) {
+        int parameters = from < url.length() ? 1 : 0;
+        for (int i = url.indexOf('&', from); i >= 0; i = url.indexOf('&', i + 1)) {
+            ++parameters;
+        }
+        return parameters;
+    }
+
+    private boolean isExtensionExcluded(String url, int pathStart, int pathEnd) {
+        if (this.excludedExtensions.isEmpty()) {
+            return false;
+        }
+        int dot = url.lastIndexOf('.', pathEnd - 1);
+        if (dot < url.lastIndexOf('/', pathEnd - 1) || dot < pathStart || pathEnd - dot - 1 > this.maxExtensionLength) {
+            return false; // no extension in the last segment or longer than any excluded
+        }
+        return this.excludedExtensions.contains(url.substring(dot + 1, pathEnd).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return a single pattern matching any of the given patterns, null if there are none
+     */
+    static Pattern compile(List<String> patterns) {
+        List<String> regexes = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            if (pattern.startsWith(REGEX)) {
+                regexes.add(pattern.substring(REGEX.length()));
+            } else if (!pattern.isEmpty()) {
+                regexes.add(globToRegex(pattern.startsWith(GLOB) ? pattern.substring(GLOB.length()) : pattern));
+            }
+        }
+        if (regexes.isEmpty()) {
+            return null;
+        }
+        return Pattern.compile(regexes.stream().map(regex -> "(?:" + regex + ")").collect(Collectors.joining("|")));
+    }
+
+    static String globToRegex(String glob) {
+        StringBuilder sb = new StringBuilder(glob.length() * 2);
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                sb.append(".*");
+                ++i;
+            } else if (c == '*') {
+                sb.append("[^/]*");
+            } else if (c == '?') {
+                sb.append("[^/]");
+            } else if ("\\.[]{}()+-^$|".indexOf(c) >= 0) {
+                sb.append('\\').append(c);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A trie of characters telling whether a string starts with any of the prefixes added, in a single walk.
+     */
+    static class PrefixTrie {
+        private char[] keys = new char[0];
+        private PrefixTrie[] children = new PrefixTrie[0];
+        private boolean terminal;
+
+        void add(String prefix) {
+            PrefixTrie node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.childOrCreate(prefix.charAt(i));
+            }
+            node.terminal = true;
+        }
+
+        boolean matchesAnyPrefix(String s) {
+            PrefixTrie node = this;
+            for (int i = 0; !node.terminal; i++) {
+                if (i == s.length() || null == (node = node.child(s.charAt(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private PrefixTrie child(char c) {
+            int index = Arrays.binarySearch(this.keys, c);
+            return index < 0 ? null : this.children[index];
+        }
+
+        private PrefixTrie childOrCreate(char c) {
+            int index = Arrays.binarySearch(this.keys, c);
+            if (index >= 0) {
+                return this.children[index];
+            }
+            int insertAt = -index - 1;
+            PrefixTrie child = new PrefixTrie();
+            char[] keys = new char[this.keys.length + 1];
+            PrefixTrie[] children = new PrefixTrie[this.children.length + 1];
+            System.arraycopy(this.keys, 0, keys, 0, insertAt);
+            System.arraycopy(this.children, 0, children, 0, insertAt);
+            keys[insertAt] = c;
+            children[insertAt] = child;
+            System.arraycopy(this.keys, insertAt, keys, insertAt + 1, this.keys.length - insertAt);
+            System.arraycopy(this.children, insertAt, children, insertAt + 1, this.children.length - insertAt);
+            this.keys = keys;
+            this.children = children;
+            return child;
+        }
+    }
+}
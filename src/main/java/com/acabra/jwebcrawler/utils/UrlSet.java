@@ -0,0 +1,24 @@
+package com.acabra.jwebcrawler.utils;
+
+/**
+ * A concurrent set of urls.
+ */
+public interface UrlSet {
+
+    /**
+     * @return true if the url was not in the set, among concurrent callers adding the same url only one gets true
+     */
+    boolean add(String url);
+
+    boolean contains(String url);
+
+    int size();
+
+    /**
+     * @param exact true to keep every url, false to keep only its 64-bit fingerprint
+     * @param expectedSize the urls the set is expected to hold
+     */
+    static UrlSet of(boolean exact, int expectedSize) {
+        return exact ? new ExactUrlSet() : new FingerprintUrlSet(expectedSize);
+    }
+}
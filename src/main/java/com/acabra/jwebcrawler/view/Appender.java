@@ -1,12 +1,21 @@
 package com.acabra.jwebcrawler.view;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 public interface Appender {
 
     Appender append(String text) throws IOException;
 
+    /**
+     * Appends text already encoded in utf-8, appenders writing bytes take it as is instead of decoding it.
+     * @param utf8 whole characters, never a part of one
+     */
+    default Appender append(byte[] utf8, int offset, int length) throws IOException {
+        return append(new String(utf8, offset, length, StandardCharsets.UTF_8));
+    }
+
     void close() throws IOException;
 
     Optional<String> textIfAvailable();
@@ -0,0 +1,29 @@
+package com.acabra.jwebcrawler.view;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream handing the bytes written to an appender, for writers that need a stream. The bytes may end in the
+ * middle of a character, the appender must take them as they are.
+ */
+class AppenderOutputStream extends OutputStream {
+
+    private final Appender appender;
+    private final byte[] single = new byte[1];
+
+    AppenderOutputStream(Appender appender) {
+        this.appender = appender;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.single[0] = (byte) b;
+        this.appender.append(this.single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        this.appender.append(bytes, offset, length);
+    }
+}
@@ -0,0 +1,36 @@
+package com.acabra.jwebcrawler.view;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Console appender printing the report in large chunks of utf-8 bytes instead of a print per fragment.
+ */
+public class BufferedConsoleAppender extends ByteBufferAppender {
+
+    static final int CHUNK_BYTES = 256 * 1024;
+
+    private final PrintStream out;
+
+    public BufferedConsoleAppender() {
+        this(System.out, CHUNK_BYTES);
+    }
+
+    BufferedConsoleAppender(PrintStream out, int chunkBytes) {
+        super(ByteBuffer.allocate(chunkBytes));
+        this.out = out;
+    }
+
+    @Override
+    protected void write(ByteBuffer bytes) {
+        this.out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        bytes.position(bytes.limit());
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        this.out.flush();
+    }
+}
@@ -0,0 +1,127 @@
+package com.acabra.jwebcrawler.view;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Appender collecting the report in a byte buffer, bytes are copied as they are and the buffer is written out only
+ * once it is full or the appender is closed.
+ *
+ * Text is encoded in utf-8 into a small array on the heap and moved to the buffer once the array is full, so the
+ * fragments of a report cost a store per character instead of a put each on a direct buffer.
+ */
+abstract class ByteBufferAppender implements Appender {
+
+    private static final int STAGED_BYTES = 8 * 1024;
+    // a character takes three bytes at most, two characters of a surrogate pair take four
+    private static final int MAX_BYTES_PER_CHAR = 3;
+    // what the utf-8 encoder writes for a surrogate without its pair
+    private static final byte REPLACEMENT = '?';
+    private final ByteBuffer buffer;
+    private final byte[] staged = new byte[STAGED_BYTES];
+    private int stagedBytes;
+
+    ByteBufferAppender(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Writes out the bytes between the position and the limit of the given buffer, all of them.
+     */
+    protected abstract void write(ByteBuffer bytes) throws IOException;
+
+    @Override
+    public Appender append(String text) throws IOException {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            // the characters that fit whatever their length, with a byte more for a pair ending the run
+            int room = (STAGED_BYTES - this.stagedBytes - 1) / MAX_BYTES_PER_CHAR;
+            if (room == 0) {
+                putStaged();
+                continue;
+            }
+            int end = Math.min(length, i + room);
+            byte[] bytes = this.staged;
+            int position = this.stagedBytes;
+            for (char c; i < end && (c = text.charAt(i)) < 0x80; i++) {
+                bytes[position++] = (byte) c;
+            }
+            for (; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xc0 | c >> 6);
+                    bytes[position++] = (byte) (0x80 | c & 0x3f);
+                } else if (!Character.isSurrogate(c)) {
+                    bytes[position++] = (byte) (0xe0 | c >> 12);
+                    bytes[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    bytes[position++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[position++] = (byte) (0xf0 | codePoint >> 18);
+                    bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    bytes[position++] = (byte) (0x80 | codePoint & 0x3f);
+                } else {
+                    bytes[position++] = REPLACEMENT;
+                }
+            }
+            this.stagedBytes = position;
+        }
+        return this;
+    }
+
+    @Override
+    public Appender append(byte[] utf8, int offset, int length) throws IOException {
+        putStaged();
+        put(utf8, offset, length);
+        return this;
+    }
+
+    private void put(byte[] utf8, int offset, int length) throws IOException {
+        int written = 0;
+        while (written < length) {
+            if (!this.buffer.hasRemaining()) {
+                writeBuffer();
+            }
+            int chunk = Math.min(length - written, this.buffer.remaining());
+            this.buffer.put(utf8, offset + written, chunk);
+            written += chunk;
+        }
+    }
+
+    /**
+     * Moves the text encoded so far to the buffer, ahead of any bytes appended after it.
+     */
+    private void putStaged() throws IOException {
+        if (this.stagedBytes > 0) {
+            put(this.staged, 0, this.stagedBytes);
+            this.stagedBytes = 0;
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        this.buffer.flip();
+        if (this.buffer.hasRemaining()) {
+            write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes out the bytes appended so far.
+     */
+    protected void drain() throws IOException {
+        putStaged();
+        writeBuffer();
+    }
+
+    @Override
+    public Optional<String> textIfAvailable() {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,134 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.model.UrlArena;
+import java.io.IOException;
+
+/**
+ * Buffer of bytes reused for a whole export, given to the appender in chunks once full. Every value is put whole:
+ * room is made for it before it is written, so a chunk never ends in the middle of a number or a url.
+ */
+class ChunkedBytes {
+
+    static final int DEFAULT_CHUNK_BYTES = 64 * 1024;
+    // the digits of the longest int and its sign
+    private static final int MAX_DIGITS = 11;
+
+    private final Appender appender;
+    private byte[] buffer;
+    private int position;
+    private byte[] url = new byte[256];
+
+    /**
+     * @param chunkBytes the bytes buffered before they are appended, the buffer grows for a longer value
+     */
+    ChunkedBytes(Appender appender, int chunkBytes) {
+        this.appender = appender;
+        this.buffer = new byte[Math.max(MAX_DIGITS, chunkBytes)];
+    }
+
+    /**
+     * Makes room for the given bytes, appending the ones buffered if they do not fit.
+     */
+    private void reserve(int length) throws IOException {
+        if (this.position + length > this.buffer.length) {
+            flush();
+            if (length > this.buffer.length) {
+                this.buffer = new byte[length];
+            }
+        }
+    }
+
+    ChunkedBytes put(byte value) throws IOException {
+        reserve(1);
+        this.buffer[this.position++] = value;
+        return this;
+    }
+
+    ChunkedBytes put(byte[] bytes) throws IOException {
+        reserve(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+        return this;
+    }
+
+    /**
+     * Puts the four bytes of the value, the most significant first.
+     */
+    ChunkedBytes putInt(int value) throws IOException {
+        reserve(Integer.BYTES);
+        this.buffer[this.position++] = (byte) (value >>> 24);
+        this.buffer[this.position++] = (byte) (value >>> 16);
+        this.buffer[this.position++] = (byte) (value >>> 8);
+        this.buffer[this.position++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Puts the decimal digits of the value in ascii, without creating a string for it.
+     */
+    ChunkedBytes putDigits(int value) throws IOException {
+        reserve(MAX_DIGITS);
+        long digits = value;
+        if (digits < 0) {
+            this.buffer[this.position++] = '-';
+            digits = -digits;
+        }
+        int end = this.position + 1;
+        for (long limit = 10; limit <= digits; limit *= 10) {
+            ++end;
+        }
+        for (int i = end - 1; i >= this.position; i--) {
+            this.buffer[i] = (byte) ('0' + digits % 10);
+            digits /= 10;
+        }
+        this.position = end;
+        return this;
+    }
+
+    /**
+     * Puts the url as a csv field: in utf-8 as it is, or between double quotes with its double quotes doubled if it
+     * holds a comma, a double quote or a line break.
+     */
+    ChunkedBytes putCsvUrl(UrlArena urls, int urlId) throws IOException {
+        int length = urls.utf8Length(urlId);
+        if (length > this.url.length) {
+            this.url = new byte[Math.max(length, 2 * this.url.length)];
+        }
+        urls.copyUtf8(urlId, this.url, 0);
+        int quotes = 0;
+        boolean quoted = false;
+        for (int i = 0; i < length; i++) {
+            byte b = this.url[i];
+            if (b == '"') {
+                ++quotes;
+            }
+            quoted |= b == '"' || b == ',' || b == '\n' || b == '\r';
+        }
+        if (!quoted) {
+            reserve(length);
+            System.arraycopy(this.url, 0, this.buffer, this.position, length);
+            this.position += length;
+            return this;
+        }
+        reserve(length + quotes + 2);
+        this.buffer[this.position++] = '"';
+        for (int i = 0; i < length; i++) {
+            if (this.url[i] == '"') {
+                this.buffer[this.position++] = '"';
+            }
+            this.buffer[this.position++] = this.url[i];
+        }
+        this.buffer[this.position++] = '"';
+        return this;
+    }
+
+    /**
+     * Appends the bytes buffered so far.
+     */
+    void flush() throws IOException {
+        if (this.position > 0) {
+            this.appender.append(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+}
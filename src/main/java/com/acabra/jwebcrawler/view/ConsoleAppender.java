@@ -1,19 +1,36 @@
 package com.acabra.jwebcrawler.view;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Optional;
 
 public class ConsoleAppender implements Appender {
 
+    private final PrintStream out;
+
+    public ConsoleAppender() {
+        this(System.out);
+    }
+
+    ConsoleAppender(PrintStream out) {
+        this.out = out;
+    }
+
     @Override
     public Appender append(String text) throws IOException {
-        System.out.print(text);
+        this.out.print(text);
+        return this;
+    }
+
+    @Override
+    public Appender append(byte[] utf8, int offset, int length) {
+        this.out.write(utf8, offset, length);
         return this;
     }
 
     @Override
     public void close() {
-        System.out.flush();
+        this.out.flush();
     }
 
     @Override
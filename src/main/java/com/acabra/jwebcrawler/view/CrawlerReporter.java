@@ -1,13 +1,11 @@
 package com.acabra.jwebcrawler.view;
 
+import com.acabra.jwebcrawler.model.CrawlGraph;
 import com.acabra.jwebcrawler.model.CrawlSiteResponse;
 import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.ExportFormat;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
-import java.util.Stack;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,7 +13,6 @@ public class CrawlerReporter {
 
 
     private static final Logger logger = LoggerFactory.getLogger(CrawlerReporter.class);
-    private static final PriorityQueue<CrawledNode> EMPTY_QUEUE = new PriorityQueue<>();
     private static final String RESULTS_HEADER_TEMPLATE = "%n%n---- Results for [%s] ----%n";
     static final String EMPTY_REPORT_CONTENT = "-- No Nodes Traversed --";
     static final String SITE_MAP_HEADER = "\n---------- Site Map ---------------\n";
@@ -25,33 +22,22 @@ public class CrawlerReporter {
 
     Optional<String> buildReport(CrawlSiteResponse siteResponse, Appender appender) {
         try {
-            Map<Long, PriorityQueue<CrawledNode>> graph = siteResponse.getGraph();
-            Optional<CrawledNode> root = graph.getOrDefault(CrawledNode.ROOT_NODE_PARENT_ID, EMPTY_QUEUE).stream().findFirst();
-            if (root.isPresent()) {
+            CrawlGraph.View graph = siteResponse.getGraph();
+            int root = graph.firstChild(CrawledNode.ROOT_NODE_PARENT_ID);
+            if (root != CrawlGraph.NONE) {
                 appender.append(String.format(RESULTS_HEADER_TEMPLATE, siteResponse.getSiteURI()));
-                CrawledNode rootNode = root.get();
-                Stack<CrawledNode> q = new Stack<>();
-                q.add(rootNode);
-
-                int totalLinks = graph.values().stream().mapToInt(Collection::size).sum();
+                int totalLinks = graph.nodes();
 
                 appender
                         .append("\nTotal Concurrent Workers: ").append("" + siteResponse.getWorkerCount())
-                        .append("\nTotal Pages crawled: ").append("" + graph.keySet().size())
+                        .append("\nTotal Pages crawled: ").append("" + graph.parents())
                         .append("\nTotal Links Discovered: ").append("" + totalLinks)
                         .append("\nTotal Links not downloadable due reporting failures: ").append("" + siteResponse.getTotalFailures())
                         .append("\nTotal Links rejected after timeout: ").append("" + siteResponse.getRejections())
                         .append("\nTotal Links redirected: ").append("" + siteResponse.getTotalRedirects())
                         .append(String.format("%nTotal time taken: %.3f seconds.%n", siteResponse.getTotalTime()))
                         .append(SITE_MAP_HEADER);
-                while (q.size() > 0) {
-                    CrawledNode pop = q.pop();
-                    appender.append(String.format("%s%s%n", "---".repeat(pop.level), pop.url));
-                    PriorityQueue<CrawledNode> pq = graph.getOrDefault(pop.id, EMPTY_QUEUE);
-                    while (pq.size() > 0) {
-                        q.push(pq.remove());
-                    }
-                }
+                new SiteMapWriter(appender, SiteMapWriter.DEFAULT_CHUNK_BYTES).write(graph, root);
                 return appender
                         .append("\n-----------------------------------\n")
                         .textIfAvailable();
@@ -73,12 +59,19 @@ public class CrawlerReporter {
     }
 
     public void report(boolean toFile, CrawlSiteResponse siteResponse, String identifier) {
+        report(toFile, false, siteResponse, identifier);
+    }
+
+    /**
+     * @param gzip if true the report file is compressed, ignored when the report goes to the console
+     */
+    public void report(boolean toFile, boolean gzip, CrawlSiteResponse siteResponse, String identifier) {
         try {
             Appender appender;
             if (toFile) {
-                appender = new FileWriterAppender(siteResponse.getSiteURI(), identifier);
+                appender = new FileChannelAppender(siteResponse.getSiteURI(), identifier, gzip);
             } else {
-                appender = new ConsoleAppender();
+                appender = new BufferedConsoleAppender();
             }
             buildReport(siteResponse, appender);
         } catch (Exception io) {
@@ -86,4 +79,23 @@ public class CrawlerReporter {
         }
     }
 
+    /**
+     * Exports the graph of the crawl to a file in the reports folder, named as the report file with the extension
+     * of the format.
+     * @param format the format of the file, nothing is exported for {@link ExportFormat#NONE}
+     * @param gzip if true the file is compressed
+     */
+    public void export(ExportFormat format, boolean gzip, CrawlSiteResponse siteResponse, String identifier) {
+        if (format == ExportFormat.NONE) {
+            return;
+        }
+        try (FileChannelAppender appender = new FileChannelAppender(siteResponse.getSiteURI(), identifier,
+                GraphExporter.extensionOf(format), gzip)) {
+            long nodes = GraphExporter.of(format, appender).write(siteResponse.getGraph());
+            logger.info(String.format("exported %d nodes to %s", nodes, appender.getFileName()));
+        } catch (IOException ioe) {
+            logger.error(ioe.getMessage(), ioe);
+        }
+    }
+
 }
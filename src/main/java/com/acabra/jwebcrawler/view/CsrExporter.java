@@ -0,0 +1,54 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.model.CrawlGraph;
+import com.acabra.jwebcrawler.model.CrawledNode;
+import java.io.IOException;
+
+/**
+ * Exports the links between the nodes in compressed sparse row form, every int big endian:
+ * <pre>
+ * magic "CSR1", rows, links, roots
+ * the ids of the roots
+ * rows + 1 offsets, the children of node i are the ids between offsets i and i + 1
+ * links ids of the children
+ * </pre>
+ * Rows are the ids from 0 to the greatest one, the children of a node in the order of the sorted graph. The
+ * offsets are summed and the children written while the lists of the graph are walked, the arrays are never built.
+ */
+class CsrExporter implements GraphExporter {
+
+    static final int MAGIC = 0x43535231;
+
+    private final ChunkedBytes bytes;
+
+    /**
+     * @param chunkBytes the bytes buffered before they are appended
+     */
+    CsrExporter(Appender appender, int chunkBytes) {
+        this.bytes = new ChunkedBytes(appender, chunkBytes);
+    }
+
+    @Override
+    public long write(CrawlGraph.View graph) throws IOException {
+        int rows = graph.maxId() + 1;
+        int roots = graph.childCount(CrawledNode.ROOT_NODE_PARENT_ID);
+        this.bytes.putInt(MAGIC).putInt(rows).putInt(graph.nodes() - roots).putInt(roots);
+        for (int root = graph.firstChild(CrawledNode.ROOT_NODE_PARENT_ID); root != CrawlGraph.NONE;
+             root = graph.nextSibling(root)) {
+            this.bytes.putInt(root);
+        }
+        int offset = 0;
+        this.bytes.putInt(offset);
+        for (int id = 0; id < rows; id++) {
+            offset += graph.childCount(id);
+            this.bytes.putInt(offset);
+        }
+        for (int id = 0; id < rows; id++) {
+            for (int child = graph.firstChild(id); child != CrawlGraph.NONE; child = graph.nextSibling(child)) {
+                this.bytes.putInt(child);
+            }
+        }
+        this.bytes.flush();
+        return graph.nodes();
+    }
+}
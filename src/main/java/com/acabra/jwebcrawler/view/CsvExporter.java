@@ -0,0 +1,44 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.model.CrawlGraph;
+import com.acabra.jwebcrawler.model.UrlArena;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exports a header line and a line per node with its id, parent id, level, url and http status, the numbers
+ * written as ascii digits and the urls copied from the arena into a buffer reused for the whole export.
+ */
+class CsvExporter implements GraphExporter {
+
+    private static final byte[] HEADER = "id,parentId,level,url,status\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ChunkedBytes bytes;
+
+    /**
+     * @param chunkBytes the bytes buffered before they are appended
+     */
+    CsvExporter(Appender appender, int chunkBytes) {
+        this.bytes = new ChunkedBytes(appender, chunkBytes);
+    }
+
+    @Override
+    public long write(CrawlGraph.View graph) throws IOException {
+        UrlArena urls = graph.urls();
+        long nodes = 0;
+        this.bytes.put(HEADER);
+        for (int id = 0; id <= graph.maxId(); id++) {
+            if (!graph.contains(id)) {
+                continue;
+            }
+            this.bytes.putDigits(id).put((byte) ',')
+                    .putDigits((int) graph.parentId(id)).put((byte) ',')
+                    .putDigits(graph.level(id)).put((byte) ',')
+                    .putCsvUrl(urls, graph.urlId(id)).put((byte) ',')
+                    .putDigits(graph.status(id)).put((byte) '\n');
+            ++nodes;
+        }
+        this.bytes.flush();
+        return nodes;
+    }
+}
@@ -0,0 +1,177 @@
+package com.acabra.jwebcrawler.view;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Report file written through a file channel from a large direct buffer, so the bytes reach the channel without
+ * being copied to and from the heap. Direct buffers are expensive to allocate and are only freed by the garbage
+ * collector, they are pooled and reused by the next report once the appender is closed.
+ *
+ * The file may be compressed with gzip while it is written: every buffer full is deflated into a second direct
+ * buffer and the gzip header and trailer are written around the deflated stream, the report is never held whole.
+ */
+public class FileChannelAppender extends ByteBufferAppender implements AutoCloseable {
+
+    static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAX_POOLED_BUFFERS = 8;
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final byte[] NO_INPUT = new byte[0];
+    // magic number, deflate method, no flags, no modification time, no extra flags, unknown operating system
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final String fileName;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    // null unless the file is compressed
+    private final Deflater deflater;
+    private final ByteBuffer deflated;
+    private final CRC32 crc;
+    private long inflatedBytes;
+    private boolean closed;
+
+    /**
+     * Creates the report file of a site in the reports folder, named as the ones of {@link FileWriterAppender}.
+     * @param gzip if true the file is compressed and its name ends in ".gz"
+     */
+    public FileChannelAppender(String siteURI, String identifier, boolean gzip) throws IOException {
+        this(Paths.get(FileWriterAppender.REPORT_DEST_FOLDER,
+                FileWriterAppender.buildFileName(siteURI, identifier) + (gzip ? GZIP_EXTENSION : "")), gzip);
+    }
+
+    /**
+     * Creates a file of a site in the reports folder, named as its report with the given extension instead.
+     * @param extension the extension of the file, with its dot
+     */
+    FileChannelAppender(String siteURI, String identifier, String extension, boolean gzip) throws IOException {
+        this(Paths.get(FileWriterAppender.REPORT_DEST_FOLDER,
+                FileWriterAppender.buildFileName(siteURI, identifier, extension) + (gzip ? GZIP_EXTENSION : "")),
+                gzip);
+    }
+
+    /**
+     * @param file the file to write, replaced if it exists
+     * @param gzip if true the file is compressed
+     */
+    public FileChannelAppender(Path file, boolean gzip) throws IOException {
+        this(file, gzip, acquire());
+    }
+
+    private FileChannelAppender(Path file, boolean gzip, ByteBuffer buffer) throws IOException {
+        super(buffer);
+        this.buffer = buffer;
+        this.fileName = file.getFileName().toString();
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException ioe) {
+            release(buffer);
+            throw ioe;
+        }
+        if (gzip) {
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            this.deflated = acquire().order(ByteOrder.LITTLE_ENDIAN);
+            this.crc = new CRC32();
+            this.deflated.put(GZIP_HEADER);
+        } else {
+            this.deflater = null;
+            this.deflated = null;
+            this.crc = null;
+        }
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer buffer = POOL.poll();
+        return null == buffer ? ByteBuffer.allocateDirect(BUFFER_BYTES) : buffer;
+    }
+
+    private static void release(ByteBuffer buffer) {
+        buffer.clear().order(ByteOrder.BIG_ENDIAN);
+        if (POOL.size() < MAX_POOLED_BUFFERS) {
+            POOL.offer(buffer);
+        }
+    }
+
+    @Override
+    protected void write(ByteBuffer bytes) throws IOException {
+        if (null == this.deflater) {
+            writeFully(bytes);
+            return;
+        }
+        this.crc.update(bytes.duplicate());
+        this.inflatedBytes += bytes.remaining();
+        this.deflater.setInput(bytes);
+        while (!this.deflater.needsInput()) {
+            deflate();
+        }
+        // the deflater reads the remaining bytes of its input, which would be the whole buffer once cleared
+        this.deflater.setInput(NO_INPUT);
+    }
+
+    /**
+     * Deflates what the deflater holds into the deflated buffer, writing it out once full.
+     */
+    private void deflate() throws IOException {
+        this.deflater.deflate(this.deflated);
+        if (!this.deflated.hasRemaining()) {
+            writeDeflated();
+        }
+    }
+
+    private void writeDeflated() throws IOException {
+        this.deflated.flip();
+        writeFully(this.deflated);
+        this.deflated.clear();
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            this.channel.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            drain();
+            if (null != this.deflater) {
+                this.deflater.finish();
+                while (!this.deflater.finished()) {
+                    deflate();
+                }
+                if (this.deflated.remaining() < 2 * Integer.BYTES) {
+                    writeDeflated();
+                }
+                this.deflated.putInt((int) this.crc.getValue()).putInt((int) this.inflatedBytes);
+                writeDeflated();
+            }
+        } finally {
+            try {
+                this.channel.close();
+            } finally {
+                release(this.buffer);
+                if (null != this.deflater) {
+                    this.deflater.end();
+                    release(this.deflated);
+                }
+            }
+        }
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+}
@@ -11,9 +11,10 @@ import edu.umd.cs.findbugs.annotations.*;
 
 public class FileWriterAppender implements Appender, AutoCloseable {
 
-    private static final String FILE_NAME_TEMPLATE = "CrawlReport-%s-%s.txt"; // e.g. CrawlReport-www.sitename.com-<identifier>.txt
+    private static final String FILE_NAME_TEMPLATE = "CrawlReport-%s-%s%s"; // e.g. CrawlReport-www.sitename.com-<identifier>.txt
+    private static final String REPORT_EXTENSION = ".txt";
     private static final String SEPARATOR = System.getProperty("file.separator");
-    private static final String REPORT_DEST_FOLDER = "reports";
+    static final String REPORT_DEST_FOLDER = "reports";
 
     private final String fileName;
     private BufferedWriter bw;
@@ -40,11 +41,15 @@ public class FileWriterAppender implements Appender, AutoCloseable {
         return Optional.empty();
     }
 
+    static String buildFileName(String domain, String identifier) {
+        return buildFileName(domain, identifier, REPORT_EXTENSION);
+    }
+
     @SuppressFBWarnings(value ="RV_RETURN_VALUE_IGNORED_BAD_PRACTICE",
             justification="checking whether folder exists or not, not necessary to store return")
-    private static String buildFileName(String domain, String identifier) {
+    static String buildFileName(String domain, String identifier, String extension) {
         String siteName = buildFileNameFromURI(domain.contains("//") ? domain.split("//")[1] : domain);
-        String filePath = String.format(FILE_NAME_TEMPLATE, siteName, identifier);
+        String filePath = String.format(FILE_NAME_TEMPLATE, siteName, identifier, extension);
         File resultsFolder = new File(REPORT_DEST_FOLDER);
         if (!resultsFolder.exists()) resultsFolder.mkdirs();
         return filePath;
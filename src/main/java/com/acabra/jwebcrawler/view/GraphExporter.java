@@ -0,0 +1,50 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.model.CrawlGraph;
+import com.acabra.jwebcrawler.model.ExportFormat;
+import java.io.IOException;
+
+/**
+ * Writes the graph of a crawl to an appender in a machine readable format, as it walks the graph: the nodes are
+ * written in the order of their ids and no document is held whole before it is appended.
+ */
+interface GraphExporter {
+
+    /**
+     * @return the nodes written
+     */
+    long write(CrawlGraph.View graph) throws IOException;
+
+    /**
+     * @param appender where the export goes, {@link ExportFormat#CSR} is binary and needs an appender taking bytes
+     *                 as they are
+     */
+    static GraphExporter of(ExportFormat format, Appender appender) {
+        switch (format) {
+            case JSON_LINES:
+                return new JsonLinesExporter(appender);
+            case CSV:
+                return new CsvExporter(appender, ChunkedBytes.DEFAULT_CHUNK_BYTES);
+            case CSR:
+                return new CsrExporter(appender, ChunkedBytes.DEFAULT_CHUNK_BYTES);
+            default:
+                throw new IllegalArgumentException("Nothing to export as: " + format);
+        }
+    }
+
+    /**
+     * @return the extension of the files of the format, with its dot
+     */
+    static String extensionOf(ExportFormat format) {
+        switch (format) {
+            case JSON_LINES:
+                return ".jsonl";
+            case CSV:
+                return ".csv";
+            case CSR:
+                return ".csr";
+            default:
+                throw new IllegalArgumentException("Nothing to export as: " + format);
+        }
+    }
+}
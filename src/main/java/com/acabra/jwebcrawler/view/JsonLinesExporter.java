@@ -0,0 +1,59 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.model.CrawlGraph;
+import com.acabra.jwebcrawler.model.UrlArena;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+
+/**
+ * Exports a json object per node, a line each, with the streaming generator of jackson: the generator encodes into
+ * a buffer of its own handed to the appender once full and the urls are copied as utf-8 bytes from the arena, no
+ * tree of the document nor a string per url is created.
+ */
+class JsonLinesExporter implements GraphExporter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final Appender appender;
+    private byte[] url = new byte[256];
+
+    JsonLinesExporter(Appender appender) {
+        this.appender = appender;
+    }
+
+    @Override
+    public long write(CrawlGraph.View graph) throws IOException {
+        UrlArena urls = graph.urls();
+        long nodes = 0;
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(new AppenderOutputStream(this.appender),
+                JsonEncoding.UTF8)) {
+            // every object ends its own line instead of being separated from the next one by a space
+            generator.setRootValueSeparator(null);
+            for (int id = 0; id <= graph.maxId(); id++) {
+                if (!graph.contains(id)) {
+                    continue;
+                }
+                int urlId = graph.urlId(id);
+                int length = urls.utf8Length(urlId);
+                if (length > this.url.length) {
+                    this.url = new byte[Math.max(length, 2 * this.url.length)];
+                }
+                urls.copyUtf8(urlId, this.url, 0);
+                generator.writeStartObject();
+                generator.writeNumberField("id", id);
+                generator.writeNumberField("parentId", graph.parentId(id));
+                generator.writeNumberField("level", graph.level(id));
+                generator.writeFieldName("url");
+                generator.writeUTF8String(this.url, 0, length);
+                generator.writeNumberField("status", graph.status(id));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                ++nodes;
+            }
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,86 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.model.CrawlGraph;
+import com.acabra.jwebcrawler.model.UrlArena;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the site map of a sorted graph, one line per page indented by its level, walking the graph depth first
+ * with a stack of ints. Lines are written in utf-8 into a buffer reused for the whole map, the indents are copied
+ * from a line of dashes and the urls straight from the arena, and the buffer goes to the appender in chunks of
+ * whole lines, so writing a page allocates nothing.
+ */
+class SiteMapWriter {
+
+    static final int DEFAULT_CHUNK_BYTES = 64 * 1024;
+    // dashes per level of a page, copied from a line of them as long as the deepest indent written
+    private static final int INDENT_WIDTH = 3;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private final Appender appender;
+    private byte[] buffer;
+    private int position;
+    private byte[] dashes = new byte[0];
+    private int[] stack = new int[64];
+
+    /**
+     * @param chunkBytes the bytes buffered before they are appended, the buffer grows for a longer line
+     */
+    SiteMapWriter(Appender appender, int chunkBytes) {
+        this.appender = appender;
+        this.buffer = new byte[Math.max(1, chunkBytes)];
+    }
+
+    /**
+     * Writes the given page and every page below it, siblings in ascending order of their urls.
+     * @return the pages written
+     */
+    long write(CrawlGraph.View graph, int root) throws IOException {
+        UrlArena urls = graph.urls();
+        long pages = 0;
+        int size = 0;
+        this.stack[size++] = root;
+        while (size > 0) {
+            int node = this.stack[--size];
+            writeLine(urls, graph.level(node), graph.urlId(node));
+            ++pages;
+            // the children are sorted in descending order, pushed in it they are popped in ascending order
+            for (int child = graph.firstChild(node); child != CrawlGraph.NONE; child = graph.nextSibling(child)) {
+                if (size == this.stack.length) {
+                    this.stack = Arrays.copyOf(this.stack, size * 2);
+                }
+                this.stack[size++] = child;
+            }
+        }
+        flush();
+        return pages;
+    }
+
+    private void writeLine(UrlArena urls, int level, int urlId) throws IOException {
+        int indentLength = INDENT_WIDTH * level;
+        int length = indentLength + urls.utf8Length(urlId) + LINE_SEPARATOR.length;
+        if (this.position + length > this.buffer.length) {
+            flush();
+            if (length > this.buffer.length) {
+                this.buffer = new byte[length];
+            }
+        }
+        if (indentLength > this.dashes.length) {
+            this.dashes = new byte[Math.max(indentLength, 2 * this.dashes.length)];
+            Arrays.fill(this.dashes, (byte) '-');
+        }
+        System.arraycopy(this.dashes, 0, this.buffer, this.position, indentLength);
+        this.position = urls.copyUtf8(urlId, this.buffer, this.position + indentLength);
+        System.arraycopy(LINE_SEPARATOR, 0, this.buffer, this.position, LINE_SEPARATOR.length);
+        this.position += LINE_SEPARATOR.length;
+    }
+
+    private void flush() throws IOException {
+        if (this.position > 0) {
+            this.appender.append(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+}
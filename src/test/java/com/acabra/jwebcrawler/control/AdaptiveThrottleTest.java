@@ -0,0 +1,108 @@
+package com.acabra.jwebcrawler.control;
+
+import java.net.http.HttpHeaders;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveThrottleTest {
+
+    private static final String URL = "http://mysite.com/a.html";
+    private AdaptiveThrottle underTest;
+
+    @BeforeEach
+    public void setup() {
+        underTest = new AdaptiveThrottle();
+    }
+
+    private static HttpHeaders retryAfterHeaders(String value) {
+        return HttpHeaders.of(Map.of("Retry-After", List.of(value)), (name, val) -> true);
+    }
+
+    @Test
+    public void should_not_limit_hosts_never_throttled() {
+        for (int i = 0; i < 100; i++) {
+            MatcherAssert.assertThat(underTest.tryAcquire(URL), Matchers.is(true));
+        }
+        underTest.release(URL, 200);
+        MatcherAssert.assertThat(underTest.getLimit(URL), Matchers.is(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void should_halve_limit_when_throttled() {
+        for (int i = 0; i < 8; i++) {
+            underTest.tryAcquire(URL);
+        }
+        underTest.release(URL, 429);
+        MatcherAssert.assertThat(underTest.getLimit(URL), Matchers.is(4.0));
+        underTest.release(URL, 503);
+        MatcherAssert.assertThat(underTest.getLimit(URL), Matchers.is(2.0));
+        // 6 downloads still in flight above the limit of 2
+        MatcherAssert.assertThat(underTest.tryAcquire(URL), Matchers.is(false));
+    }
+
+    @Test
+    public void should_never_limit_below_one() {
+        underTest.tryAcquire(URL);
+        underTest.release(URL, 429);
+        underTest.tryAcquire(URL);
+        underTest.release(URL, 429);
+        MatcherAssert.assertThat(underTest.getLimit(URL), Matchers.is(1.0));
+        MatcherAssert.assertThat(underTest.tryAcquire(URL), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.tryAcquire(URL), Matchers.is(false));
+    }
+
+    @Test
+    public void should_increase_limit_additively_on_success() {
+        underTest.tryAcquire(URL);
+        underTest.tryAcquire(URL);
+        underTest.release(URL, 429);
+        MatcherAssert.assertThat(underTest.getLimit(URL), Matchers.is(1.0));
+        underTest.release(URL, 200);
+        MatcherAssert.assertThat(underTest.getLimit(URL), Matchers.is(2.0));
+        underTest.tryAcquire(URL);
+        underTest.release(URL, 200);
+        underTest.tryAcquire(URL);
+        underTest.release(URL, 200);
+        // one more request per round of responses: 2 + 1/2 + 1/2.5
+        MatcherAssert.assertThat(underTest.getLimit(URL), Matchers.closeTo(2.9, 1e-9));
+        underTest.tryAcquire(URL);
+        underTest.release(URL, 404);
+        MatcherAssert.assertThat(underTest.getLimit(URL), Matchers.closeTo(2.9, 1e-9));
+    }
+
+    @Test
+    public void should_identify_throttled_status_codes() {
+        MatcherAssert.assertThat(AdaptiveThrottle.isThrottled(429), Matchers.is(true));
+        MatcherAssert.assertThat(AdaptiveThrottle.isThrottled(503), Matchers.is(true));
+        MatcherAssert.assertThat(AdaptiveThrottle.isThrottled(500), Matchers.is(false));
+        MatcherAssert.assertThat(AdaptiveThrottle.isThrottled(200), Matchers.is(false));
+    }
+
+    @Test
+    public void should_parse_retry_after_seconds() {
+        MatcherAssert.assertThat(AdaptiveThrottle.retryAfterMillis(retryAfterHeaders("3"), 1000L), Matchers.is(3000L));
+        MatcherAssert.assertThat(AdaptiveThrottle.retryAfterMillis(retryAfterHeaders("3600"), 1000L), Matchers.is(60000L));
+        MatcherAssert.assertThat(AdaptiveThrottle.retryAfterMillis(retryAfterHeaders("-1"), 1000L), Matchers.is(0L));
+    }
+
+    @Test
+    public void should_parse_retry_after_date() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(10));
+        MatcherAssert.assertThat(AdaptiveThrottle.retryAfterMillis(retryAfterHeaders(date), 1000L),
+                Matchers.allOf(Matchers.greaterThan(8000L), Matchers.lessThanOrEqualTo(10000L)));
+    }
+
+    @Test
+    public void should_use_default_retry_after() {
+        HttpHeaders noHeader = HttpHeaders.of(Map.of(), (name, val) -> true);
+        MatcherAssert.assertThat(AdaptiveThrottle.retryAfterMillis(noHeader, 1500L), Matchers.is(1500L));
+        MatcherAssert.assertThat(AdaptiveThrottle.retryAfterMillis(retryAfterHeaders("soon"), 1500L), Matchers.is(1500L));
+    }
+}
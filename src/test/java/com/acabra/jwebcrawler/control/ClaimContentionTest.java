@@ -0,0 +1,81 @@
+package com.acabra.jwebcrawler.control;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the claims per second the coordinator sustains while 1 to 64 threads race for the same urls.
+ */
+@Tag("benchmark")
+class ClaimContentionTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimContentionTest.class);
+    private static final int TOTAL_URLS = 20_000;
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    private static String[] buildUrls() {
+        String[] urls = new String[TOTAL_URLS];
+        for (int i = 0; i < TOTAL_URLS; i++) {
+            urls[i] = "http://mysite.com/page" + i + ".html";
+        }
+        return urls;
+    }
+
+    @Test
+    public void every_url_should_be_claimed_once_regardless_of_threads() throws InterruptedException {
+        String[] urls = buildUrls();
+        for (int threads : THREADS) {
+            CrawlerCoordinator coordinator = new CrawlerCoordinator(Executors.newSingleThreadExecutor());
+            LongAdder claimed = new LongAdder();
+            long elapsedNanos = race(threads, () -> {
+                // every thread walks all the urls from a different offset, each url is contended by all threads
+                int offset = (int) (Thread.currentThread().getId() % TOTAL_URLS);
+                for (int i = 0; i < TOTAL_URLS; i++) {
+                    String url = urls[(offset + i) % TOTAL_URLS];
+                    if (coordinator.allowLink(url) && coordinator.tryClaim(url)) {
+                        claimed.increment();
+                    }
+                }
+            });
+            coordinator.requestJobDone();
+            double attemptsPerSecond = (double) threads * TOTAL_URLS / (elapsedNanos / 1e9);
+            logger.info(String.format("%2d threads: %,.0f claim attempts/s, %d claimed", threads, attemptsPerSecond,
+                    claimed.sum()));
+
+            MatcherAssert.assertThat(claimed.sum(), Matchers.is((long) TOTAL_URLS));
+        }
+    }
+
+    private static long race(int threads, Runnable task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        MatcherAssert.assertThat(done.await(30, TimeUnit.SECONDS), Matchers.is(true));
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+}
@@ -107,7 +107,7 @@ class CrawlConsumerWorkerTest {
                 .withMaxTreeSiteHeight(0) //dont limit site depth
                 .build();
 
-        queue.offer(new CrawledNode(defaults.startUri, 0L));
+        queue.offer(new CrawledNode(coordinator.getUrls(), defaults.startUri, 0L));
         CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, coordinator, downloadServiceMock, defaults);
 
         buildAndStartThread(()-> {
@@ -132,7 +132,7 @@ class CrawlConsumerWorkerTest {
                 .withMaxTreeSiteHeight(1) //limit site height
                 .build();
 
-        queue.offer(new CrawledNode(defaults.startUri, 0L));
+        queue.offer(new CrawledNode(coordinator.getUrls(), defaults.startUri, 0L));
         CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, coordinator, downloadServiceMock, defaults);
 
         buildAndStartThread(()-> {
@@ -156,10 +156,11 @@ class CrawlConsumerWorkerTest {
                 .withSleepWorkerTime(0.75)
                 .build();
         CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, coordinator, downloadServiceMock, defaults);
-        queue.offer(new CrawledNode(defaults.startUri, 0L));
+        queue.offer(new CrawledNode(coordinator.getUrls(), defaults.startUri, 0L));
         Thread workerThread = buildAndStartThread(underTest);
         Thread.sleep(100L);
         workerThread.interrupt();
+        workerThread.join(1000L);
 
         Mockito.verify(downloadServiceMock, Mockito.times(1)).download(defaults.startUri);
 
@@ -173,12 +174,13 @@ class CrawlConsumerWorkerTest {
                 .withSleepWorkerTime(0.75)
                 .withMaxExecutionTime(0.25) //indicates the worker is stoppable
                 .build();
-        queue.offer(new CrawledNode(defaults.startUri, 0L));
+        queue.offer(new CrawledNode(coordinator.getUrls(), defaults.startUri, 0L));
 
         CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, coordinator, downloadServiceMock, defaults);
         Thread workerThread = buildAndStartThread(underTest);
         Thread.sleep(100L);
         workerThread.interrupt();
+        workerThread.join(1000L);
 
         Mockito.verify(downloadServiceMock, Mockito.times(1)).download(defaults.startUri);
 
@@ -200,7 +202,7 @@ class CrawlConsumerWorkerTest {
             } catch (Exception e) { System.out.println(e.getMessage()); }
         });
 
-        queue.offer(new CrawledNode(defaults.startUri, 0L));
+        queue.offer(new CrawledNode(coordinator.getUrls(), defaults.startUri, 0L));
         CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, coordinator, downloadServiceMock, defaults);
 
         CompletableFuture.runAsync(underTest, Executors.newSingleThreadExecutor()).join();
@@ -216,7 +218,7 @@ class CrawlConsumerWorkerTest {
         CrawlerAppConfig defaults = CrawlerAppConfigBuilder.newBuilder("http://throwexeptionsite.com/")
                 .withSleepWorkerTime(0.01)
                 .build();
-        queue.offer(new CrawledNode(defaults.startUri, 0L));
+        queue.offer(new CrawledNode(coordinator.getUrls(), defaults.startUri, 0L));
         CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, coordinator, downloadServiceMock, defaults);
 
         ExecutorService executor = Executors.newSingleThreadExecutor();
@@ -236,7 +238,7 @@ class CrawlConsumerWorkerTest {
                 .withMaxTreeSiteHeight(1) //limit site height
                 .build();
 
-        queue.offer(new CrawledNode(defaults.startUri, 0L));
+        queue.offer(new CrawledNode(coordinator.getUrls(), defaults.startUri, 0L));
         coordinator.requestJobDone();
         CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, coordinator, downloadServiceMock, defaults);
 
@@ -247,4 +249,61 @@ class CrawlConsumerWorkerTest {
         MatcherAssert.assertThat(queue.size(), Matchers.is(1)); // job stop requested before taking from queue
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_keep_requests_in_flight_without_waiting_for_responses() throws InterruptedException {
+        CrawlerAppConfig defaults = CrawlerAppConfigBuilder.newBuilder("http://mysite.com/")
+                .withSleepWorkerTime(0)
+                .withMaxInFlightRequests(2)
+                .build();
+        CompletableFuture<HttpResponse<String>> firstResponse = new CompletableFuture<>();
+        Mockito.when(downloadServiceMock.download("http://mysite.com/p1.html")).thenReturn(firstResponse);
+        Mockito.when(downloadServiceMock.download("http://mysite.com/p2.html")).thenReturn(new CompletableFuture<>());
+        Mockito.when(downloadServiceMock.download("http://mysite.com/p3.html")).thenReturn(new CompletableFuture<>());
+        CrawlerCoordinator boundedCoordinator = new CrawlerCoordinator(Executors.newSingleThreadExecutor(), defaults);
+        queue.offer(new CrawledNode(boundedCoordinator.getUrls(), "http://mysite.com/p1.html", 0L));
+        queue.offer(new CrawledNode(boundedCoordinator.getUrls(), "http://mysite.com/p2.html", 1L));
+        queue.offer(new CrawledNode(boundedCoordinator.getUrls(), "http://mysite.com/p3.html", 2L));
+        CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, boundedCoordinator, downloadServiceMock, defaults);
+
+        Thread workerThread = buildAndStartThread(underTest);
+        Mockito.verify(downloadServiceMock, Mockito.timeout(1000L).times(2)).download(Mockito.anyString());
+        Thread.sleep(100L);
+        Mockito.verify(downloadServiceMock, Mockito.never()).download("http://mysite.com/p3.html");
+
+        firstResponse.complete(TestUtils.notFoundHTMLResponse());
+
+        Mockito.verify(downloadServiceMock, Mockito.timeout(1000L)).download("http://mysite.com/p3.html");
+        queue.offer(CrawlerApp.POISON_PILL);
+        workerThread.join(1000L);
+
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertFalse(underTest.isEndInterrupted());
+    }
+
+    @Test
+    void should_fetch_other_hosts_while_host_is_not_ready() throws InterruptedException {
+        CrawlerAppConfig defaults = CrawlerAppConfigBuilder.newBuilder("http://mysite.com/")
+                .withHostDelayMillis(1000L)
+                .build();
+        Mockito.when(downloadServiceMock.download("http://othersite.com/")).thenReturn(TestUtils.getFutureEmptyResponse());
+        CrawlerCoordinator politeCoordinator = new CrawlerCoordinator(Executors.newSingleThreadExecutor(), defaults);
+        queue.offer(new CrawledNode(politeCoordinator.getUrls(), "http://mysite.com/", politeCoordinator.getNextId()));
+        queue.offer(new CrawledNode(politeCoordinator.getUrls(), "http://mysite.com/mysite5.html",
+                politeCoordinator.getNextId()));
+        queue.offer(new CrawledNode(politeCoordinator.getUrls(), "http://othersite.com/",
+                politeCoordinator.getNextId()));
+        CrawlConsumerWorker underTest = new CrawlConsumerWorker(queue, politeCoordinator, downloadServiceMock, defaults);
+
+        Thread workerThread = buildAndStartThread(underTest);
+        Mockito.verify(downloadServiceMock, Mockito.timeout(500L)).download("http://othersite.com/");
+        Mockito.verify(downloadServiceMock, Mockito.never()).download("http://mysite.com/mysite5.html");
+
+        Mockito.verify(downloadServiceMock, Mockito.timeout(2000L)).download("http://mysite.com/mysite5.html");
+        queue.offer(CrawlerApp.POISON_PILL);
+        workerThread.join(1000L);
+        politeCoordinator.requestJobDone();
+
+        Assertions.assertFalse(underTest.isEndInterrupted());
+    }
+}
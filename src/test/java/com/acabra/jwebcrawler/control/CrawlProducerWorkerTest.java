@@ -2,6 +2,7 @@ package com.acabra.jwebcrawler.control;
 
 import com.acabra.jwebcrawler.model.CrawledNode;
 import com.acabra.jwebcrawler.model.CrawlerAppConfig;
+import com.acabra.jwebcrawler.model.UrlArena;
 import java.net.http.HttpResponse;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -20,6 +21,7 @@ import org.mockito.Mockito;
 class CrawlProducerWorkerTest {
 
     private CrawlerCoordinator coordinatorMock;
+    private final UrlArena urls = new UrlArena();
 
     private String getHtmlWithLinks() {
         return "<html lang=\"en\">\n" +
@@ -54,7 +56,7 @@ class CrawlProducerWorkerTest {
                 .build();
 
         CrawlProducerWorker underTest = new CrawlProducerWorker(
-                coordinatorMock, defaults, null, new CrawledNode(defaults.startUri, 0L), null);
+                coordinatorMock, defaults, null, new CrawledNode(urls, defaults.startUri, 0L), null);
         List<String> expected = List.of("http://mysite.com/index.html",
                 "http://mysite.com/a5.html",
                 "http://mysite.com/a7.html",
@@ -77,7 +79,7 @@ class CrawlProducerWorkerTest {
                 .withMaxSiteNodeLinks(2)
                 .build();
         CrawlProducerWorker underTest = new CrawlProducerWorker(
-                coordinatorMock, defaults, null, new CrawledNode(defaults.startUri, 0L), null);
+                coordinatorMock, defaults, null, new CrawledNode(urls, defaults.startUri, 0L), null);
         List<String> expected = List.of("http://mysite.com/index.html", "http://mysite.com/a5.html");
         List<String> actualLinks = underTest.extractLinks(getHtmlWithLinks(), "http://mysite.com");
 
@@ -90,6 +92,41 @@ class CrawlProducerWorkerTest {
                 MatcherAssert.assertThat(actualLinks.get(i), Matchers.is(expected.get(i))));
     }
 
+    @Test
+    public void should_read_links_streamed_as_uri_list() {
+        CrawlerAppConfig defaults = CrawlerAppConfigBuilder
+                .newBuilder("http://mysite.com/")
+                .withMaxSiteNodeLinks(2)
+                .withStreamLinkExtraction(true)
+                .build();
+        CrawlProducerWorker underTest = new CrawlProducerWorker(
+                coordinatorMock, defaults, null, new CrawledNode(urls, defaults.startUri, 0L), null);
+
+        MatcherAssert.assertThat(underTest.readLinks(
+                "http://mysite.com/a.html\r\nhttp://mysite.com/b.html\r\nhttp://mysite.com/c.html"),
+                Matchers.contains("http://mysite.com/a.html", "http://mysite.com/b.html"));
+        MatcherAssert.assertThat(underTest.readLinks(""), Matchers.empty());
+    }
+
+    @Test
+    public void should_drop_filtered_links_before_they_reach_the_coordinator() {
+        CrawlerAppConfig defaults = CrawlerAppConfigBuilder
+                .newBuilder("http://mysite.com/")
+                .withMaxSiteNodeLinks(0)
+                .withExcludedExtensions(List.of("pdf"))
+                .withExcludePatterns(List.of("/a7*"))
+                .build();
+        CrawlProducerWorker underTest = new CrawlProducerWorker(
+                coordinatorMock, defaults, null, new CrawledNode(urls, defaults.startUri, 0L), null);
+        String html = getHtmlWithLinks() + "<a href=\"/file.pdf\">pdf</a><a href=\"http://mysite.com.evil.com/\">x</a>";
+
+        List<String> actualLinks = underTest.extractLinks(html, "http://mysite.com");
+
+        MatcherAssert.assertThat(actualLinks, Matchers.contains("http://mysite.com/index.html",
+                "http://mysite.com/a5.html", "http://mysite.com/a8.html"));
+        Mockito.verifyNoInteractions(coordinatorMock);
+    }
+
     @Test
     public void should_interrupt_producer() throws InterruptedException {
         CrawlerAppConfig defaults = CrawlerAppConfigBuilder
@@ -97,7 +134,7 @@ class CrawlProducerWorkerTest {
                 .withMaxSiteNodeLinks(2)
                 .build();
 
-        CrawledNode startNode = new CrawledNode(defaults.startUri, 0L);
+        CrawledNode startNode = new CrawledNode(urls, defaults.startUri, 0L);
         BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>();
         Thread thread = new Thread(new CrawlProducerWorker(coordinatorMock, defaults, queue, startNode, null));
         thread.start();
@@ -121,7 +158,7 @@ class CrawlProducerWorkerTest {
         Mockito.when(coordinatorMock.allowLink(Mockito.anyString()))
                 .thenReturn(true);
 
-        CrawledNode startNode = new CrawledNode(defaults.startUri, 0L);
+        CrawledNode startNode = new CrawledNode(urls, defaults.startUri, 0L);
         BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>();
         HttpResponse<String> httpResponse = TestUtils.successHTMLResponseOf(getHtmlWithLinks());
         CrawlProducerWorker producer = new CrawlProducerWorker(coordinatorMock, defaults, queue, startNode,
@@ -147,7 +184,7 @@ class CrawlProducerWorkerTest {
         Mockito.when(coordinatorMock.allowLink(Mockito.anyString()))
                 .thenReturn(false);
 
-        CrawledNode startNode = new CrawledNode(defaults.startUri, 0L);
+        CrawledNode startNode = new CrawledNode(urls, defaults.startUri, 0L);
         BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>();
         HttpResponse<String> httpResponse = TestUtils.successHTMLResponseOf(getHtmlWithLinks());
         CrawlProducerWorker underTest = new CrawlProducerWorker(coordinatorMock, defaults, queue, startNode,
@@ -171,7 +208,7 @@ class CrawlProducerWorkerTest {
                 .build();
 
         Mockito.when(coordinatorMock.isJobDone()).thenReturn(true);
-        CrawledNode startNode = new CrawledNode(defaults.startUri, 0L);
+        CrawledNode startNode = new CrawledNode(urls, defaults.startUri, 0L);
         BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>();
         HttpResponse<String> httpResponse = TestUtils.successHTMLResponseOf(getHtmlWithLinks());
 
@@ -182,5 +219,23 @@ class CrawlProducerWorkerTest {
         CompletableFuture.runAsync(underTest, executorService).join();
     }
 
+    @Test
+    public void should_retry_throttled_page_instead_of_failing() {
+        CrawlerAppConfig defaults = CrawlerAppConfigBuilder
+                .newBuilder("http://mysite.com/")
+                .build();
+
+        Mockito.when(coordinatorMock.resolve(Mockito.anyString())).then(invocation -> invocation.getArgument(0));
+        CrawledNode startNode = new CrawledNode(urls, defaults.startUri, 0L);
+        BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>();
+        CrawlProducerWorker underTest = new CrawlProducerWorker(coordinatorMock, defaults, queue, startNode,
+                TestUtils.throttledHTMLResponse("2"));
+
+        underTest.process();
 
-}
\ No newline at end of file
+        Mockito.verify(coordinatorMock, Mockito.times(1))
+                .reportThrottled(startNode, defaults.startUri, 2000L, queue);
+        Mockito.verify(coordinatorMock, Mockito.never()).reportFailureLink(Mockito.anyString());
+        Mockito.verify(coordinatorMock, Mockito.never()).allowLink(Mockito.anyString());
+    }
+}
@@ -65,6 +65,22 @@ class CrawlTerminatorTest {
         MatcherAssert.assertThat(ex.isShutdown(), Matchers.is(true));
     }
 
+    @Test
+    public void should_terminate_before_timeout_once_quiescent() {
+        ExecutorService ex = Executors.newSingleThreadExecutor();
+        CrawlerCoordinator coordinator = new CrawlerCoordinator(ex);
+        coordinator.reportEnqueued();
+        coordinator.reportEnqueueFailed();
+        CrawlTerminator underTest = new CrawlTerminator(new LinkedBlockingQueue<>(), ex, coordinator, 2, 60000L);
+
+        long start = System.currentTimeMillis();
+        underTest.run();
+
+        MatcherAssert.assertThat(System.currentTimeMillis() - start, Matchers.lessThan(5000L));
+        MatcherAssert.assertThat(coordinator.isJobDone(), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.getTotalPillsOffered(), Matchers.is(2));
+    }
+
     static class MyTestBlockingQueue extends LinkedBlockingQueue<CrawledNode> {
         @Override
         public boolean offer(CrawledNode crawledNode) {
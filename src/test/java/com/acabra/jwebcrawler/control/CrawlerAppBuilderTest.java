@@ -2,6 +2,13 @@ package com.acabra.jwebcrawler.control;
 
 
 import com.acabra.jwebcrawler.dto.DefaultCrawlerConfiguration;
+import com.acabra.jwebcrawler.model.CrawlerAppConfig;
+import com.acabra.jwebcrawler.model.ExecutionMode;
+import com.acabra.jwebcrawler.model.ExportFormat;
+import com.acabra.jwebcrawler.model.FrontierType;
+import com.acabra.jwebcrawler.model.LinkExtractorType;
+import com.acabra.jwebcrawler.model.NodeScorerType;
+import com.acabra.jwebcrawler.model.QueryParameterPolicy;
 import com.acabra.jwebcrawler.utils.JsonHelper;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -236,6 +243,27 @@ public class CrawlerAppBuilderTest {
         MatcherAssert.assertThat(underTest.getConfig().reportToFile, Matchers.is(true));
     }
 
+    @Test
+    public void should_limit_requests_in_flight() {
+        MatcherAssert.assertThat(CrawlerAppConfigBuilder.newBuilder("http://127.0.0.1:8000/")
+                .withMaxInFlightRequests(5000).build().maxInFlightRequests, Matchers.is(1000));
+        MatcherAssert.assertThat(CrawlerAppConfigBuilder.newBuilder("http://127.0.0.1:8000/")
+                .withMaxInFlightRequests(-3).build().maxInFlightRequests, Matchers.is(0));
+        MatcherAssert.assertThat(CrawlerAppConfigBuilder.newBuilder("http://127.0.0.1:8000/")
+                .withMaxInFlightRequests(64).build().maxInFlightRequests, Matchers.is(64));
+    }
+
+    @Test
+    public void should_give_in_flight_budget_to_virtual_threads() {
+        CrawlerAppConfig config = CrawlerAppConfigBuilder.newBuilder("http://127.0.0.1:8000/")
+                .withExecutionMode(ExecutionMode.VIRTUAL_THREADS)
+                .build();
+        MatcherAssert.assertThat(config.executionMode, Matchers.is(ExecutionMode.VIRTUAL_THREADS));
+        MatcherAssert.assertThat(config.maxInFlightRequests, Matchers.is(100));
+        MatcherAssert.assertThat(ExecutionMode.of(null), Matchers.is(ExecutionMode.FIXED_POOL));
+        MatcherAssert.assertThat(ExecutionMode.of(" virtual_threads"), Matchers.is(ExecutionMode.VIRTUAL_THREADS));
+    }
+
     @Test
     public void should_have_defaults() {
         CrawlerApp underTest = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder("http://127.0.0.1:8000/").build());
@@ -247,6 +275,31 @@ public class CrawlerAppBuilderTest {
         Assertions.assertEquals(underTest.getConfig().siteHeight, expected.siteHeight);
         Assertions.assertEquals(underTest.getConfig().sleepTime, expected.sleepTime * 1000L);
         Assertions.assertEquals(underTest.getConfig().timeout, expected.maxExecutionTime * 1000L);
+        Assertions.assertEquals(underTest.getConfig().maxInFlightRequests, expected.maxInFlightRequests);
+        Assertions.assertEquals(underTest.getConfig().executionMode, ExecutionMode.of(expected.executionMode));
+        Assertions.assertEquals(underTest.getConfig().exactUrlDedup, expected.exactUrlDedup);
+        Assertions.assertEquals(underTest.getConfig().bloomFilterExpectedUrls, expected.bloomFilterExpectedUrls);
+        Assertions.assertEquals(underTest.getConfig().queryParameterPolicy, QueryParameterPolicy.of(expected.queryParameterPolicy));
+        Assertions.assertEquals(underTest.getConfig().strippedQueryParameters, expected.strippedQueryParameters);
+        Assertions.assertEquals(underTest.getConfig().streamLinkExtraction, expected.streamLinkExtraction);
+        Assertions.assertEquals(underTest.getConfig().linkExtractor, LinkExtractorType.of(expected.linkExtractor));
+        Assertions.assertEquals(underTest.getConfig().maxBodySizeKb, expected.maxBodySizeKb);
+        Assertions.assertEquals(underTest.getConfig().pathScopes, expected.pathScopes);
+        Assertions.assertEquals(underTest.getConfig().excludedExtensions, expected.excludedExtensions);
+        Assertions.assertEquals(underTest.getConfig().maxQueryParameters, expected.maxQueryParameters);
+        Assertions.assertEquals(underTest.getConfig().includePatterns, expected.includePatterns);
+        Assertions.assertEquals(underTest.getConfig().excludePatterns, expected.excludePatterns);
+        Assertions.assertEquals(underTest.getConfig().frontier, FrontierType.of(expected.frontier));
+        Assertions.assertEquals(underTest.getConfig().nodeScorer, NodeScorerType.of(expected.nodeScorer));
+        Assertions.assertEquals(underTest.getConfig().frontierMemoryNodes, expected.frontierMemoryNodes);
+        Assertions.assertEquals(underTest.getConfig().spillDirectory, expected.spillDirectory);
+        Assertions.assertEquals(underTest.getConfig().consumerBatchSize, expected.consumerBatchSize);
+        Assertions.assertEquals(underTest.getConfig().parseThreads, expected.parseThreads);
+        Assertions.assertEquals(underTest.getConfig().stageMetricsIntervalMillis, expected.stageMetricsIntervalMillis);
+        Assertions.assertEquals(underTest.getConfig().maxPendingBodySizeKb, expected.maxPendingBodySizeKb);
+        Assertions.assertEquals(underTest.getConfig().reportGzip, expected.reportGzip);
+        Assertions.assertEquals(underTest.getConfig().exportFormat, ExportFormat.of(expected.exportFormat));
+        Assertions.assertEquals(underTest.getConfig().hostDelayMillis, expected.hostDelayMillis);
         MatcherAssert.assertThat(underTest.getConfig().siteURI, Matchers.is("http://127.0.0.1:8000"));
         MatcherAssert.assertThat(underTest.getConfig().reportToFile, Matchers.is(false));
     }
@@ -1,26 +1,35 @@
 package com.acabra.jwebcrawler.control;
 
+import com.acabra.jwebcrawler.model.CrawlGraph;
 import com.acabra.jwebcrawler.model.CrawlSiteResponse;
 import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.CrawlerAppConfig;
+import com.acabra.jwebcrawler.model.ExecutionMode;
+import com.acabra.jwebcrawler.model.QueryParameterPolicy;
 import com.acabra.jwebcrawler.service.DownloadService;
 import com.acabra.jwebcrawler.service.Downloader;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
 import java.net.http.HttpResponse;
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.jsoup.Jsoup;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class CrawlerAppTest {
 
-    private static final PriorityQueue<CrawledNode> EMPTY_PQ = new PriorityQueue<>();
+    private static final Logger logger = LoggerFactory.getLogger(CrawlerAppTest.class);
 
     DownloadService downloadServiceMock;
 
@@ -55,7 +64,7 @@ public class CrawlerAppTest {
                 .thenReturn(TestUtils.getFutureRedirectResponse());
         Mockito.when(downloadServiceMock.download("http://localhost:8000/mypdffile.pdf"))
                 .thenReturn(TestUtils.getFuturePDFResponse());
-        Mockito.when(downloadServiceMock.download("http://8-secs-delayed-website.com"))
+        Mockito.when(downloadServiceMock.download("http://8-secs-delayed-website.com/"))
                 .thenAnswer((invocationOnMock) -> {
                     Thread.sleep(8000L);
                     return TestUtils.getFutureEmptyResponse();
@@ -67,14 +76,14 @@ public class CrawlerAppTest {
         int expectedSiteMaxHeight = 6;
         int maxSiteNodeLinks = 2;
         CrawlerApp crawlerApp = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder("http://localhost:8000/")
-                .withSleepWorkerTime(0.1)
+                .withHostDelayMillis(100L)
                 .withWorkerCount(1)
                 .withMaxExecutionTime(5)
                 .withMaxTreeSiteHeight(expectedSiteMaxHeight)
                 .withMaxSiteNodeLinks(maxSiteNodeLinks)
                 .build());
         CrawlSiteResponse crawlSiteResponse = crawlerApp.crawlSite(downloadServiceSupplier);
-        Map<Long, PriorityQueue<CrawledNode>> graph = crawlSiteResponse.getGraph();
+        CrawlGraph.View graph = crawlSiteResponse.getGraph();
 
         Mockito.verify(downloadServiceMock, Mockito.times(1)).download("http://localhost:8000/");
         Mockito.verify(downloadServiceMock, Mockito.times(1)).download("http://localhost:8000/index.html");
@@ -90,7 +99,7 @@ public class CrawlerAppTest {
 
         Assertions.assertEquals(crawlSiteResponse.getTotalFailures(), 1);
         Assertions.assertEquals(crawlSiteResponse.getTotalRedirects(), 1);
-        Assertions.assertTrue(graph.containsKey(CrawledNode.ROOT_NODE_PARENT_ID));
+        Assertions.assertNotEquals(CrawlGraph.NONE, graph.firstChild(CrawledNode.ROOT_NODE_PARENT_ID));
         MatcherAssert.assertThat(calculateActualMaxChildren(graph), Matchers.lessThanOrEqualTo(maxSiteNodeLinks));
         MatcherAssert.assertThat(calculateActualHeight(graph), Matchers.lessThanOrEqualTo(expectedSiteMaxHeight));
     }
@@ -100,14 +109,14 @@ public class CrawlerAppTest {
         int expectedSiteMaxHeight = 2;
         int maxSiteNodeLinks = 2;
         CrawlerApp crawlerApp = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder("http://localhost:8000/")
-                .withSleepWorkerTime(0.1)
+                .withHostDelayMillis(100L)
                 .withWorkerCount(1)
                 .withMaxTreeSiteHeight(expectedSiteMaxHeight)
                 .withMaxSiteNodeLinks(maxSiteNodeLinks)
                 .withMaxExecutionTime(5)
                 .build());
         CrawlSiteResponse crawlSiteResponse = crawlerApp.crawlSite(downloadServiceSupplier);
-        Map<Long, PriorityQueue<CrawledNode>> graph = crawlSiteResponse.getGraph();
+        CrawlGraph.View graph = crawlSiteResponse.getGraph();
 
         Mockito.verify(downloadServiceMock, Mockito.atLeastOnce()).download("http://localhost:8000/");
         Mockito.verify(downloadServiceMock, Mockito.times(1)).download("http://localhost:8000/a2.html");
@@ -122,7 +131,7 @@ public class CrawlerAppTest {
 
         MatcherAssert.assertThat(crawlSiteResponse.getTotalFailures(), Matchers.is(1));
         Assertions.assertEquals(crawlSiteResponse.getTotalRedirects(), 0);
-        Assertions.assertTrue(graph.containsKey(CrawledNode.ROOT_NODE_PARENT_ID));
+        Assertions.assertNotEquals(CrawlGraph.NONE, graph.firstChild(CrawledNode.ROOT_NODE_PARENT_ID));
         MatcherAssert.assertThat(calculateActualMaxChildren(graph), Matchers.lessThanOrEqualTo(maxSiteNodeLinks));
         MatcherAssert.assertThat(calculateActualHeight(graph), Matchers.lessThanOrEqualTo(expectedSiteMaxHeight));
     }
@@ -132,14 +141,14 @@ public class CrawlerAppTest {
         int maxTreeSiteHeight = 3;
         int maxSiteNodeLinks = 1;
         CrawlerApp crawlerApp = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder("http://localhost:8000/")
-                .withSleepWorkerTime(0.1)
+                .withHostDelayMillis(100L)
                 .withWorkerCount(1)
                 .withMaxTreeSiteHeight(maxTreeSiteHeight)
                 .withMaxSiteNodeLinks(maxSiteNodeLinks)
                 .withMaxExecutionTime(5)
                 .build());
         CrawlSiteResponse crawlSiteResponse = crawlerApp.crawlSite(downloadServiceSupplier);
-        Map<Long, PriorityQueue<CrawledNode>> graph = crawlSiteResponse.getGraph();
+        CrawlGraph.View graph = crawlSiteResponse.getGraph();
 
         Mockito.verify(downloadServiceMock, Mockito.times(1)).download("http://localhost:8000/");
         Mockito.verify(downloadServiceMock, Mockito.times(1)).download("http://localhost:8000/a2.html");
@@ -154,36 +163,84 @@ public class CrawlerAppTest {
 
         Assertions.assertEquals(crawlSiteResponse.getTotalFailures(), 0);
         Assertions.assertEquals(crawlSiteResponse.getTotalRedirects(), 0);
-        Assertions.assertTrue(graph.containsKey(CrawledNode.ROOT_NODE_PARENT_ID));
+        Assertions.assertNotEquals(CrawlGraph.NONE, graph.firstChild(CrawledNode.ROOT_NODE_PARENT_ID));
         MatcherAssert.assertThat(calculateActualMaxChildren(graph), Matchers.lessThanOrEqualTo(maxSiteNodeLinks));
         MatcherAssert.assertThat(calculateActualHeight(graph), Matchers.lessThanOrEqualTo(maxTreeSiteHeight));
     }
 
+    @Test
+    public void crawl_site_should_finish_before_timeout() {
+        CrawlerApp crawlerApp = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder("http://localhost:8000/")
+                .withSleepWorkerTime(0)
+                .withWorkerCount(2)
+                .withMaxExecutionTime(30)
+                .build());
+        CrawlSiteResponse crawlSiteResponse = crawlerApp.crawlSite(downloadServiceSupplier);
+
+        Mockito.verify(downloadServiceMock, Mockito.times(1)).download("http://localhost:8000/a9.html");
+        MatcherAssert.assertThat(crawlSiteResponse.getTotalTime(), Matchers.lessThan(10.0));
+    }
+
+    @Test
+    public void crawl_site_with_requests_in_flight_test() {
+        CrawlerApp crawlerApp = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder("http://localhost:8000/")
+                .withSleepWorkerTime(0)
+                .withWorkerCount(1)
+                .withMaxInFlightRequests(8)
+                .withMaxExecutionTime(30)
+                .build());
+        CrawlSiteResponse crawlSiteResponse = crawlerApp.crawlSite(downloadServiceSupplier);
+        CrawlGraph.View graph = crawlSiteResponse.getGraph();
+
+        Mockito.verify(downloadServiceMock, Mockito.atLeastOnce()).download("http://localhost:8000/a9.html");
+        Assertions.assertNotEquals(CrawlGraph.NONE, graph.firstChild(CrawledNode.ROOT_NODE_PARENT_ID));
+        MatcherAssert.assertThat(calculateActualHeight(graph), Matchers.is(4));
+        MatcherAssert.assertThat(crawlSiteResponse.getTotalTime(), Matchers.lessThan(10.0));
+    }
+
+    @Test
+    public void crawl_site_should_share_one_downloader_among_workers() {
+        AtomicInteger downloadersCreated = new AtomicInteger();
+        CrawlerApp crawlerApp = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder("http://localhost:8000/")
+                .withSleepWorkerTime(0)
+                .withWorkerCount(10)
+                .withMaxExecutionTime(30)
+                .build());
+        crawlerApp.crawlSite(() -> {
+            downloadersCreated.incrementAndGet();
+            return downloadServiceMock;
+        });
+
+        MatcherAssert.assertThat(downloadersCreated.get(), Matchers.is(1));
+    }
+
     @Test
     public void should_interrupt_execution() {
         String domain = "http://8-secs-delayed-website.com";
         CrawlerApp underTest = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder(domain)
                 .withWorkerCount(1)
-                .withSleepWorkerTime(3)
+                .withHostDelayMillis(3000L)
                 .withMaxExecutionTime(0.01)
                 .build());
 
         CrawlSiteResponse actualResponse = underTest.crawlSite(downloadServiceSupplier);
-        Map<Long, PriorityQueue<CrawledNode>> graph = actualResponse.getGraph();
+        CrawlGraph.View graph = actualResponse.getGraph();
 
-        CrawledNode expectedRootNode = new CrawledNode(domain, 0L);
+        // the root is crawled in its canonical form, with an empty path as "/"
+        CrawledNode expectedRootNode = new CrawledNode(graph.urls(), domain + "/", 0L);
 
-        Mockito.verify(downloadServiceMock, Mockito.times(1)).download(domain);
+        Mockito.verify(downloadServiceMock, Mockito.times(1)).download(domain + "/");
 
         MatcherAssert.assertThat(actualResponse.getTotalRedirects(), Matchers.is(0));
 
         // no time to fail since it was shut down while waiting
         MatcherAssert.assertThat(actualResponse.getTotalFailures(), Matchers.is(0));
-        Assertions.assertEquals(graph.size(), 1);
-        Assertions.assertTrue(graph.containsKey(CrawledNode.ROOT_NODE_PARENT_ID));
-        MatcherAssert.assertThat(graph.get(CrawledNode.ROOT_NODE_PARENT_ID), Matchers.contains(expectedRootNode));
-        MatcherAssert.assertThat(Objects.requireNonNull(graph.get(CrawledNode.ROOT_NODE_PARENT_ID).peek()).url,
-                Matchers.is(domain));
+        Assertions.assertEquals(graph.parents(), 1);
+        int root = graph.firstChild(CrawledNode.ROOT_NODE_PARENT_ID);
+        Assertions.assertNotEquals(CrawlGraph.NONE, root);
+        MatcherAssert.assertThat(graph.childCount(CrawledNode.ROOT_NODE_PARENT_ID), Matchers.is(1));
+        MatcherAssert.assertThat(graph.node(root), Matchers.is(expectedRootNode));
+        MatcherAssert.assertThat(graph.url(root), Matchers.is(domain + "/"));
         Assertions.assertFalse(TestUtils.reportFileWasCreated(underTest.getConfig().siteURI));
     }
 
@@ -192,7 +249,7 @@ public class CrawlerAppTest {
         String domain = "http://localhost:8000/";
         CrawlerApp underTest = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder(domain)
                 .withWorkerCount(1)
-                .withSleepWorkerTime(0.1)
+                .withHostDelayMillis(100L)
                 .withMaxExecutionTime(5)
                 .withReportToFile(true)
                 .build());
@@ -206,27 +263,108 @@ public class CrawlerAppTest {
         String domain = "http://localhost:8000";
         CrawlerApp underTest = new CrawlerApp(CrawlerAppConfigBuilder.newBuilder(domain)
                 .withWorkerCount(1)
-                .withSleepWorkerTime(0.1)
+                .withHostDelayMillis(100L)
                 .withMaxExecutionTime(5)
                 .build());
         underTest.start();
         Assertions.assertFalse(TestUtils.reportFileWasCreated(underTest.getConfig().siteURI));
     }
 
-    private int calculateActualHeight(Map<Long, PriorityQueue<CrawledNode>> graph) {
+    private int calculateActualHeight(CrawlGraph.View graph) {
         int height = 0;
-        Stack<CrawledNode> q = new Stack<>();
-        q.push(graph.get(-1L).remove());
+        Stack<Integer> q = new Stack<>();
+        q.push(graph.firstChild(-1L));
         while (!q.isEmpty()) {
-            CrawledNode pop = q.pop();
-            height = Math.max(height, pop.level);
-            PriorityQueue<CrawledNode> pq = graph.getOrDefault(pop.id, EMPTY_PQ);
-            while (!pq.isEmpty()) q.push(pq.remove());
+            int pop = q.pop();
+            height = Math.max(height, graph.level(pop));
+            for (int child = graph.firstChild(pop); child != CrawlGraph.NONE; child = graph.nextSibling(child)) {
+                q.push(child);
+            }
         }
         return height;
     }
 
-    private int calculateActualMaxChildren(Map<Long, PriorityQueue<CrawledNode>> graph) {
-        return graph.values().stream().mapToInt(Collection::size).max().orElse(0);
+    private int calculateActualMaxChildren(CrawlGraph.View graph) {
+        int maxChildren = graph.childCount(CrawledNode.ROOT_NODE_PARENT_ID);
+        for (int id = 0; id <= graph.maxId(); id++) {
+            maxChildren = Math.max(maxChildren, graph.childCount(id));
+        }
+        return maxChildren;
+    }
+
+    @Test
+    public void should_download_each_canonical_page_once() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        String rootPage = "<html><body>"
+                + "<a href=\"/a.html\">a</a><a href=\"/a.html#top\">a</a><a href=\"/./a.html\">a</a>"
+                + "<a href=\"/x/../a.html\">a</a><a href=\"HTTP://LOCALHOST:%d/a.html\">a</a>"
+                + "<a href=\"/b.html?x=1&amp;y=2\">b</a><a href=\"/b.html?y=2&amp;x=1\">b</a>"
+                + "<a href=\"/b.html?y=2&amp;utm_source=news&amp;x=1\">b</a>"
+                + "<a href=\"/c.html\">c</a><a href=\"/c.html#footer\">c</a><a href=\"/#top\">root</a>"
+                + "</body></html>";
+        String childPage = "<html><body><a href=\"/\">root</a><a href=\"/a.html#\">a</a></body></html>";
+        Map<String, String> pages = new HashMap<>();
+        HttpServer server = TestUtils.startSiteServer(pages, requests);
+        int port = server.getAddress().getPort();
+        pages.put("/", String.format(rootPage, port));
+        pages.put("/a.html", childPage);
+        pages.put("/b.html", childPage);
+        pages.put("/c.html", childPage);
+        String siteURI = "http://localhost:" + port;
+        try {
+            CrawlerAppConfig config = CrawlerAppConfigBuilder.newBuilder(siteURI)
+                    .withWorkerCount(2)
+                    .withSleepWorkerTime(0)
+                    .withMaxSiteNodeLinks(0)
+                    .withMaxExecutionTime(10)
+                    .withQueryParameterPolicy(QueryParameterPolicy.SORT)
+                    .withStrippedQueryParameters(List.of("utm_"))
+                    .build();
+            CrawlSiteResponse response = new CrawlerApp(config).crawlSite(() -> DownloadService.of(config.siteURI));
+
+            long rawLinks = Jsoup.parse(pages.get("/"), siteURI).select("a").stream()
+                    .map(element -> element.attr("abs:href"))
+                    .filter(link -> link.startsWith(siteURI))
+                    .distinct()
+                    .count();
+            int downloads = requests.get() - 1; // the client warms up with a request to the site
+            logger.info(String.format("raw distinct links on the root page: %d, pages downloaded: %d", rawLinks,
+                    downloads));
+
+            MatcherAssert.assertThat(downloads, Matchers.is(4));
+            MatcherAssert.assertThat(rawLinks, Matchers.greaterThan(4L));
+            MatcherAssert.assertThat(response.getGraph().nodes(),
+                    Matchers.is(4));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void workers_should_scale_the_crawl_with_the_deprecated_sleep_time() throws IOException {
+        HttpServer server = TestUtils.startLatencyServer(100L, 16);
+        String siteURI = "http://localhost:" + server.getAddress().getPort() + "/";
+        try {
+            double oneWorker = crawlWithWorkers(siteURI, 1);
+            double fourWorkers = crawlWithWorkers(siteURI, 4);
+            logger.info(String.format("1 worker: %.3fs, 4 workers: %.3fs", oneWorker, fourWorkers));
+
+            MatcherAssert.assertThat(oneWorker, Matchers.greaterThan(2.5 * fourWorkers));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private double crawlWithWorkers(String siteURI, int workerCount) {
+        CrawlerAppConfig config = CrawlerAppConfigBuilder.newBuilder(siteURI)
+                .withWorkerCount(workerCount)
+                .withSleepWorkerTime(1)
+                .withMaxSiteNodeLinks(0)
+                .withMaxExecutionTime(30)
+                .withExecutionMode(ExecutionMode.FIXED_POOL)
+                .build();
+        CrawlSiteResponse response = new CrawlerApp(config).crawlSite(() -> DownloadService.of(config.siteURI));
+        MatcherAssert.assertThat(response.getGraph().nodes(), Matchers.is(17));
+        return response.getTotalTime();
     }
 }
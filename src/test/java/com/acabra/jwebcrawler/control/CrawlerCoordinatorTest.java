@@ -7,8 +7,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 class CrawlerCoordinatorTest {
 
@@ -25,8 +30,8 @@ class CrawlerCoordinatorTest {
     void allowLink() {
 
         underTest.reportFailureLink("failure.com");
-        underTest.processNode(new CrawledNode("visited01.com", 0L));
-        underTest.processNode(new CrawledNode("failure2.com", 1L, 1, 0L));
+        underTest.processNode(new CrawledNode(underTest.getUrls(), "visited01.com", 0L));
+        underTest.processNode(new CrawledNode(underTest.getUrls(), "failure2.com", 1L, 1, 0L));
         underTest.reportFailureLink("failure2.com");
 
         MatcherAssert.assertThat(underTest.allowLink("a.com"), Matchers.is(true));
@@ -35,6 +40,40 @@ class CrawlerCoordinatorTest {
         MatcherAssert.assertThat(underTest.allowLink("failure2.com"), Matchers.is(false));
     }
 
+    @Test
+    public void should_claim_url_only_once() {
+        underTest.reportFailureLink("http://mysite.com/failure.html");
+
+        MatcherAssert.assertThat(underTest.tryClaim("http://mysite.com/a.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.tryClaim("http://mysite.com/a.html"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.allowLink("http://mysite.com/a.html"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.tryClaim("http://mysite.com/failure.html"), Matchers.is(false));
+    }
+
+    @Test
+    public void bloom_filter_should_answer_new_links_and_count_lookups() {
+        CrawlerCoordinator withBloom = new CrawlerCoordinator(ex, CrawlerAppConfigBuilder
+                .newBuilder("http://mysite.com/")
+                .withBloomFilterExpectedUrls(1000)
+                .build());
+        withBloom.processNode(new CrawledNode(withBloom.getUrls(), "http://mysite.com/a.html", withBloom.getNextId()));
+        withBloom.reportFailureLink("http://mysite.com/failure.html");
+
+        MatcherAssert.assertThat(withBloom.allowLink("http://mysite.com/a.html"), Matchers.is(false));
+        MatcherAssert.assertThat(withBloom.allowLink("http://mysite.com/failure.html"), Matchers.is(false));
+        for (int i = 0; i < 100; i++) {
+            MatcherAssert.assertThat(withBloom.allowLink("http://mysite.com/new" + i + ".html"), Matchers.is(true));
+        }
+
+        MatcherAssert.assertThat(withBloom.getBloomFilterLookups(), Matchers.is(102L));
+        MatcherAssert.assertThat(withBloom.getBloomFilterHits() + withBloom.getBloomFilterFalsePositives(),
+                Matchers.is(100L));
+        MatcherAssert.assertThat(withBloom.getBloomFilterHits(), Matchers.greaterThan(95L));
+        MatcherAssert.assertThat(withBloom.tryClaim("http://mysite.com/new0.html"), Matchers.is(true));
+        MatcherAssert.assertThat(withBloom.allowLink("http://mysite.com/new0.html"), Matchers.is(false));
+        withBloom.requestJobDone();
+    }
+
     @Test
     public void should_reject_task_executor_shutdown(){
         ex.shutdown();
@@ -45,4 +84,149 @@ class CrawlerCoordinatorTest {
 
         MatcherAssert.assertThat(underTest.getTotalEnqueueRejections(), Matchers.is(1L));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_reach_quiescence_once_all_nodes_are_done() throws InterruptedException {
+        underTest.reportEnqueued();
+        underTest.reportFetchStarted();
+        underTest.dispatchProducer(Mockito.mock(CrawlProducerWorker.class));
+
+        MatcherAssert.assertThat(underTest.getParsingNodes(), Matchers.is(1));
+        MatcherAssert.assertThat(underTest.awaitQuiescence(10L), Matchers.is(false));
+
+        underTest.reportEnqueued(); // child found by the producer
+        underTest.reportParseCompleted();
+        underTest.reportFetchStarted();
+
+        MatcherAssert.assertThat(underTest.getFetchingNodes(), Matchers.is(1));
+        MatcherAssert.assertThat(underTest.awaitQuiescence(10L), Matchers.is(false));
+
+        underTest.reportFetchAbandoned();
+
+        MatcherAssert.assertThat(underTest.getPendingNodes(), Matchers.is(0));
+        MatcherAssert.assertThat(underTest.getQueuedNodes(), Matchers.is(0));
+        MatcherAssert.assertThat(underTest.awaitQuiescence(10L), Matchers.is(true));
+    }
+
+    @Test
+    public void should_reach_quiescence_when_producer_rejected() throws InterruptedException {
+        ex.shutdown();
+        underTest.reportEnqueued();
+        underTest.reportFetchStarted();
+        underTest.dispatchProducer(Mockito.mock(CrawlProducerWorker.class));
+
+        MatcherAssert.assertThat(underTest.getParsingNodes(), Matchers.is(0));
+        MatcherAssert.assertThat(underTest.awaitQuiescence(10L), Matchers.is(true));
+    }
+
+    @Test
+    public void should_requeue_throttled_node_until_retries_exhausted() throws InterruptedException {
+        BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>();
+        CrawledNode node = new CrawledNode(underTest.getUrls(), "http://mysite.com/a.html", underTest.getNextId());
+        underTest.processNode(node);
+        MatcherAssert.assertThat(underTest.isRetry(node), Matchers.is(false));
+
+        for (int i = 0; i < 3; i++) {
+            MatcherAssert.assertThat(underTest.reportThrottled(node, node.url(), 10L, queue), Matchers.is(true));
+            MatcherAssert.assertThat(queue.poll(1, TimeUnit.SECONDS), Matchers.is(node));
+            MatcherAssert.assertThat(underTest.isRetry(node), Matchers.is(true));
+        }
+        MatcherAssert.assertThat(underTest.getQueuedNodes(), Matchers.is(3));
+
+        MatcherAssert.assertThat(underTest.reportThrottled(node, node.url(), 10L, queue), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.getTotalFailures(), Matchers.is(1));
+        MatcherAssert.assertThat(queue.poll(50L, TimeUnit.MILLISECONDS), Matchers.nullValue());
+        MatcherAssert.assertThat(underTest.isRetry(node), Matchers.is(false));
+    }
+
+    @Test
+    public void should_forget_the_retries_of_a_node_once_it_is_not_throttled() throws InterruptedException {
+        BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>();
+        CrawledNode node = new CrawledNode(underTest.getUrls(), "http://mysite.com/a.html", underTest.getNextId());
+        underTest.processNode(node);
+
+        MatcherAssert.assertThat(underTest.reportThrottled(node, node.url(), 10L, queue), Matchers.is(true));
+        MatcherAssert.assertThat(queue.poll(1, TimeUnit.SECONDS), Matchers.is(node));
+        underTest.reportRetriesOver(node);
+
+        MatcherAssert.assertThat(underTest.isRetry(node), Matchers.is(false));
+    }
+
+    @Test
+    public void should_forget_the_retries_of_a_throttled_node_the_full_queue_rejected() throws InterruptedException {
+        BlockingQueue<CrawledNode> fullQueue = new LinkedBlockingQueue<>(1);
+        fullQueue.offer(new CrawledNode(underTest.getUrls(), "http://mysite.com/", underTest.getNextId()));
+        CrawledNode node = new CrawledNode(underTest.getUrls(), "http://mysite.com/a.html", underTest.getNextId());
+        underTest.processNode(node);
+
+        MatcherAssert.assertThat(underTest.reportThrottled(node, node.url(), 10L, fullQueue), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.isRetry(node), Matchers.is(true));
+        Thread.sleep(200L); // the delayed offer found the queue full
+
+        MatcherAssert.assertThat(fullQueue.contains(node), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.isRetry(node), Matchers.is(false));
+
+        underTest.requestJobDone(); // the delay queue rejects the retry right away
+        MatcherAssert.assertThat(underTest.reportThrottled(node, node.url(), 10L, fullQueue), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.isRetry(node), Matchers.is(false));
+    }
+
+    @Test
+    public void should_give_up_the_host_slot_of_a_node_the_full_queue_rejected() throws InterruptedException {
+        CrawlerCoordinator polite = new CrawlerCoordinator(ex, 0, 200L, false, 0, 0L);
+        BlockingQueue<CrawledNode> fullQueue = new LinkedBlockingQueue<>(1);
+        fullQueue.offer(new CrawledNode(polite.getUrls(), "http://mysite.com/", polite.getNextId()));
+        CrawledNode first = new CrawledNode(polite.getUrls(), "http://mysite.com/a.html", polite.getNextId());
+        CrawledNode rejected = new CrawledNode(polite.getUrls(), "http://mysite.com/b.html", polite.getNextId());
+        CrawledNode later = new CrawledNode(polite.getUrls(), "http://mysite.com/c.html", polite.getNextId());
+
+        MatcherAssert.assertThat(polite.deferIfHostBusy(first, first.url(), fullQueue), Matchers.is(false));
+        polite.releaseHostSlot(first.url(), null);
+        MatcherAssert.assertThat(polite.deferIfHostBusy(rejected, rejected.url(), fullQueue), Matchers.is(true));
+        Thread.sleep(500L); // the slot of the rejected node went by and its offer failed
+        MatcherAssert.assertThat(polite.deferIfHostBusy(later, later.url(), fullQueue), Matchers.is(false));
+        polite.releaseHostSlot(later.url(), null);
+
+        // the rejected node does not own a slot anymore, it waits for the next one
+        MatcherAssert.assertThat(polite.deferIfHostBusy(rejected, rejected.url(), fullQueue), Matchers.is(true));
+        polite.requestJobDone();
+    }
+
+    @Test
+    public void should_pause_downloads_while_unparsed_bodies_exceed_the_budget() throws Exception {
+        CrawlerCoordinator withBudget = new CrawlerCoordinator(ex, 0, 0L, false, 0, 10L);
+        CountDownLatch parsing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CrawlProducerWorker producerMock = Mockito.mock(CrawlProducerWorker.class);
+        Mockito.when(producerMock.getBodyLength()).thenReturn(25L);
+        Mockito.doAnswer(invocation -> {
+            parsing.countDown();
+            release.await();
+            return null;
+        }).when(producerMock).run();
+
+        withBudget.reportEnqueued();
+        withBudget.reportFetchStarted();
+        withBudget.dispatchProducer(producerMock);
+        parsing.await();
+        MatcherAssert.assertThat(withBudget.getPendingBodyBytes(), Matchers.is(50L));
+
+        CompletableFuture<Void> download = CompletableFuture.runAsync(() -> {
+            try {
+                withBudget.awaitBodyBudget();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50L);
+        MatcherAssert.assertThat(download.isDone(), Matchers.is(false));
+
+        release.countDown();
+        download.get(1L, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(withBudget.getPendingBodyBytes(), Matchers.is(0L));
+        MatcherAssert.assertThat(withBudget.getPeakPendingBodyBytes(), Matchers.is(50L));
+        MatcherAssert.assertThat(withBudget.getBodyBudgetWaits(), Matchers.is(1L));
+        withBudget.awaitBodyBudget(); // under the budget, does not wait
+        MatcherAssert.assertThat(withBudget.getBodyBudgetWaits(), Matchers.is(1L));
+    }
+}
@@ -0,0 +1,111 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawlSiteResponse;
+import com.acabra.jwebcrawler.model.CrawlerAppConfig;
+import com.acabra.jwebcrawler.model.ExecutionMode;
+import com.acabra.jwebcrawler.service.DownloadService;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the requests the fixed pool and the virtual threads execution mode keep in flight on a local server
+ * with high latency, and how long each takes to crawl it under the benchmark profile.
+ */
+class ExecutionModeTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionModeTest.class);
+    private static final long LATENCY_MILLIS = 100L;
+    private static final int TOTAL_PAGES = 20;
+    private static final int WORKER_COUNT = 2;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private HttpServer server;
+    private String siteURI;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        server = TestUtils.startLatencyServer(LATENCY_MILLIS, TOTAL_PAGES, inFlight, maxInFlight);
+        siteURI = "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fixed_pool_should_keep_a_request_in_flight_per_worker() {
+        CrawlSiteResponse response = crawl(ExecutionMode.FIXED_POOL, 0);
+
+        MatcherAssert.assertThat(totalNodes(response), Matchers.is(TOTAL_PAGES + 1));
+        MatcherAssert.assertThat(maxInFlight.get(), Matchers.lessThanOrEqualTo(WORKER_COUNT));
+    }
+
+    @Test
+    public void virtual_threads_should_keep_more_requests_in_flight_than_workers() {
+        CrawlSiteResponse response = crawl(ExecutionMode.VIRTUAL_THREADS, 0);
+
+        MatcherAssert.assertThat(totalNodes(response), Matchers.is(TOTAL_PAGES + 1));
+        MatcherAssert.assertThat(maxInFlight.get(), Matchers.greaterThan(WORKER_COUNT));
+    }
+
+    @Test
+    public void virtual_threads_should_keep_the_in_flight_requests_within_the_budget() {
+        int budget = 4;
+        CrawlSiteResponse response = crawl(ExecutionMode.VIRTUAL_THREADS, budget);
+
+        MatcherAssert.assertThat(totalNodes(response), Matchers.is(TOTAL_PAGES + 1));
+        MatcherAssert.assertThat(maxInFlight.get(), Matchers.lessThanOrEqualTo(budget));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void should_measure_virtual_threads_against_the_fixed_pool() throws IOException {
+        int pages = 100;
+        HttpServer slowServer = TestUtils.startLatencyServer(250L, pages);
+        String slowSiteURI = "http://localhost:" + slowServer.getAddress().getPort() + "/";
+        try {
+            for (int round = 0; round < 2; round++) { // the first round warms up
+                CrawlSiteResponse fixedPool = crawl(slowSiteURI, ExecutionMode.FIXED_POOL, 0);
+                CrawlSiteResponse virtualThreads = crawl(slowSiteURI, ExecutionMode.VIRTUAL_THREADS, 0);
+                logger.info(String.format("%d pages served in 250 ms by %d workers, fixed pool: %.2f s, "
+                                + "virtual threads: %.2f s", pages, WORKER_COUNT, fixedPool.getTotalTime(),
+                        virtualThreads.getTotalTime()));
+                MatcherAssert.assertThat(totalNodes(virtualThreads), Matchers.is(pages + 1));
+                MatcherAssert.assertThat(virtualThreads.getTotalTime(), Matchers.lessThan(fixedPool.getTotalTime()));
+            }
+        } finally {
+            slowServer.stop(0);
+        }
+    }
+
+    private CrawlSiteResponse crawl(ExecutionMode executionMode, int maxInFlightRequests) {
+        return crawl(siteURI, executionMode, maxInFlightRequests);
+    }
+
+    private CrawlSiteResponse crawl(String siteURI, ExecutionMode executionMode, int maxInFlightRequests) {
+        CrawlerAppConfig config = CrawlerAppConfigBuilder.newBuilder(siteURI)
+                .withWorkerCount(WORKER_COUNT)
+                .withSleepWorkerTime(0)
+                .withMaxSiteNodeLinks(0)
+                .withMaxExecutionTime(60)
+                .withExecutionMode(executionMode)
+                .withMaxInFlightRequests(maxInFlightRequests)
+                .build();
+        return new CrawlerApp(config).crawlSite(() -> DownloadService.of(config.siteURI));
+    }
+
+    private int totalNodes(CrawlSiteResponse response) {
+        return response.getGraph().nodes();
+    }
+}
@@ -0,0 +1,437 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.FrontierType;
+import com.acabra.jwebcrawler.model.QueryParameterPolicy;
+import com.acabra.jwebcrawler.model.UrlArena;
+import com.acabra.jwebcrawler.utils.UrlCanonicalizer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class FrontierTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrontierTest.class);
+    private static final UrlArena URLS = new UrlArena();
+
+    private static CrawledNode nodeOf(String path, long id, int level) {
+        return nodeOf(path, id, level, 0L);
+    }
+
+    private static CrawledNode nodeOf(String path, long id, int level, long parentId) {
+        return new CrawledNode(URLS, "http://mysite.com" + path, id, level, parentId);
+    }
+
+    private static List<Long> takeAll(BlockingQueue<CrawledNode> frontier) {
+        List<Long> ids = new ArrayList<>();
+        CrawledNode node;
+        while (null != (node = frontier.poll())) {
+            ids.add(node.id);
+        }
+        return ids;
+    }
+
+    @Test
+    void level_frontier_should_take_lower_levels_first_in_offer_order() {
+        Frontier underTest = Frontier.of(FrontierType.LEVEL, NodeScorer.byDepth(), URLS);
+        underTest.offer(nodeOf("/a", 1L, 3));
+        underTest.offer(nodeOf("/b", 2L, 1));
+        underTest.offer(nodeOf("/c", 3L, 2));
+        underTest.offer(nodeOf("/d", 4L, 1));
+        underTest.offer(nodeOf("/e", 5L, 0));
+        underTest.offer(nodeOf("/f", 6L, 100)); // deeper than the buckets
+
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(6));
+        MatcherAssert.assertThat(underTest.peek().id, Matchers.is(5L));
+        MatcherAssert.assertThat(takeAll(underTest), Matchers.contains(5L, 2L, 4L, 3L, 1L, 6L));
+        MatcherAssert.assertThat(underTest.isEmpty(), Matchers.is(true));
+    }
+
+    @Test
+    void fifo_frontier_should_take_nodes_in_offer_order() {
+        Frontier underTest = Frontier.of(FrontierType.FIFO, NodeScorer.byDepth(), URLS);
+        underTest.offer(nodeOf("/a", 1L, 3));
+        underTest.offer(nodeOf("/b", 2L, 1));
+
+        MatcherAssert.assertThat(takeAll(underTest), Matchers.contains(1L, 2L));
+    }
+
+    @Test
+    void spill_frontier_should_take_nodes_in_offer_order_across_memory_and_disk(@TempDir Path dir)
+            throws IOException {
+        SpillFrontier underTest = new SpillFrontier(URLS, dir, 3, 64);
+        List<CrawledNode> offered = new ArrayList<>();
+        offered.add(new CrawledNode(URLS, "http://mysite.com", 0L));
+        for (long i = 1; i < 200; i++) {
+            offered.add(nodeOf("/caf\u00e9/" + "x".repeat((int) i % 70) + i, i * 1_000_003L, (int) i % 300, i / 2));
+        }
+        offered.forEach(underTest::offer);
+        MatcherAssert.assertThat(underTest.getTotalSpilledNodes(), Matchers.is(197L));
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(200));
+        MatcherAssert.assertThat(underTest.stream().map(node -> node.id).collect(Collectors.toList()),
+                Matchers.is(offered.stream().map(node -> node.id).collect(Collectors.toList())));
+
+        List<CrawledNode> taken = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            taken.add(underTest.poll());
+        }
+        underTest.offer(nodeOf("/late", 999L, 1, 0L));
+        offered.add(nodeOf("/late", 999L, 1, 0L));
+        CrawledNode node;
+        while (null != (node = underTest.poll())) {
+            taken.add(node);
+        }
+
+        MatcherAssert.assertThat(taken, Matchers.is(offered));
+        for (int i = 0; i < offered.size(); i++) {
+            MatcherAssert.assertThat(taken.get(i).level, Matchers.is(offered.get(i).level));
+            MatcherAssert.assertThat(taken.get(i).parentId, Matchers.is(offered.get(i).parentId));
+        }
+        underTest.close();
+        try (var files = Files.list(dir)) {
+            MatcherAssert.assertThat(files.count(), Matchers.is(0L));
+        }
+    }
+
+    @Test
+    void spill_frontier_should_reuse_the_disk_once_drained(@TempDir Path dir) {
+        SpillFrontier underTest = new SpillFrontier(URLS, dir, 0, 1024);
+        for (int round = 0; round < 3; round++) {
+            for (long i = 0; i < 100; i++) {
+                underTest.offer(nodeOf("/" + i, i, 1, 0L));
+            }
+            MatcherAssert.assertThat(takeAll(underTest),
+                    Matchers.is(LongStream.range(0, 100).boxed().collect(Collectors.toList())));
+        }
+        MatcherAssert.assertThat(underTest.getTotalSpilledNodes(), Matchers.is(300L));
+        underTest.close();
+    }
+
+    @Test
+    void ring_frontier_should_take_batches_in_offer_order_and_reject_once_full() throws InterruptedException {
+        RingFrontier underTest = new RingFrontier(5);
+        MatcherAssert.assertThat(underTest.capacity(), Matchers.is(8));
+
+        List<CrawledNode> children = LongStream.range(0, 6).mapToObj(i -> nodeOf("/" + i, i, 1))
+                .collect(Collectors.toList());
+        MatcherAssert.assertThat(underTest.offerAll(children), Matchers.is(6));
+        MatcherAssert.assertThat(underTest.offerAll(children), Matchers.is(2));
+        MatcherAssert.assertThat(underTest.offer(nodeOf("/full", 9L, 1)), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.remainingCapacity(), Matchers.is(0));
+
+        List<CrawledNode> batch = new ArrayList<>();
+        MatcherAssert.assertThat(underTest.takeBatch(batch, 4), Matchers.is(4));
+        MatcherAssert.assertThat(batch.stream().map(node -> node.id).collect(Collectors.toList()),
+                Matchers.contains(0L, 1L, 2L, 3L));
+
+        MatcherAssert.assertThat(underTest.offerAll(children), Matchers.is(4)); // wraps around the ring
+        underTest.offer(CrawlerApp.POISON_PILL);
+        batch.clear();
+        MatcherAssert.assertThat(underTest.takeBatch(batch, 100), Matchers.is(1));
+        MatcherAssert.assertThat(batch.get(0).id, Matchers.is(CrawlerApp.POISON_PILL_ID));
+        MatcherAssert.assertThat(takeAll(underTest), Matchers.contains(4L, 5L, 0L, 1L, 0L, 1L, 2L, 3L));
+        MatcherAssert.assertThat(underTest.poll(10L, TimeUnit.MILLISECONDS), Matchers.nullValue());
+    }
+
+    @Test
+    void take_batch_should_leave_poison_pills_to_other_workers() throws InterruptedException {
+        BlockingQueue<CrawledNode> queue = new LinkedBlockingQueue<>();
+        queue.offer(nodeOf("/a", 1L, 1));
+        queue.offer(nodeOf("/b", 2L, 1));
+        queue.offer(CrawlerApp.POISON_PILL);
+        queue.offer(nodeOf("/c", 3L, 1));
+
+        List<CrawledNode> batch = new ArrayList<>();
+        MatcherAssert.assertThat(Frontier.takeBatch(queue, batch, 10), Matchers.is(2));
+        MatcherAssert.assertThat(batch.stream().map(node -> node.id).collect(Collectors.toList()),
+                Matchers.contains(1L, 2L));
+        MatcherAssert.assertThat(queue.size(), Matchers.is(2));
+        MatcherAssert.assertThat(Frontier.offerAll(queue, List.of(nodeOf("/d", 4L, 1))), Matchers.is(1));
+    }
+
+    @Test
+    void work_stealing_worker_should_take_its_own_nodes_first_then_steal_the_newest() throws InterruptedException {
+        WorkStealingFrontier underTest = new WorkStealingFrontier(2);
+        Frontier first = underTest.forWorker(0);
+        Frontier second = underTest.forWorker(1);
+        first.offer(nodeOf("/a", 1L, 1));
+        first.offer(nodeOf("/b", 2L, 1));
+        first.offer(nodeOf("/c", 3L, 1));
+        second.offer(nodeOf("/d", 4L, 1));
+
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(4));
+        MatcherAssert.assertThat(second.take().id, Matchers.is(4L));
+        MatcherAssert.assertThat(second.take().id, Matchers.is(3L)); // stolen
+        MatcherAssert.assertThat(first.take().id, Matchers.is(1L));
+        MatcherAssert.assertThat(first.size(), Matchers.is(1));
+        MatcherAssert.assertThat(underTest.getLocalNodes(), Matchers.is(2L));
+        MatcherAssert.assertThat(underTest.getStolenNodes(), Matchers.is(1L));
+
+        underTest.offer(nodeOf("/root", 5L, 0)); // spread over the deques
+        underTest.offer(nodeOf("/root2", 6L, 0));
+        MatcherAssert.assertThat(takeAll(first), Matchers.contains(2L, 5L, 6L));
+    }
+
+    @Test
+    void work_stealing_workers_should_stop_with_poison_pills_once_quiescent() {
+        int workers = 4;
+        int childrenPerNode = 4;
+        int maxLevel = 7;
+        WorkStealingFrontier underTest = new WorkStealingFrontier(workers);
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicInteger crawled = new AtomicInteger();
+        AtomicLong nextId = new AtomicLong(1L);
+        underTest.offer(nodeOf("/", 0L, 0));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        CompletableFuture<?>[] tasks = IntStream.range(0, workers).mapToObj(underTest::forWorker)
+                .map(frontier -> CompletableFuture.runAsync(() -> {
+                    try {
+                        while (true) {
+                            CrawledNode node = frontier.take();
+                            if (node.id == CrawlerApp.POISON_PILL_ID) {
+                                return;
+                            }
+                            crawled.incrementAndGet();
+                            if (node.level < maxLevel) {
+                                pending.addAndGet(childrenPerNode);
+                                for (int i = 0; i < childrenPerNode; i++) {
+                                    frontier.offer(nodeOf("/n", nextId.getAndIncrement(), node.level + 1));
+                                }
+                            }
+                            if (pending.decrementAndGet() == 0) { // quiescent, as the crawl terminator sees it
+                                for (int i = 0; i < workers; i++) {
+                                    underTest.offer(CrawlerApp.POISON_PILL);
+                                }
+                            }
+                        }
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, executor)).toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(tasks).orTimeout(30L, TimeUnit.SECONDS).join();
+        executor.shutdown();
+
+        int expected = IntStream.rangeClosed(0, maxLevel).map(level -> (int) Math.pow(childrenPerNode, level)).sum();
+        MatcherAssert.assertThat(crawled.get(), Matchers.is(expected));
+        MatcherAssert.assertThat(underTest.isEmpty(), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.getLocalNodes() + underTest.getStolenNodes(), Matchers.is((long) expected));
+        logger.info(String.format("%d workers, nodes taken from the own deque: %d, stolen: %d", workers,
+                underTest.getLocalNodes(), underTest.getStolenNodes()));
+    }
+
+    @Test
+    void best_first_frontier_should_take_lowest_scores_first() {
+        Frontier underTest = Frontier.of(FrontierType.BEST_FIRST, NodeScorer.byPathLength(), URLS);
+        underTest.offer(nodeOf("/a/b/c.html", 1L, 1));
+        underTest.offer(nodeOf("/a.html", 2L, 3));
+        underTest.offer(nodeOf("/a/b.html?x=1", 3L, 1));
+        underTest.offer(nodeOf("/b.html", 4L, 2));
+
+        MatcherAssert.assertThat(takeAll(underTest), Matchers.contains(2L, 4L, 1L, 3L));
+    }
+
+    @Test
+    void poison_pills_should_be_taken_before_any_node() throws InterruptedException {
+        for (FrontierType type : FrontierType.values()) {
+            Frontier underTest = Frontier.of(type, NodeScorer.byDepth(), URLS);
+            underTest.offer(nodeOf("/a", 1L, 0));
+            underTest.offer(CrawlerApp.POISON_PILL);
+
+            long expectedFirst = type == FrontierType.FIFO ? 1L : CrawlerApp.POISON_PILL_ID;
+            MatcherAssert.assertThat(type.name(), underTest.take().id, Matchers.is(expectedFirst));
+        }
+    }
+
+    @Test
+    void take_should_wait_for_a_node() throws Exception {
+        Frontier underTest = Frontier.of(FrontierType.LEVEL, NodeScorer.byDepth(), URLS);
+        CompletableFuture<CrawledNode> taken = CompletableFuture.supplyAsync(() -> {
+            try {
+                return underTest.take();
+            } catch (InterruptedException ie) {
+                throw new IllegalStateException(ie);
+            }
+        });
+        Thread.sleep(50L);
+        MatcherAssert.assertThat(taken.isDone(), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.poll(10L, TimeUnit.MILLISECONDS), Matchers.nullValue());
+
+        underTest.offer(nodeOf("/a", 7L, 2));
+
+        MatcherAssert.assertThat(taken.get(1L, TimeUnit.SECONDS).id, Matchers.is(7L));
+    }
+
+    @Test
+    void sitemap_scorer_should_prefer_higher_priorities_then_lower_levels() {
+        String sitemap = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n" +
+                "<url><loc>HTTP://MySite.com/top.html</loc><priority>0.9</priority></url>\n" +
+                "<url><loc>http://mysite.com/low.html</loc><priority>0.1</priority></url>\n" +
+                "<url><loc>http://mysite.com/invalid.html</loc><priority>high</priority></url>\n" +
+                "</urlset>";
+        Map<String, Double> priorities = NodeScorer.parseSitemapPriorities(sitemap,
+                new UrlCanonicalizer(QueryParameterPolicy.SORT, List.of()));
+        MatcherAssert.assertThat(priorities, Matchers.is(Map.of("http://mysite.com/top.html", 0.9,
+                "http://mysite.com/low.html", 0.1, "http://mysite.com/invalid.html", 0.5)));
+
+        Frontier underTest = Frontier.of(FrontierType.BEST_FIRST, NodeScorer.bySitemapPriority(priorities), URLS);
+        underTest.offer(nodeOf("/low.html", 1L, 0));
+        underTest.offer(nodeOf("/unknown-deep.html", 2L, 5));
+        underTest.offer(nodeOf("/top.html", 3L, 4));
+        underTest.offer(nodeOf("/unknown.html", 4L, 1));
+
+        MatcherAssert.assertThat(takeAll(underTest), Matchers.contains(3L, 4L, 2L, 1L));
+    }
+
+    @Test
+    void should_deliver_every_node_once_to_concurrent_consumers() {
+        int producers = 4;
+        int nodesPerProducer = 50_000;
+        Map<String, Supplier<BlockingQueue<CrawledNode>>> frontiers = Map.of(
+                "fifo", () -> Frontier.of(FrontierType.FIFO, NodeScorer.byDepth(), URLS),
+                "level", () -> Frontier.of(FrontierType.LEVEL, NodeScorer.byDepth(), URLS),
+                "best first", () -> Frontier.of(FrontierType.BEST_FIRST, NodeScorer.byDepth(), URLS),
+                "spill", () -> Frontier.of(FrontierType.SPILL, NodeScorer.byDepth(), URLS, 1_000, "", 1),
+                "ring", () -> Frontier.of(FrontierType.RING, NodeScorer.byDepth(), URLS, 1 << 20, "", 1),
+                "priority blocking queue", () -> new PriorityBlockingQueue<>(11,
+                        (a, b) -> Integer.compare(a.level, b.level)));
+        frontiers.forEach((name, frontier) -> {
+            BlockingQueue<CrawledNode> queue = frontier.get();
+            long elapsed = exchange(queue, producers, nodesPerProducer);
+            logger.info(String.format("%s: %d producers and consumers, %.1f ns/node", name, producers,
+                    (double) elapsed / (producers * nodesPerProducer)));
+            if (queue instanceof Frontier) {
+                ((Frontier) queue).close();
+            }
+        });
+    }
+
+    /**
+     * The crawler runs 80% of the workers as consumers, a producer publishes the children of a page at once.
+     */
+    @Test
+    @Tag("benchmark")
+    void should_measure_batched_ring_against_linked_blocking_queue() {
+        int consumers = 8;
+        int producers = 2;
+        int pages = 20_000;
+        int childrenPerPage = 20;
+        for (int round = 0; round < 2; round++) { // the first round warms up
+            long linked = exchangeBatches(new LinkedBlockingQueue<>(), producers, consumers, pages, childrenPerPage, 1);
+            long ring = exchangeBatches(new RingFrontier(1 << 16), producers, consumers, pages, childrenPerPage, 1);
+            long batchedRing = exchangeBatches(new RingFrontier(1 << 16), producers, consumers, pages,
+                    childrenPerPage, 16);
+            int nodes = pages * childrenPerPage;
+            logger.info(String.format("%d producers, %d consumers, linked blocking queue: %.1f ns/node, " +
+                            "ring: %.1f ns/node, ring taking batches of 16: %.1f ns/node", producers, consumers,
+                    (double) linked / nodes, (double) ring / nodes, (double) batchedRing / nodes));
+        }
+    }
+
+    private static long exchangeBatches(BlockingQueue<CrawledNode> frontier, int producers, int consumers, int pages,
+                                        int childrenPerPage, int batchSize) {
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        int nodes = pages * childrenPerPage;
+        AtomicInteger remaining = new AtomicInteger(nodes);
+        Set<Long> taken = ConcurrentHashMap.newKeySet();
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            tasks.add(CompletableFuture.runAsync(() -> {
+                for (int page = producer; page < pages; page += producers) {
+                    List<CrawledNode> children = new ArrayList<>(childrenPerPage);
+                    for (int i = 0; i < childrenPerPage; i++) {
+                        children.add(nodeOf("/p", (long) page * childrenPerPage + i, 1));
+                    }
+                    while (!children.isEmpty()) {
+                        children = children.subList(Frontier.offerAll(frontier, children), children.size());
+                        Thread.yield();
+                    }
+                }
+            }, executor));
+        }
+        for (int c = 0; c < consumers; c++) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                List<CrawledNode> batch = new ArrayList<>(batchSize);
+                try {
+                    while (true) {
+                        batch.clear();
+                        Frontier.takeBatch(frontier, batch, batchSize);
+                        for (CrawledNode node : batch) {
+                            if (node.id == CrawlerApp.POISON_PILL_ID) {
+                                return;
+                            }
+                            taken.add(node.id);
+                            if (remaining.decrementAndGet() == 0) {
+                                for (int i = 0; i < consumers; i++) {
+                                    frontier.offer(CrawlerApp.POISON_PILL);
+                                }
+                            }
+                        }
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        MatcherAssert.assertThat(taken.size(), Matchers.is(nodes));
+        return elapsed;
+    }
+
+    private static long exchange(BlockingQueue<CrawledNode> frontier, int producers, int nodesPerProducer) {
+        ExecutorService executor = Executors.newFixedThreadPool(producers * 2);
+        Set<Long> taken = ConcurrentHashMap.newKeySet();
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> tasks = IntStream.range(0, producers).boxed().flatMap(p -> List.of(
+                CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < nodesPerProducer; i++) {
+                        frontier.offer(nodeOf("/p", (long) p * nodesPerProducer + i, i % 7));
+                    }
+                }, executor),
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        for (int i = 0; i < nodesPerProducer; i++) {
+                            taken.add(frontier.take().id);
+                        }
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, executor)).stream()).collect(Collectors.toList());
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        MatcherAssert.assertThat(taken.size(), Matchers.is(producers * nodesPerProducer));
+        MatcherAssert.assertThat(frontier.isEmpty(), Matchers.is(true));
+        return elapsed;
+    }
+}
@@ -0,0 +1,79 @@
+package com.acabra.jwebcrawler.control;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HostPolitenessSchedulerTest {
+
+    private HostPolitenessScheduler underTest;
+
+    @BeforeEach
+    public void setup() {
+        underTest = new HostPolitenessScheduler(500L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    public void should_reserve_next_slots_of_same_host() {
+        MatcherAssert.assertThat(underTest.reserve(1L, "http://mysite.com/a.html"), Matchers.is(0L));
+        MatcherAssert.assertThat(underTest.reserve(2L, "http://mysite.com/b.html"),
+                Matchers.allOf(Matchers.greaterThan(300L), Matchers.lessThanOrEqualTo(500L)));
+        MatcherAssert.assertThat(underTest.reserve(3L, "http://mysite.com/c.html"),
+                Matchers.allOf(Matchers.greaterThan(800L), Matchers.lessThanOrEqualTo(1000L)));
+    }
+
+    @Test
+    public void should_not_delay_other_hosts() {
+        MatcherAssert.assertThat(underTest.reserve(1L, "http://mysite.com/a.html"), Matchers.is(0L));
+        MatcherAssert.assertThat(underTest.reserve(2L, "http://othersite.com/a.html"), Matchers.is(0L));
+        MatcherAssert.assertThat(underTest.reserve(3L, "http://mysite.com:8080/a.html"), Matchers.is(0L));
+    }
+
+    @Test
+    public void should_not_delay_node_owning_a_slot() {
+        underTest.reserve(1L, "http://mysite.com/a.html");
+        MatcherAssert.assertThat(underTest.reserve(2L, "http://mysite.com/b.html"), Matchers.greaterThan(0L));
+        MatcherAssert.assertThat(underTest.reserve(2L, "http://mysite.com/b.html"), Matchers.is(0L));
+    }
+
+    @Test
+    public void should_not_delay_without_minimum_delay() {
+        HostPolitenessScheduler noDelay = new HostPolitenessScheduler(0L);
+        MatcherAssert.assertThat(noDelay.reserve(1L, "http://mysite.com/a.html"), Matchers.is(0L));
+        MatcherAssert.assertThat(noDelay.reserve(2L, "http://mysite.com/a.html"), Matchers.is(0L));
+        noDelay.shutdown();
+    }
+
+    @Test
+    public void should_delay_host_asked_to_back_off() {
+        HostPolitenessScheduler noDelay = new HostPolitenessScheduler(0L);
+        noDelay.delayHost("http://mysite.com/a.html", 1000L);
+        MatcherAssert.assertThat(noDelay.reserve(1L, "http://mysite.com/b.html"),
+                Matchers.allOf(Matchers.greaterThan(800L), Matchers.lessThanOrEqualTo(1000L)));
+        MatcherAssert.assertThat(noDelay.reserve(2L, "http://othersite.com/a.html"), Matchers.is(0L));
+        noDelay.shutdown();
+    }
+
+    @Test
+    public void should_run_scheduled_tasks() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        underTest.schedule(latch::countDown, 50L);
+        MatcherAssert.assertThat(latch.await(1, TimeUnit.SECONDS), Matchers.is(true));
+    }
+
+    @Test
+    public void should_extract_host() {
+        MatcherAssert.assertThat(HostPolitenessScheduler.hostOf("http://mysite.com/a/b.html"), Matchers.is("mysite.com"));
+        MatcherAssert.assertThat(HostPolitenessScheduler.hostOf("https://mysite.com:80"), Matchers.is("mysite.com:80"));
+        MatcherAssert.assertThat(HostPolitenessScheduler.hostOf("mysite.com/a"), Matchers.is("mysite.com"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.acabra.jwebcrawler.control;
+
+import com.acabra.jwebcrawler.model.StageMetrics;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+class StageMonitorTest {
+
+    @Test
+    void should_sample_the_depth_of_every_stage_and_keep_the_peaks() throws InterruptedException {
+        ThreadPoolExecutor parseExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        CrawlerCoordinator coordinator = new CrawlerCoordinator(parseExecutor);
+        StageMonitor underTest = new StageMonitor(coordinator, parseExecutor);
+        coordinator.reportEnqueued();
+        coordinator.reportEnqueued();
+        coordinator.reportEnqueued();
+        coordinator.reportFetchStarted();
+
+        CountDownLatch parsing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        parseExecutor.execute(() -> {
+            parsing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        parseExecutor.execute(() -> {});
+        parseExecutor.execute(() -> {});
+        parsing.await();
+
+        StageMetrics metrics = underTest.sample();
+        MatcherAssert.assertThat(metrics.queued, Matchers.is(2));
+        MatcherAssert.assertThat(metrics.fetching, Matchers.is(1));
+        MatcherAssert.assertThat(metrics.waitingToParse, Matchers.is(2));
+        MatcherAssert.assertThat(metrics.parsing, Matchers.is(1));
+        MatcherAssert.assertThat(metrics.pendingBodyBytes, Matchers.is(0L));
+
+        release.countDown();
+        parseExecutor.shutdown();
+        parseExecutor.awaitTermination(1L, TimeUnit.SECONDS);
+        coordinator.reportFetchStarted();
+        coordinator.reportFetchStarted();
+
+        metrics = underTest.sample();
+        MatcherAssert.assertThat(metrics.waitingToParse, Matchers.is(0));
+        MatcherAssert.assertThat(metrics.fetching, Matchers.is(3));
+        StageMetrics peaks = underTest.getPeaks();
+        MatcherAssert.assertThat(peaks.queued, Matchers.is(2));
+        MatcherAssert.assertThat(peaks.fetching, Matchers.is(3));
+        MatcherAssert.assertThat(peaks.waitingToParse, Matchers.is(2));
+        MatcherAssert.assertThat(peaks.parsing, Matchers.is(1));
+    }
+}
@@ -1,22 +1,36 @@
 package com.acabra.jwebcrawler.control;
 
+import com.acabra.jwebcrawler.model.CrawlGraph;
+import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.UrlArena;
 import com.acabra.jwebcrawler.view.FileWriterAppender;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import javax.net.ssl.SSLSession;
 
 public class TestUtils {
@@ -63,6 +77,13 @@ public class TestUtils {
         return buildHttpResponse("", "", 404, Map.of("content-type", List.of("text/html")));
     }
 
+    static HttpResponse<String> throttledHTMLResponse(String retryAfter) {
+        return buildHttpResponse("", "", 429, Map.of(
+                "content-type", List.of("text/html"),
+                "Retry-After", List.of(retryAfter)
+        ));
+    }
+
     static HttpResponse<String> successHTMLResponseOf(String body) {
         return buildHttpResponse("", body, 200, Map.of("content-type", List.of("text/html")));
     }
@@ -144,4 +165,94 @@ public class TestUtils {
     public static <T> CompletableFuture<HttpResponse<T>> getFutureResponse() {
         return null;
     }
+
+    /**
+     * Starts a local http server in a random port, the root page links to the given amount of pages, every
+     * response is delayed by the given latency.
+     */
+    public static HttpServer startLatencyServer(long latencyMillis, int totalPages) throws IOException {
+        return startLatencyServer(latencyMillis, totalPages, new AtomicInteger(), new AtomicInteger());
+    }
+
+    /**
+     * Same as {@link #startLatencyServer(long, int)}, keeping the requests being served and the most of them served
+     * at once.
+     */
+    public static HttpServer startLatencyServer(long latencyMillis, int totalPages, AtomicInteger inFlight,
+                                                AtomicInteger maxInFlight) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        String rootPage = IntStream.range(0, totalPages)
+                .mapToObj(i -> String.format("<a href=\"/p%d.html\">p%d</a>", i, i))
+                .collect(Collectors.joining("\n", "<html><body>\n", "\n</body></html>"));
+        server.createContext("/", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            writeHtml(exchange, "/".equals(path) ? rootPage : "<html><body>" + path + "</body></html>");
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    /**
+     * Starts a local http server in a random port serving the given pages by path, ignoring the query, every
+     * request received is counted.
+     */
+    public static HttpServer startSiteServer(Map<String, String> pages, AtomicInteger requests) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String page = pages.get(exchange.getRequestURI().getPath());
+            if (null == page) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            writeHtml(exchange, page);
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    /**
+     * Builds a graph of one site in its own arena: every page links from a random earlier page, one in ten
+     * answered 404.
+     */
+    public static CrawlGraph.View randomGraph(Random random, int count) {
+        UrlArena urls = new UrlArena();
+        CrawlGraph graph = new CrawlGraph(urls);
+        int[] levels = new int[count];
+        graph.add(new CrawledNode(urls, "http://mysite.com/", 0, 0, CrawledNode.ROOT_NODE_PARENT_ID));
+        for (int id = 1; id < count; id++) {
+            int parent = random.nextInt(id);
+            levels[id] = levels[parent] + 1;
+            String url = "http://mysite.com/section-" + random.nextInt(50) + "/page-" + id + ".html";
+            graph.add(new CrawledNode(urls, url, id, levels[id], parent));
+            graph.setStatus(id, random.nextInt(10) == 0 ? 404 : 200);
+        }
+        return graph.sortedView();
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread
+     */
+    public static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static void writeHtml(HttpExchange exchange, String html) throws IOException {
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
 }
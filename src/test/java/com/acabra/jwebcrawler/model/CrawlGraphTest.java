@@ -0,0 +1,184 @@
+package com.acabra.jwebcrawler.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class CrawlGraphTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlGraphTest.class);
+
+    /**
+     * @return nodes of a random tree, every node after the first under one of the nodes before it
+     */
+    private static List<CrawledNode> randomTree(UrlArena urls, Random random, int count) {
+        List<CrawledNode> nodes = new ArrayList<>(count);
+        nodes.add(new CrawledNode(urls, "http://mysite.com/", 0, 0, CrawledNode.ROOT_NODE_PARENT_ID));
+        for (int id = 1; id < count; id++) {
+            CrawledNode parent = nodes.get(random.nextInt(id));
+            String url = "http://mysite.com/section-" + random.nextInt(50) + "/page-" + id + ".html";
+            nodes.add(new CrawledNode(urls, url, id, parent.level + 1, parent.id));
+        }
+        return nodes;
+    }
+
+    private static List<String> childUrls(CrawlGraph.View view, long parentId) {
+        List<String> urls = new ArrayList<>();
+        for (int child = view.firstChild(parentId); child != CrawlGraph.NONE; child = view.nextSibling(child)) {
+            urls.add(view.url(child));
+        }
+        return urls;
+    }
+
+    @Test
+    void should_sort_the_children_of_every_page_in_descending_order() {
+        UrlArena urls = new UrlArena();
+        CrawlGraph underTest = new CrawlGraph(urls);
+        underTest.add(new CrawledNode(urls, "http://mysite.com/b.html", 5, 1, 0));
+        underTest.add(new CrawledNode(urls, "http://mysite.com/", 0, 0, CrawledNode.ROOT_NODE_PARENT_ID));
+        underTest.add(new CrawledNode(urls, "http://mysite.com/a.html", 2, 1, 0));
+        underTest.add(new CrawledNode(urls, "http://mysite.com/c/", 1, 1, 0));
+        underTest.add(new CrawledNode(urls, "http://mysite.com/c/x.html", 3, 2, 1));
+        underTest.add(new CrawledNode(urls, "http://redirected.com/", 4, 0, CrawledNode.ROOT_NODE_PARENT_ID));
+
+        CrawlGraph.View view = underTest.sortedView();
+
+        MatcherAssert.assertThat(childUrls(view, CrawledNode.ROOT_NODE_PARENT_ID),
+                Matchers.contains("http://redirected.com/", "http://mysite.com/"));
+        MatcherAssert.assertThat(childUrls(view, 0),
+                Matchers.contains("http://mysite.com/c/", "http://mysite.com/b.html", "http://mysite.com/a.html"));
+        MatcherAssert.assertThat(childUrls(view, 1), Matchers.contains("http://mysite.com/c/x.html"));
+        MatcherAssert.assertThat(view.firstChild(3), Matchers.is(CrawlGraph.NONE));
+        MatcherAssert.assertThat(view.firstChild(100), Matchers.is(CrawlGraph.NONE));
+        MatcherAssert.assertThat(view.nodes(), Matchers.is(6));
+        MatcherAssert.assertThat(view.parents(), Matchers.is(3));
+        MatcherAssert.assertThat(view.node(3), Matchers.is(new CrawledNode(urls, "http://mysite.com/c/x.html",
+                3, 2, 1)));
+        MatcherAssert.assertThat(view.level(3), Matchers.is(2));
+        MatcherAssert.assertThat(view.parentId(3), Matchers.is(1L));
+        MatcherAssert.assertThat(underTest.sortedView(), Matchers.sameInstance(view));
+    }
+
+    @Test
+    void should_ignore_nodes_added_twice_or_once_sorted() {
+        UrlArena urls = new UrlArena();
+        CrawlGraph underTest = new CrawlGraph(urls);
+        CrawledNode root = new CrawledNode(urls, "http://mysite.com/", 0, 0, CrawledNode.ROOT_NODE_PARENT_ID);
+
+        MatcherAssert.assertThat(underTest.add(root), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.add(root), Matchers.is(false));
+        CrawlGraph.View view = underTest.sortedView();
+        MatcherAssert.assertThat(underTest.add(new CrawledNode(urls, "http://mysite.com/a", 1, 1, 0)),
+                Matchers.is(false));
+
+        MatcherAssert.assertThat(view.nodes(), Matchers.is(1));
+        MatcherAssert.assertThat(view.contains(1), Matchers.is(false));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> underTest.add(new CrawledNode(urls, 0, -5, 0, 0)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> underTest.add(new CrawledNode(new UrlArena(), "http://mysite.com/b", 2, 1, 0)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> view.level(-5));
+    }
+
+    @Test
+    void should_keep_the_last_status_of_the_nodes_added() {
+        UrlArena urls = new UrlArena();
+        CrawlGraph underTest = new CrawlGraph(urls);
+        underTest.add(new CrawledNode(urls, "http://mysite.com/", 0, 0, CrawledNode.ROOT_NODE_PARENT_ID));
+        underTest.add(new CrawledNode(urls, "http://mysite.com/a", 2, 1, 0));
+
+        MatcherAssert.assertThat(underTest.setStatus(0, 429), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.setStatus(0, 200), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.setStatus(1, 200), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.setStatus(7, 200), Matchers.is(false));
+        CrawlGraph.View view = underTest.sortedView();
+        MatcherAssert.assertThat(underTest.setStatus(2, 404), Matchers.is(false));
+
+        MatcherAssert.assertThat(view.status(0), Matchers.is(200));
+        MatcherAssert.assertThat(view.status(2), Matchers.is(0));
+    }
+
+    @Test
+    void should_link_every_node_added_concurrently() {
+        UrlArena urls = new UrlArena();
+        List<CrawledNode> nodes = randomTree(urls, new Random(13L), 200_000);
+        List<CrawledNode> shuffled = new ArrayList<>(nodes);
+        Collections.shuffle(shuffled, new Random(17L));
+        CrawlGraph underTest = new CrawlGraph(urls);
+        int threads = 4;
+
+        List<CompletableFuture<Long>> added = IntStream.range(0, threads)
+                .mapToObj(t -> CompletableFuture.supplyAsync(() -> IntStream.range(0, shuffled.size())
+                        .filter(i -> i % threads == t)
+                        .filter(i -> underTest.add(shuffled.get(i)))
+                        .count()))
+                .collect(Collectors.toList());
+        long total = added.stream().mapToLong(CompletableFuture::join).sum();
+        CrawlGraph.View view = underTest.sortedView();
+
+        MatcherAssert.assertThat(total, Matchers.is((long) nodes.size()));
+        MatcherAssert.assertThat(view.nodes(), Matchers.is(nodes.size()));
+        Map<Long, Long> expectedChildren = nodes.stream()
+                .collect(Collectors.groupingBy(node -> node.parentId, Collectors.counting()));
+        MatcherAssert.assertThat(view.parents(), Matchers.is(expectedChildren.size()));
+        for (CrawledNode node : nodes) {
+            MatcherAssert.assertThat(view.node((int) node.id), Matchers.is(node));
+            List<String> children = childUrls(view, node.id);
+            MatcherAssert.assertThat((long) children.size(), Matchers.is(expectedChildren.getOrDefault(node.id, 0L)));
+            List<String> sorted = new ArrayList<>(children);
+            sorted.sort(Collections.reverseOrder());
+            MatcherAssert.assertThat(children, Matchers.is(sorted));
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void should_measure_the_graph_against_a_map_of_sets() {
+        UrlArena urls = new UrlArena();
+        List<CrawledNode> nodes = randomTree(urls, new Random(19L), 1_000_000);
+
+        long start = System.nanoTime();
+        Map<Long, Set<CrawledNode>> map = new ConcurrentHashMap<>();
+        nodes.parallelStream().forEach(node -> map.computeIfAbsent(node.parentId,
+                key -> ConcurrentHashMap.newKeySet()).add(node));
+        long mapAdded = System.nanoTime();
+        Map<Long, PriorityQueue<CrawledNode>> copy = new HashMap<>();
+        map.forEach((key, value) -> {
+            PriorityQueue<CrawledNode> children = new PriorityQueue<>(
+                    (n1, n2) -> urls.url(n2.urlId).compareTo(urls.url(n1.urlId)));
+            children.addAll(value);
+            copy.put(key, children);
+        });
+        long mapSorted = System.nanoTime();
+
+        CrawlGraph underTest = new CrawlGraph(urls);
+        nodes.parallelStream().forEach(underTest::add);
+        long graphAdded = System.nanoTime();
+        CrawlGraph.View view = underTest.sortedView();
+        long graphSorted = System.nanoTime();
+
+        logger.info(String.format("%d nodes, map of sets: %d ms to add, %d ms to copy sorted; "
+                        + "graph: %d ms to add, %d ms to sort in place", nodes.size(),
+                (mapAdded - start) / 1_000_000, (mapSorted - mapAdded) / 1_000_000,
+                (graphAdded - mapSorted) / 1_000_000,
+                (graphSorted - graphAdded) / 1_000_000));
+        MatcherAssert.assertThat(view.nodes(), Matchers.is(nodes.size()));
+        MatcherAssert.assertThat(view.parents(), Matchers.is(copy.size()));
+    }
+}
@@ -0,0 +1,133 @@
+package com.acabra.jwebcrawler.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class UrlArenaTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlArenaTest.class);
+
+    private static List<String> siteUrls(Random random, int count) {
+        String[] directories = {"docs/", "blog/2020/", "blog/2021/", "products/", "café/", "a/b/c/d/"};
+        List<String> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            urls.add("http://mysite.com/" + directories[random.nextInt(directories.length)] + "page-" + i + ".html"
+                    + (random.nextInt(4) == 0 ? "?q=" + i + "&path=/x/y" : ""));
+        }
+        return urls;
+    }
+
+    @Test
+    void should_read_back_every_url_interned() {
+        UrlArena underTest = new UrlArena();
+        List<String> urls = new ArrayList<>(siteUrls(new Random(3L), 5_000));
+        urls.addAll(List.of("", "otherPage", "http://mysite.com", "http://mysite.com/", "https://mysite.com/",
+                "http://mysite.com//double//slash/", "mailto:someone@mysite.com", "/relative/path",
+                "http://mysite.com/" + "long/".repeat(2_000) + "x".repeat(10_000)));
+
+        List<Integer> ids = urls.stream().map(underTest::intern).collect(Collectors.toList());
+
+        for (int i = 0; i < urls.size(); i++) {
+            MatcherAssert.assertThat(underTest.url(ids.get(i)), Matchers.is(urls.get(i)));
+            MatcherAssert.assertThat(underTest.intern(urls.get(i)), Matchers.is(ids.get(i)));
+        }
+        MatcherAssert.assertThat(ids.stream().distinct().count(), Matchers.is((long) urls.size()));
+    }
+
+    @Test
+    void should_intern_an_empty_url_first() {
+        UrlArena underTest = new UrlArena();
+        int empty = underTest.intern("");
+
+        MatcherAssert.assertThat(underTest.url(empty), Matchers.is(""));
+        int site = underTest.intern("http://mysite.com/");
+        MatcherAssert.assertThat(underTest.url(site), Matchers.is("http://mysite.com/"));
+    }
+
+    @Test
+    void should_store_shared_prefixes_once() {
+        UrlArena underTest = new UrlArena();
+        int first = underTest.intern("http://mysite.com/docs/a.html");
+        long stored = underTest.getStoredBytes();
+
+        underTest.intern("http://mysite.com/docs/b.html");
+
+        MatcherAssert.assertThat(underTest.getStoredBytes() - stored, Matchers.is((long) "b.html".length()));
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(4));
+        MatcherAssert.assertThat(underTest.intern("http://mysite.com/docs/a.html"), Matchers.is(first));
+    }
+
+    @Test
+    void should_reject_unknown_ids() {
+        UrlArena underTest = new UrlArena();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> underTest.url(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> underTest.url(-1));
+    }
+
+    @Test
+    void should_give_the_same_id_to_urls_interned_concurrently() {
+        UrlArena underTest = new UrlArena();
+        List<String> urls = siteUrls(new Random(5L), 20_000);
+        List<CompletableFuture<List<Integer>>> threads = IntStream.range(0, 4)
+                .mapToObj(t -> CompletableFuture.supplyAsync(() -> urls.stream().map(url -> {
+                    int id = underTest.intern(url);
+                    Assertions.assertEquals(url, underTest.url(id));
+                    return id;
+                }).collect(Collectors.toList())))
+                .collect(Collectors.toList());
+
+        List<Integer> ids = threads.get(0).join();
+        threads.forEach(thread -> MatcherAssert.assertThat(thread.join(), Matchers.is(ids)));
+    }
+
+    @Test
+    void should_compare_urls_in_the_order_of_their_bytes() {
+        UrlArena underTest = new UrlArena();
+        List<String> urls = new ArrayList<>(siteUrls(new Random(11L), 300));
+        urls.addAll(List.of("http://mysite.com", "http://mysite.com/", "http://mysite.com/docs",
+                "http://mysite.com/docs/", "http://mysite.com/docs/a", "http://mysite.com/docs/ab",
+                "http://mysite.com/docs/a/b",
+                "http://mysite.com/é.html", "http://mysite.com/z.html", "https://mysite.com/", "http://mysite.co",
+                "http://mysite.com/" + "x".repeat(5_000), "http://mysite.com/" + "x".repeat(5_000) + "y"));
+        List<Integer> ids = urls.stream().map(underTest::intern).collect(Collectors.toList());
+
+        for (int i = 0; i < urls.size(); i++) {
+            for (int j = 0; j < urls.size(); j++) {
+                int expected = Integer.signum(Arrays.compareUnsigned(urls.get(i).getBytes(StandardCharsets.UTF_8),
+                        urls.get(j).getBytes(StandardCharsets.UTF_8)));
+                MatcherAssert.assertThat(urls.get(i) + " vs " + urls.get(j),
+                        Integer.signum(underTest.compare(ids.get(i), ids.get(j))), Matchers.is(expected));
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> underTest.compare(0, underTest.size()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void should_measure_the_arena_against_strings() {
+        UrlArena underTest = new UrlArena();
+        List<String> urls = siteUrls(new Random(7L), 500_000);
+        long start = System.nanoTime();
+        urls.forEach(underTest::intern);
+        long elapsed = System.nanoTime() - start;
+        long stringBytes = urls.stream().mapToLong(url -> 40L + url.length()).sum(); // String, its array, latin-1
+        // per entry an int of parent, a long of location and two int slots of the table at most half full
+        long arenaBytes = underTest.getStoredBytes() + underTest.size() * (4L + 8L + 2 * 4L);
+        logger.info(String.format("%d urls, strings: %d bytes/url, arena: %d bytes/url, %.0f ns/intern",
+                urls.size(), stringBytes / urls.size(), arenaBytes / urls.size(), (double) elapsed / urls.size()));
+        MatcherAssert.assertThat(arenaBytes, Matchers.lessThan(stringBytes));
+    }
+}
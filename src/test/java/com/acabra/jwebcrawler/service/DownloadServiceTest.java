@@ -1,5 +1,8 @@
 package com.acabra.jwebcrawler.service;
 
+import com.acabra.jwebcrawler.control.TestUtils;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
 import java.net.http.HttpResponse;
 import java.util.concurrent.ExecutionException;
 import org.hamcrest.MatcherAssert;
@@ -25,4 +28,19 @@ class DownloadServiceTest {
 
         MatcherAssert.assertThat(underTest.download(siteURI).get(), Matchers.nullValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void warm_up_should_not_block_creation() throws IOException, ExecutionException, InterruptedException {
+        HttpServer server = TestUtils.startLatencyServer(1000L, 1);
+        try {
+            String siteURI = "http://localhost:" + server.getAddress().getPort() + "/";
+            long start = System.currentTimeMillis();
+            underTest = DownloadService.of(siteURI);
+
+            MatcherAssert.assertThat(System.currentTimeMillis() - start, Matchers.lessThan(900L));
+            MatcherAssert.assertThat(underTest.download(siteURI + "p0.html").get().statusCode(), Matchers.is(200));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.acabra.jwebcrawler.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HtmlBodyHandlerTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int TOTAL_CHUNKS = 40;
+    private final AtomicInteger chunksWritten = new AtomicInteger();
+    private HttpServer server;
+    private String siteURI;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/page.html", exchange ->
+                write(exchange, 200, "text/html; charset=utf-8", "<html><body>café</body></html>"));
+        server.createContext("/missing.html", exchange ->
+                write(exchange, 404, "text/html", "<html><body>not found</body></html>"));
+        server.createContext("/big.html", exchange -> trickle(exchange, "text/html"));
+        server.createContext("/video.mp4", exchange -> trickle(exchange, "video/mp4"));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        siteURI = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static void write(HttpExchange exchange, int statusCode, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Writes a large body of unknown length slowly, counting the chunks the client accepted.
+     */
+    private void trickle(HttpExchange exchange, String contentType) {
+        byte[] chunk = "x".repeat(CHUNK_SIZE).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        try (OutputStream os = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, 0);
+            for (int i = 0; i < TOTAL_CHUNKS; i++) {
+                os.write(chunk);
+                os.flush();
+                chunksWritten.incrementAndGet();
+                Thread.sleep(50L);
+            }
+        } catch (InterruptedException | IOException e) {
+            // the client closed the connection
+        }
+    }
+
+    private HttpResponse<String> download(String path, long maxBodyBytes)
+            throws ExecutionException, InterruptedException {
+        return DownloadService.of(siteURI, maxBodyBytes).download(siteURI + path).get();
+    }
+
+    @Test
+    void should_read_html_pages_with_their_charset() throws ExecutionException, InterruptedException {
+        HttpResponse<String> response = download("/page.html", 0L);
+
+        MatcherAssert.assertThat(response.statusCode(), Matchers.is(200));
+        MatcherAssert.assertThat(response.body(), Matchers.is("<html><body>café</body></html>"));
+    }
+
+    @Test
+    void should_discard_bodies_of_failed_pages() throws ExecutionException, InterruptedException {
+        HttpResponse<String> response = download("/missing.html", 0L);
+
+        MatcherAssert.assertThat(response.statusCode(), Matchers.is(404));
+        MatcherAssert.assertThat(response.body(), Matchers.is(""));
+    }
+
+    @Test
+    void should_abort_downloads_that_are_not_html() throws ExecutionException, InterruptedException {
+        long start = System.currentTimeMillis();
+        HttpResponse<String> response = download("/video.mp4", 0L);
+
+        MatcherAssert.assertThat(System.currentTimeMillis() - start, Matchers.lessThan(1000L));
+        MatcherAssert.assertThat(response.body(), Matchers.is(""));
+    }
+
+    @Test
+    void should_truncate_pages_larger_than_the_limit() throws ExecutionException, InterruptedException {
+        long maxBodyBytes = 3 * CHUNK_SIZE + 10;
+        long start = System.currentTimeMillis();
+        HttpResponse<String> response = download("/big.html", maxBodyBytes);
+
+        MatcherAssert.assertThat(System.currentTimeMillis() - start, Matchers.lessThan(1000L));
+        MatcherAssert.assertThat((long) response.body().length(), Matchers.is(maxBodyBytes));
+    }
+
+    @Test
+    void should_read_the_charset_of_the_content_type() {
+        MatcherAssert.assertThat(HtmlBodyHandler.charsetOf("text/html; charset=\"ISO-8859-1\""),
+                Matchers.is(StandardCharsets.ISO_8859_1));
+        MatcherAssert.assertThat(HtmlBodyHandler.charsetOf("text/html; charset=unknown-42"),
+                Matchers.is(StandardCharsets.UTF_8));
+        MatcherAssert.assertThat(HtmlBodyHandler.charsetOf("text/html"), Matchers.is(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.acabra.jwebcrawler.service;
+
+import com.acabra.jwebcrawler.model.LinkExtractorType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class LinkExtractorTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LinkExtractorTest.class);
+    private static final String BASE_URI = "http://mysite.com/dir/page.html";
+    private final LinkExtractor jsoup = LinkExtractor.of(LinkExtractorType.JSOUP);
+    private final LinkExtractor scanner = LinkExtractor.of(LinkExtractorType.SCANNER);
+
+    private static final String[] FRAGMENTS = {
+            "<a href=\"/a.html\">a</a>",
+            "<A HREF='b.html'>b</A>",
+            "<a class=nav href=c.html?x=1&amp;y=2>c</a>",
+            "<a href = \" /spaced.html \" >s</a>",
+            "<a href=\"/one.html\" href=\"/two.html\">dup</a>",
+            "<a name=\"anchor\">no href</a>",
+            "<a href=\"\">empty</a>",
+            "<a href=\"#top\">fragment</a>",
+            "<a href=\"https://external.com/x\">external</a>",
+            "<a href=\"//mysite.com/protocol-relative\">pr</a>",
+            "<a href=\"?q=1\">query</a>",
+            "<a href=\"../up.html\">up</a>",
+            "<a title=\"x > y\" href=\"/gt.html\">gt</a>",
+            "<a href=\"/caf&#233;.html\">e</a>",
+            "<a href=\"/&#x41;&lt;&gt;.html\">hex</a>",
+            "<a data-href=\"/data.html\" hreflang=\"en\">data</a>",
+            "<abbr href=\"/abbr.html\">abbr</abbr>",
+            "<link href=\"/style.css\" rel=\"stylesheet\">",
+            "<area href=\"/area.html\">",
+            "<!-- <a href=\"/comment.html\">c</a> -->",
+            "<!-- a > b <a href=\"/comment2.html\"> -->",
+            "<!---->",
+            "<script>if (a < b) { document.write('<a href=\"/script.html\">s</a>'); }</script>",
+            "<SCRIPT type=\"text/javascript\">var s = \"</scr\" + \"ipt>\"; '<a href=\"/x\">';</SCRIPT >",
+            "<style>a[href=\"/style.html\"] { color: red; }</style>",
+            "<textarea><a href=\"/textarea.html\">t</a></textarea>",
+            "<title>a <a href=\"/title.html\"> title</title>",
+            "<![CDATA[ x ]]>",
+            "<?php echo 1 ?>",
+            "</div>",
+            "<div><p>some text with a < sign and &amp; entities</p></div>",
+            "<img src=\"/img.png\" alt='<a href=\"/alt.html\">'>",
+            "<a\nhref\n=\n\"/newlines.html\"\n>nl</a>",
+            "<a href=/unquoted.html>u</a>",
+            "<a/href=\"/slash.html\">sl</a>",
+            "<a href='/single \"quoted\".html'>sq</a>",
+            "<a href=\"mailto:someone@mysite.com\">mail</a>",
+            "<a href=\"javascript:void(0)\">js</a>",
+            "<ul><li><a href=\"/list/item.html\">item</a></li></ul>",
+    };
+
+    private static String getResourceAsText(String fileName) throws IOException {
+        try (InputStream is = LinkExtractorTest.class.getClassLoader().getResourceAsStream(fileName)) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String randomPage(Random random, int fragments) {
+        StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html><head>");
+        if (random.nextInt(4) == 0) {
+            sb.append("<base href=\"").append(random.nextBoolean() ? "/other/" : "http://mysite.com/b/").append("\">");
+        }
+        sb.append("</head><body>\n");
+        for (int i = 0; i < fragments; i++) {
+            sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]).append(random.nextBoolean() ? "\n" : "");
+        }
+        return sb.append("</body></html>").toString();
+    }
+
+    @Test
+    void should_find_the_same_links_as_jsoup_in_every_fragment() {
+        for (String fragment : FRAGMENTS) {
+            String html = "<html><body>" + fragment + "</body></html>";
+            MatcherAssert.assertThat(fragment, scanner.extractLinks(html, BASE_URI),
+                    Matchers.is(jsoup.extractLinks(html, BASE_URI)));
+        }
+    }
+
+    @Test
+    void should_find_the_same_links_as_jsoup_in_random_pages() {
+        Random random = new Random(42L);
+        for (int i = 0; i < 500; i++) {
+            String html = randomPage(random, 1 + random.nextInt(40));
+            MatcherAssert.assertThat(html, scanner.extractLinks(html, BASE_URI),
+                    Matchers.is(jsoup.extractLinks(html, BASE_URI)));
+        }
+    }
+
+    @Test
+    void should_find_the_same_links_as_jsoup_in_the_site_pages() throws IOException {
+        for (String page : List.of("index.html", "mysite.html", "a2.html", "a5.html", "a8.html")) {
+            String html = getResourceAsText("site/" + page);
+            MatcherAssert.assertThat(page, scanner.extractLinks(html, BASE_URI),
+                    Matchers.is(jsoup.extractLinks(html, BASE_URI)));
+        }
+    }
+
+    @Test
+    void should_resolve_every_link_against_the_first_base() {
+        String html = "<a href=\"before.html\">b</a><base href=\"/first/\"><base href=\"/second/\">" +
+                "<a href=\"after.html\">a</a>";
+        List<String> expected = List.of("http://mysite.com/first/before.html", "http://mysite.com/first/after.html");
+
+        MatcherAssert.assertThat(scanner.extractLinks(html, BASE_URI), Matchers.is(expected));
+        MatcherAssert.assertThat(jsoup.extractLinks(html, BASE_URI), Matchers.is(expected));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void should_measure_the_scanner_against_jsoup() {
+        Random random = new Random(7L);
+        String small = randomPage(random, 10);
+        String typical = randomPage(random, 1_000);
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 5 * 1024 * 1024) {
+            large.append(randomPage(random, 1_000));
+        }
+        for (String html : List.of(small, typical, large.toString())) {
+            int rounds = Math.max(2, 2_000_000 / html.length());
+            long jsoupNanos = time(rounds, html, jsoup);
+            long scannerNanos = time(rounds, html, scanner);
+            logger.info(String.format("page of %d KB, jsoup: %.3f ms/page, scanner: %.3f ms/page (%.1fx)",
+                    html.length() / 1024, jsoupNanos / 1e6 / rounds, scannerNanos / 1e6 / rounds,
+                    (double) jsoupNanos / scannerNanos));
+            MatcherAssert.assertThat(scanner.extractLinks(html, BASE_URI), Matchers.is(jsoup.extractLinks(html, BASE_URI)));
+        }
+    }
+
+    private static long time(int rounds, String html, LinkExtractor extractor) {
+        int sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += extractor.extractLinks(html, BASE_URI).size(); // warm up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += extractor.extractLinks(html, BASE_URI).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        MatcherAssert.assertThat(sink, Matchers.greaterThan(0));
+        return elapsed;
+    }
+}
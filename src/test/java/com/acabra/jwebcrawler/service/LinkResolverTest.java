@@ -0,0 +1,23 @@
+package com.acabra.jwebcrawler.service;
+
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+class LinkResolverTest {
+
+    @Test
+    void should_resolve_the_links_as_the_parsed_document_does() {
+        List<String> bases = List.of("http://mysite.com", "http://mysite.com/a/b.html?x=1", "not a base");
+        List<String> hrefs = List.of("/c.html", "c.html", "../c.html", "./c.html", "?y=2", "#top",
+                "//cdn.mysite.com/d.js", "https://external.com/", "mailto:me@mysite.com", "bogus://x", "");
+        for (String base : bases) {
+            for (String href : hrefs) {
+                String expected = Jsoup.parse("<a href=\"" + href + "\">x</a>", base).selectFirst("a").attr("abs:href");
+                MatcherAssert.assertThat(base + " + " + href, LinkResolver.resolve(base, href), Matchers.is(expected));
+            }
+        }
+    }
+}
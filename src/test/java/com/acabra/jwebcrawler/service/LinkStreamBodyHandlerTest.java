@@ -0,0 +1,112 @@
+package com.acabra.jwebcrawler.service;
+
+import com.acabra.jwebcrawler.model.QueryParameterPolicy;
+import com.acabra.jwebcrawler.utils.UrlCanonicalizer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LinkStreamBodyHandlerTest {
+
+    private static final UrlCanonicalizer CANONICALIZER = new UrlCanonicalizer(QueryParameterPolicy.SORT, List.of());
+    private HttpServer server;
+    private String siteURI;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> writeChunks(exchange, "text/html; charset=utf-8",
+                "<html><body><a href=\"/a.html\">a</a><a href=\"https://external.com/\">e</a>",
+                "<a href=\"b.html?z=1&amp;a=2\">b</a><a href=\"/a.html\">a</a>"));
+        server.createContext("/slow.html", exchange -> {
+            // the links come first, the remainder of the page takes seconds to arrive
+            String links = IntStream.range(0, 5)
+                    .mapToObj(i -> String.format("<a href=\"/p%d.html\">p%d</a>", i, i))
+                    .collect(Collectors.joining());
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(links.getBytes(StandardCharsets.UTF_8));
+                os.flush();
+                for (int i = 0; i < 50; i++) {
+                    Thread.sleep(100L);
+                    os.write("<p>filler</p>".repeat(1000).getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                }
+            } catch (InterruptedException | IOException e) {
+                // the client closed the connection
+            }
+        });
+        server.createContext("/doc.pdf", exchange -> writeChunks(exchange, "application/pdf",
+                "<a href=\"/never.html\">never</a>"));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        siteURI = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static void writeChunks(HttpExchange exchange, String contentType, String... chunks) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream os = exchange.getResponseBody()) {
+            for (String chunk : chunks) {
+                os.write(chunk.getBytes(StandardCharsets.UTF_8));
+                os.flush();
+            }
+        }
+    }
+
+    @Test
+    void should_reduce_the_page_to_its_canonical_site_links() throws ExecutionException, InterruptedException {
+        DownloadService<HttpResponse<String>> underTest = DownloadService.ofLinkStream(siteURI, CANONICALIZER,
+                link -> link.startsWith(siteURI), 0, 0L);
+
+        HttpResponse<String> response = underTest.download(siteURI + "/").get();
+
+        MatcherAssert.assertThat(response.statusCode(), Matchers.is(200));
+        MatcherAssert.assertThat(List.of(response.body().split(LinkStreamBodyHandler.LINE_SEPARATOR)),
+                Matchers.contains(siteURI + "/a.html", siteURI + "/b.html?a=2&z=1"));
+    }
+
+    @Test
+    void should_stop_the_download_once_enough_links_were_found() throws ExecutionException, InterruptedException {
+        DownloadService<HttpResponse<String>> underTest = DownloadService.ofLinkStream(siteURI, CANONICALIZER,
+                link -> link.startsWith(siteURI), 3, 0L);
+
+        long start = System.currentTimeMillis();
+        HttpResponse<String> response = underTest.download(siteURI + "/slow.html").get();
+
+        MatcherAssert.assertThat(System.currentTimeMillis() - start, Matchers.lessThan(2500L));
+        MatcherAssert.assertThat(List.of(response.body().split(LinkStreamBodyHandler.LINE_SEPARATOR)),
+                Matchers.contains(siteURI + "/p0.html", siteURI + "/p1.html", siteURI + "/p2.html"));
+    }
+
+    @Test
+    void should_discard_pages_that_are_not_html() throws ExecutionException, InterruptedException {
+        DownloadService<HttpResponse<String>> underTest = DownloadService.ofLinkStream(siteURI, CANONICALIZER,
+                link -> link.startsWith(siteURI), 0, 0L);
+
+        HttpResponse<String> response = underTest.download(siteURI + "/doc.pdf").get();
+
+        MatcherAssert.assertThat(response.statusCode(), Matchers.is(200));
+        MatcherAssert.assertThat(response.body(), Matchers.is(""));
+    }
+}
@@ -0,0 +1,54 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    private static final int EXPECTED = 100_000;
+
+    @Test
+    public void should_size_by_expected_insertions() {
+        BloomFilter underTest = new BloomFilter(EXPECTED, 0.01);
+        // about 9.6 bits and 7 hashes per url for 1% false positives
+        MatcherAssert.assertThat(underTest.sizeInBits(), Matchers.allOf(
+                Matchers.greaterThanOrEqualTo(958_506L), Matchers.lessThan(958_506L + Long.SIZE)));
+        MatcherAssert.assertThat(underTest.getTotalHashes(), Matchers.is(7));
+    }
+
+    @Test
+    public void should_never_miss_added_hashes_and_keep_false_positive_rate() {
+        BloomFilter underTest = new BloomFilter(EXPECTED, 0.01);
+        IntStream.range(0, EXPECTED).forEach(i -> underTest.put(FingerprintUrlSet.fingerprint("http://mysite.com/" + i)));
+
+        IntStream.range(0, EXPECTED).forEach(i -> MatcherAssert.assertThat(
+                underTest.mightContain(FingerprintUrlSet.fingerprint("http://mysite.com/" + i)), Matchers.is(true)));
+        long falsePositives = IntStream.range(0, EXPECTED)
+                .filter(i -> underTest.mightContain(FingerprintUrlSet.fingerprint("http://othersite.com/" + i)))
+                .count();
+        MatcherAssert.assertThat((double) falsePositives / EXPECTED, Matchers.lessThan(0.015));
+    }
+
+    @Test
+    public void concurrent_puts_should_not_be_lost() {
+        BloomFilter underTest = new BloomFilter(EXPECTED, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CompletableFuture<?>[] tasks = IntStream.range(0, 8)
+                .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                    for (long i = t; i < EXPECTED; i += 8) {
+                        underTest.put(ConcurrentLongSet.mix(i));
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).join();
+        executor.shutdown();
+
+        IntStream.range(0, EXPECTED).forEach(i ->
+                MatcherAssert.assertThat(underTest.mightContain(ConcurrentLongSet.mix(i)), Matchers.is(true)));
+    }
+}
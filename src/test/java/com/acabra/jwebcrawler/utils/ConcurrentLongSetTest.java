@@ -0,0 +1,60 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentLongSetTest {
+
+    @Test
+    public void should_add_values_once() {
+        ConcurrentLongSet underTest = new ConcurrentLongSet(16);
+        MatcherAssert.assertThat(underTest.add(42L), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.add(42L), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.add(0L), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.add(0L), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.add(-1L), Matchers.is(true));
+
+        MatcherAssert.assertThat(underTest.contains(42L), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.contains(0L), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.contains(-1L), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.contains(43L), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(3));
+    }
+
+    @Test
+    public void should_grow_beyond_expected_size() {
+        ConcurrentLongSet underTest = new ConcurrentLongSet(16);
+        IntStream.range(1, 100_001).forEach(underTest::add);
+
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(100_000));
+        IntStream.range(1, 100_001).forEach(i -> MatcherAssert.assertThat(underTest.contains(i), Matchers.is(true)));
+        MatcherAssert.assertThat(underTest.contains(100_001L), Matchers.is(false));
+    }
+
+    @Test
+    public void concurrent_adds_should_succeed_once_per_value() {
+        ConcurrentLongSet underTest = new ConcurrentLongSet(16);
+        LongAdder added = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CompletableFuture<?>[] tasks = IntStream.range(0, 8)
+                .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                    for (long i = 0; i < 50_000; i++) {
+                        if (underTest.add(i * 31L)) {
+                            added.increment();
+                        }
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).join();
+        executor.shutdown();
+
+        MatcherAssert.assertThat(added.sum(), Matchers.is(50_000L));
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(50_000));
+    }
+}
@@ -0,0 +1,86 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+class HrefScannerTest {
+
+    private static List<String> scan(String html, int chunkSize) {
+        List<String> hrefs = new ArrayList<>();
+        HrefScanner underTest = new HrefScanner(hrefs::add, StandardCharsets.UTF_8);
+        byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            underTest.feed(ByteBuffer.wrap(bytes, i, Math.min(chunkSize, bytes.length - i)));
+        }
+        return hrefs;
+    }
+
+    @Test
+    void should_find_quoted_and_unquoted_hrefs() {
+        String html = "<html><body><a href=\"/a.html\">a</a><A HREF='/b.html'>b</A><a class=x href=/c.html>c</a>" +
+                "<a href = \" /d.html \" >d</a></body></html>";
+
+        MatcherAssert.assertThat(scan(html, 4096), Matchers.contains("/a.html", "/b.html", "/c.html", "/d.html"));
+    }
+
+    @Test
+    void should_find_hrefs_split_across_chunks() {
+        String html = "<p>text</p><a title=\"a > b\" href=\"/first.html\">1</a><div><a\nhref=\"/second.html\">2</a>";
+
+        for (int chunkSize = 1; chunkSize < 8; chunkSize++) {
+            MatcherAssert.assertThat(scan(html, chunkSize), Matchers.contains("/first.html", "/second.html"));
+        }
+    }
+
+    @Test
+    void should_ignore_other_tags_and_attributes() {
+        String html = "<link href=\"/style.css\"><area href=\"/area.html\"><abbr href=\"/abbr.html\">" +
+                "<a data-href=\"/data.html\" hreflang=\"en\">x</a><!-- <a href=\"/comment.html\"> --></a href=\"/end\">";
+
+        MatcherAssert.assertThat(scan(html, 4096), Matchers.empty());
+    }
+
+    @Test
+    void should_keep_only_the_first_href_of_a_tag() {
+        MatcherAssert.assertThat(scan("<a href=\"/one.html\" href=\"/two.html\">", 4096), Matchers.contains("/one.html"));
+    }
+
+    @Test
+    void should_decode_character_references() {
+        String html = "<a href=\"/q?a=1&amp;b=2&#38;c=&#x33;&unknown;\">q</a><a href=\"/caf&#233;\">c</a>";
+
+        MatcherAssert.assertThat(scan(html, 4096), Matchers.contains("/q?a=1&b=2&c=3&unknown;", "/café"));
+    }
+
+    @Test
+    void should_skip_values_longer_than_the_buffer() {
+        String html = "<a href=\"/" + "x".repeat(10_000) + "\">long</a><a href=\"/short.html\">short</a>";
+
+        MatcherAssert.assertThat(scan(html, 1024), Matchers.contains("/short.html"));
+    }
+
+    @Test
+    void should_skip_comments_and_raw_text_split_across_chunks() {
+        String html = "<!-- <a href=\"/comment.html\"> --><script>document.write('<a href=\"/script.html\">')" +
+                "</script><a href=\"/after.html\">after</a><title><a href=\"/title.html\"></TITLE>";
+
+        for (int chunkSize = 1; chunkSize < 8; chunkSize++) {
+            MatcherAssert.assertThat(scan(html, chunkSize), Matchers.contains("/after.html"));
+        }
+    }
+
+    @Test
+    void should_report_base_hrefs_apart_from_anchors() {
+        List<String> anchors = new ArrayList<>();
+        List<String> bases = new ArrayList<>();
+        new HrefScanner(anchors::add, bases::add, null).feed("<base href=\"/dir/\"><a href=\"page.html\">p</a>");
+
+        MatcherAssert.assertThat(anchors, Matchers.contains("page.html"));
+        MatcherAssert.assertThat(bases, Matchers.contains("/dir/"));
+    }
+}
@@ -3,6 +3,7 @@ package com.acabra.jwebcrawler.utils;
 import com.acabra.jwebcrawler.dto.DefaultCrawlerConfiguration;
 import com.acabra.jwebcrawler.model.CrawlerAppConfig;
 import java.io.IOException;
+import java.util.List;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
@@ -31,6 +32,31 @@ class JsonHelperTest {
         MatcherAssert.assertThat(expectedConfig.siteHeight, Matchers.is(6));
         MatcherAssert.assertThat(expectedConfig.maxSiteNodeLinks, Matchers.is(10));
         MatcherAssert.assertThat(expectedConfig.reportToFile, Matchers.is(false));
+        MatcherAssert.assertThat(expectedConfig.maxInFlightRequests, Matchers.is(0));
+        MatcherAssert.assertThat(expectedConfig.executionMode, Matchers.is("FIXED_POOL"));
+        MatcherAssert.assertThat(expectedConfig.exactUrlDedup, Matchers.is(false));
+        MatcherAssert.assertThat(expectedConfig.bloomFilterExpectedUrls, Matchers.is(0));
+        MatcherAssert.assertThat(expectedConfig.queryParameterPolicy, Matchers.is("KEEP"));
+        MatcherAssert.assertThat(expectedConfig.strippedQueryParameters, Matchers.is(List.of()));
+        MatcherAssert.assertThat(expectedConfig.streamLinkExtraction, Matchers.is(false));
+        MatcherAssert.assertThat(expectedConfig.linkExtractor, Matchers.is("JSOUP"));
+        MatcherAssert.assertThat(expectedConfig.maxBodySizeKb, Matchers.is(10240));
+        MatcherAssert.assertThat(expectedConfig.pathScopes, Matchers.is(List.of()));
+        MatcherAssert.assertThat(expectedConfig.excludedExtensions, Matchers.is(List.of("pdf", "zip", "gz", "exe", "jpg", "jpeg", "png", "gif", "svg", "ico", "mp3", "mp4", "avi", "mov")));
+        MatcherAssert.assertThat(expectedConfig.maxQueryParameters, Matchers.is(0));
+        MatcherAssert.assertThat(expectedConfig.includePatterns, Matchers.is(List.of()));
+        MatcherAssert.assertThat(expectedConfig.excludePatterns, Matchers.is(List.of()));
+        MatcherAssert.assertThat(expectedConfig.frontier, Matchers.is("LEVEL"));
+        MatcherAssert.assertThat(expectedConfig.nodeScorer, Matchers.is("DEPTH"));
+        MatcherAssert.assertThat(expectedConfig.frontierMemoryNodes, Matchers.is(100000));
+        MatcherAssert.assertThat(expectedConfig.spillDirectory, Matchers.is(""));
+        MatcherAssert.assertThat(expectedConfig.consumerBatchSize, Matchers.is(1));
+        MatcherAssert.assertThat(expectedConfig.parseThreads, Matchers.is(0));
+        MatcherAssert.assertThat(expectedConfig.stageMetricsIntervalMillis, Matchers.is(10000L));
+        MatcherAssert.assertThat(expectedConfig.maxPendingBodySizeKb, Matchers.is(65536));
+        MatcherAssert.assertThat(expectedConfig.reportGzip, Matchers.is(false));
+        MatcherAssert.assertThat(expectedConfig.exportFormat, Matchers.is("NONE"));
+        MatcherAssert.assertThat(expectedConfig.hostDelayMillis, Matchers.is(0L));
 
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+class UrlFilterTest {
+
+    private static final String SITE = "http://mysite.com";
+
+    private static UrlFilter filterOf(List<String> pathScopes, List<String> excludedExtensions, int maxQueryParameters,
+                                      List<String> includePatterns, List<String> excludePatterns) {
+        return new UrlFilter(SITE, pathScopes, excludedExtensions, maxQueryParameters, includePatterns,
+                excludePatterns);
+    }
+
+    @Test
+    void should_accept_only_links_of_the_site() {
+        UrlFilter underTest = filterOf(List.of(), List.of(), 0, List.of(), List.of());
+
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/a/b.html?x=1"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com.evil.com/"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.test("https://mysite.com/"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.test("http://other.com/"), Matchers.is(false));
+    }
+
+    @Test
+    void should_accept_only_links_in_the_path_scopes() {
+        UrlFilter underTest = filterOf(List.of("/blog/", "docs"), List.of(), 0, List.of(), List.of());
+
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/blog/post.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/docs/index.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/docs-old/index.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/blog"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/shop/item.html"), Matchers.is(false));
+    }
+
+    @Test
+    void should_reject_excluded_extensions_of_the_last_segment_only() {
+        UrlFilter underTest = filterOf(List.of(), List.of("PDF", ".zip"), 0, List.of(), List.of());
+
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/file.pdf"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/file.PDF?download=1"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/files/archive.zip"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/pdf"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/v1.pdf/index.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/page.html?file=a.pdf"), Matchers.is(true));
+    }
+
+    @Test
+    void should_reject_links_with_too_many_query_parameters() {
+        UrlFilter underTest = filterOf(List.of(), List.of(), 2, List.of(), List.of());
+
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/?a=1&b=2"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/?"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/?a=1&b=2&c=3"), Matchers.is(false));
+    }
+
+    @Test
+    void should_apply_include_and_exclude_patterns_to_path_and_query() {
+        UrlFilter underTest = filterOf(List.of(), List.of(), 0, List.of("/blog/**", "glob:/*.html"),
+                List.of("/**/print/*", "regex:.*[?&]sessionid=.*"));
+
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/index.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/blog/2020/post.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/shop/index.html"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/blog/2020/print/post.html"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.test("http://mysite.com/blog/post.html?sessionid=42"), Matchers.is(false));
+    }
+
+    @Test
+    void should_translate_globs_to_regexes() {
+        MatcherAssert.assertThat(UrlFilter.globToRegex("/a/**/b?.html"), Matchers.is("/a/.*/b[^/]\\.html"));
+        MatcherAssert.assertThat(UrlFilter.globToRegex("/*.(x)"), Matchers.is("/[^/]*\\.\\(x\\)"));
+        MatcherAssert.assertThat(UrlFilter.compile(List.of()), Matchers.nullValue());
+        MatcherAssert.assertThat(UrlFilter.compile(List.of("/a", "regex:b+")).pattern(), Matchers.is("(?:/a)|(?:b+)"));
+    }
+
+    @Test
+    void prefix_trie_should_match_any_prefix() {
+        UrlFilter.PrefixTrie underTest = new UrlFilter.PrefixTrie();
+        underTest.add("http://a.com/x/");
+        underTest.add("http://a.com/y");
+        underTest.add("http://b.com/");
+
+        MatcherAssert.assertThat(underTest.matchesAnyPrefix("http://a.com/x/1.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.matchesAnyPrefix("http://a.com/yz"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.matchesAnyPrefix("http://b.com/"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.matchesAnyPrefix("http://a.com/x"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.matchesAnyPrefix("http://c.com/"), Matchers.is(false));
+    }
+}
@@ -0,0 +1,64 @@
+package com.acabra.jwebcrawler.utils;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class UrlSetTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlSetTest.class);
+    private static final int TOTAL_URLS = 1_000_000;
+
+    private static void assertSetBehaviour(UrlSet underTest) {
+        MatcherAssert.assertThat(underTest.add("http://mysite.com/a.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.add("http://mysite.com/a.html"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.contains("http://mysite.com/a.html"), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.contains("http://mysite.com/b.html"), Matchers.is(false));
+        MatcherAssert.assertThat(underTest.add(""), Matchers.is(true));
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(2));
+    }
+
+    @Test
+    public void exact_set_should_keep_urls() {
+        assertSetBehaviour(UrlSet.of(true, 16));
+    }
+
+    @Test
+    public void fingerprint_set_should_keep_urls() {
+        assertSetBehaviour(UrlSet.of(false, 16));
+    }
+
+    @Test
+    public void fingerprints_should_differ_for_similar_urls() {
+        Set<Long> fingerprints = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            fingerprints.add(FingerprintUrlSet.fingerprint("http://mysite.com/" + i));
+            fingerprints.add(FingerprintUrlSet.fingerprint("http://mysite.com/" + i + "/"));
+        }
+        MatcherAssert.assertThat(fingerprints.size(), Matchers.is(200_000));
+        MatcherAssert.assertThat(FingerprintUrlSet.fingerprint("http://mysite.com/ab"),
+                Matchers.not(FingerprintUrlSet.fingerprint("http://mysite.com/ba")));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void fingerprint_set_should_hold_a_million_urls_compactly() {
+        FingerprintUrlSet underTest = new FingerprintUrlSet(TOTAL_URLS);
+        long start = System.nanoTime();
+        for (int i = 0; i < TOTAL_URLS; i++) {
+            underTest.add("http://mysite.com/section" + (i % 100) + "/page" + i + ".html");
+        }
+        long elapsed = System.nanoTime() - start;
+        double bytesPerUrl = (double) underTest.capacityBytes() / TOTAL_URLS;
+        logger.info(String.format("%,d urls added in %.3fs, %.1f bytes per url", TOTAL_URLS, elapsed / 1e9,
+                bytesPerUrl));
+
+        MatcherAssert.assertThat(underTest.size(), Matchers.is(TOTAL_URLS));
+        MatcherAssert.assertThat(bytesPerUrl, Matchers.lessThan(24.0));
+    }
+}
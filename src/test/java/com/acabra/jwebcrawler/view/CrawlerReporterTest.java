@@ -1,16 +1,13 @@
 package com.acabra.jwebcrawler.view;
 
 import com.acabra.jwebcrawler.control.TestUtils;
+import com.acabra.jwebcrawler.model.CrawlGraph;
 import com.acabra.jwebcrawler.model.CrawlSiteResponse;
 import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.UrlArena;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
@@ -22,7 +19,6 @@ class CrawlerReporterTest {
 
 
     private static final String SUB_DOMAIN = "example.com:80";
-    private static final Comparator<CrawledNode> COMPARATOR = Comparator.comparing(a -> a.url);
     private static Appender stringAppender;
     private CrawlerReporter underTest;
 
@@ -55,14 +51,15 @@ class CrawlerReporterTest {
     @Test
     public void should_build_empty_report() {
         String actualReport = underTest
-                .buildReport(new CrawlSiteResponse(SUB_DOMAIN, Collections.emptyMap(), 0, 0, 0L, 0.5, 0), stringAppender)
+                .buildReport(new CrawlSiteResponse(SUB_DOMAIN, new CrawlGraph(new UrlArena()).sortedView(), 0, 0, 0L,
+                        0.5, 0), stringAppender)
                 .get();
         MatcherAssert.assertThat(actualReport, Matchers.is(CrawlerReporter.EMPTY_REPORT_CONTENT));
     }
 
     @Test
     public void should_build_non_empty_report_to_string() {
-        Map<Long, PriorityQueue<CrawledNode>> graph = buildGraph();
+        CrawlGraph.View graph = buildGraph();
         String actualReport = underTest
                 .buildReport(new CrawlSiteResponse(SUB_DOMAIN, graph, 0, 0, 0L, 0.5, 0), stringAppender)
                 .get();
@@ -73,7 +70,7 @@ class CrawlerReporterTest {
 
     @Test
     public void should_build_non_empty_report_to_console() {
-        Map<Long, PriorityQueue<CrawledNode>> graph = buildGraph();
+        CrawlGraph.View graph = buildGraph();
         ConsoleAppender appender = new ConsoleAppender();
         Optional<String> textReport = underTest
                 .buildReport(new CrawlSiteResponse(SUB_DOMAIN, graph, 0, 0, 0L, 0.5, 0), appender);
@@ -84,7 +81,7 @@ class CrawlerReporterTest {
 
     @Test
     public void should_build_non_empty_report_to_file() throws IOException {
-        Map<Long, PriorityQueue<CrawledNode>> graph = buildGraph();
+        CrawlGraph.View graph = buildGraph();
         FileWriterAppender appender = new FileWriterAppender(SUB_DOMAIN, "identifier_001");
         Optional<String> reportResult = underTest
                 .buildReport(new CrawlSiteResponse(SUB_DOMAIN, graph, 0, 0, 0L, 0.5, 8), appender);
@@ -146,16 +143,13 @@ class CrawlerReporterTest {
         MatcherAssert.assertThat(TestUtils.reportFileWasCreated("yourdomain.com"), Matchers.is(false));
     }
 
-    private Map<Long, PriorityQueue<CrawledNode>> buildGraph() {
-        Map<Long, PriorityQueue<CrawledNode>> graph = new HashMap<>();
-        CrawledNode rootNode = new CrawledNode(SUB_DOMAIN, 0L);
-        CrawledNode childRoot = new CrawledNode(SUB_DOMAIN + "/page.html", 1L, rootNode.level + 1, rootNode.id);
-        graph.put(CrawledNode.ROOT_NODE_PARENT_ID, new PriorityQueue<>(COMPARATOR) {{
-            offer(rootNode);
-        }});
-        graph.put(rootNode.id, new PriorityQueue<>(COMPARATOR) {{
-            offer(childRoot);
-        }});
-        return graph;
+    private CrawlGraph.View buildGraph() {
+        UrlArena urls = new UrlArena();
+        CrawlGraph graph = new CrawlGraph(urls);
+        CrawledNode rootNode = new CrawledNode(urls, SUB_DOMAIN, 0L);
+        CrawledNode childRoot = new CrawledNode(urls, SUB_DOMAIN + "/page.html", 1L, rootNode.level + 1, rootNode.id);
+        graph.add(rootNode);
+        graph.add(childRoot);
+        return graph.sortedView();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,220 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.control.TestUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class FileChannelAppenderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileChannelAppenderTest.class);
+
+    @BeforeEach
+    public void clean() {
+        TestUtils.cleanReportsFolder();
+    }
+
+    /**
+     * @return text longer than the buffer of the appender, with characters of every utf-8 length
+     */
+    private static String report() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 * FileChannelAppender.BUFFER_BYTES; i++) {
+            text.append("---http://mysite.com/café/页面-").append(i).append("/😀.html\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Appends the text alternating strings and bytes, in fragments of different sizes.
+     */
+    private static void appendFragments(Appender appender, String text) throws IOException {
+        int start = 0;
+        for (int i = 0; start < text.length(); i++) {
+            int end = Math.min(text.length(), start + 1 + (i * 7919) % 5000);
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                ++end;
+            }
+            String fragment = text.substring(start, end);
+            if (i % 2 == 0) {
+                appender.append(fragment);
+            } else {
+                byte[] utf8 = fragment.getBytes(StandardCharsets.UTF_8);
+                appender.append(utf8, 0, utf8.length);
+            }
+            start = end;
+        }
+    }
+
+    @Test
+    void should_write_text_and_bytes_in_utf8(@TempDir Path dir) throws IOException {
+        String text = report();
+        Path file = dir.resolve("report.txt");
+
+        try (FileChannelAppender underTest = new FileChannelAppender(file, false)) {
+            appendFragments(underTest, text);
+            MatcherAssert.assertThat(underTest.textIfAvailable().isPresent(), Matchers.is(false));
+        }
+
+        MatcherAssert.assertThat(Files.readString(file, StandardCharsets.UTF_8), Matchers.is(text));
+    }
+
+    @Test
+    void should_compress_the_file_with_gzip(@TempDir Path dir) throws IOException {
+        String text = report();
+        Path file = dir.resolve("report.txt.gz");
+
+        try (FileChannelAppender underTest = new FileChannelAppender(file, true)) {
+            appendFragments(underTest, text);
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            MatcherAssert.assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), Matchers.is(text));
+        }
+        MatcherAssert.assertThat(Files.size(file), Matchers.lessThan((long) text.length() / 4));
+    }
+
+    @Test
+    void should_create_the_report_file_of_the_site() throws IOException {
+        FileChannelAppender underTest = new FileChannelAppender("http://mysite.com", "002", true);
+        underTest.append("somerandomtext");
+        underTest.close();
+        underTest.close();
+
+        MatcherAssert.assertThat(underTest.getFileName(), Matchers.is("CrawlReport-mysite.com-002.txt.gz"));
+        MatcherAssert.assertThat(TestUtils.reportFileWasCreated("http://mysite.com"), Matchers.is(true));
+    }
+
+    @Test
+    void buffered_console_appender_should_print_in_chunks() throws IOException {
+        String text = report();
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        int[] writes = new int[1];
+        PrintStream out = new PrintStream(printed, false, StandardCharsets.UTF_8) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                ++writes[0];
+                super.write(bytes, offset, length);
+            }
+        };
+
+        BufferedConsoleAppender underTest = new BufferedConsoleAppender(out, BufferedConsoleAppender.CHUNK_BYTES);
+        appendFragments(underTest, text);
+        underTest.close();
+
+        MatcherAssert.assertThat(printed.toString(StandardCharsets.UTF_8), Matchers.is(text));
+        MatcherAssert.assertThat(writes[0], Matchers.lessThanOrEqualTo(
+                1 + text.getBytes(StandardCharsets.UTF_8).length / BufferedConsoleAppender.CHUNK_BYTES));
+    }
+
+    @Test
+    void should_replace_surrogates_without_their_pair() throws IOException {
+        String text = "a\uD83D\uDE00b\uD83Dc\uDE00d\uD83D";
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(printed, false, StandardCharsets.UTF_8);
+
+        BufferedConsoleAppender underTest = new BufferedConsoleAppender(out, BufferedConsoleAppender.CHUNK_BYTES);
+        underTest.append(text).append("\uDE00");
+        underTest.close();
+
+        MatcherAssert.assertThat(printed.toByteArray(),
+                Matchers.is((text + "?").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void should_measure_the_throughput_of_the_appenders(@TempDir Path dir) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            line.append("---");
+        }
+        String prefix = line.append("http://mysite.com/section-7/page-").toString();
+        int lines = 500_000;
+        PrintStream discarded = new PrintStream(OutputStream.nullOutputStream());
+        long bytes = 0;
+        for (int round = 0; round < 4; round++) { // the first two rounds warm up
+            boolean chunked = round % 2 == 1;
+            long start = System.nanoTime();
+            try (FileWriterAppender appender = new FileWriterAppender("http://throughput.com", "writer")) {
+                bytes = writeLines(appender, prefix, lines, chunked);
+            }
+            long writer = System.nanoTime() - start;
+            start = System.nanoTime();
+            try (FileChannelAppender appender = new FileChannelAppender(dir.resolve("channel.txt"), false)) {
+                writeLines(appender, prefix, lines, chunked);
+            }
+            long channel = System.nanoTime() - start;
+            start = System.nanoTime();
+            try (FileChannelAppender appender = new FileChannelAppender(dir.resolve("channel.txt.gz"), true)) {
+                writeLines(appender, prefix, lines, chunked);
+            }
+            long gzip = System.nanoTime() - start;
+            ConsoleAppender consoleAppender = new ConsoleAppender(discarded);
+            start = System.nanoTime();
+            writeLines(consoleAppender, prefix, lines, chunked);
+            consoleAppender.close();
+            long printed = System.nanoTime() - start;
+            BufferedConsoleAppender bufferedConsoleAppender = new BufferedConsoleAppender(discarded,
+                    BufferedConsoleAppender.CHUNK_BYTES);
+            start = System.nanoTime();
+            writeLines(bufferedConsoleAppender, prefix, lines, chunked);
+            bufferedConsoleAppender.close();
+            long buffered = System.nanoTime() - start;
+
+            logger.info(String.format("%d MB of report appended %s, MB/s of file writer: %.0f, file channel: %.0f, "
+                            + "file channel gzip: %.0f, console: %.0f, buffered console: %.0f", bytes >> 20,
+                    chunked ? "in chunks of bytes" : "in fragments of text", throughput(bytes, writer),
+                    throughput(bytes, channel), throughput(bytes, gzip), throughput(bytes, printed),
+                    throughput(bytes, buffered)));
+        }
+        MatcherAssert.assertThat(Files.size(dir.resolve("channel.txt")), Matchers.is(bytes));
+    }
+
+    /**
+     * Appends lines in the fragments of text the reporter used to, the indent, the url and the line break apart, or
+     * in chunks of bytes of whole lines as the reporter does now.
+     * @return the bytes appended
+     */
+    private static long writeLines(Appender appender, String prefix, int lines, boolean chunked) throws IOException {
+        long bytes = 0;
+        String indent = prefix.substring(0, prefix.indexOf('h'));
+        String url = prefix.substring(indent.length());
+        byte[] chunk = new byte[SiteMapWriter.DEFAULT_CHUNK_BYTES];
+        int position = 0;
+        for (int i = 0; i < lines; i++) {
+            String page = url + i + ".html";
+            if (chunked) {
+                byte[] line = (indent + page + "\n").getBytes(StandardCharsets.UTF_8);
+                if (position + line.length > chunk.length) {
+                    appender.append(chunk, 0, position);
+                    position = 0;
+                }
+                System.arraycopy(line, 0, chunk, position, line.length);
+                position += line.length;
+            } else {
+                appender.append(indent).append(page).append("\n");
+            }
+            bytes += indent.length() + page.length() + 1;
+        }
+        appender.append(chunk, 0, position);
+        return bytes;
+    }
+
+    private static double throughput(long bytes, long nanos) {
+        return bytes / (1024.0 * 1024.0) / (nanos / 1e9);
+    }
+}
@@ -0,0 +1,266 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.control.TestUtils;
+import com.acabra.jwebcrawler.model.CrawlGraph;
+import com.acabra.jwebcrawler.model.CrawlSiteResponse;
+import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.ExportFormat;
+import com.acabra.jwebcrawler.model.UrlArena;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class GraphExporterTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphExporterTest.class);
+    private static final String QUOTED_URL = "http://mysite.com/a/café,\"x\".html";
+
+    /**
+     * Keeps the bytes appended.
+     */
+    private static class BytesAppender implements Appender {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public Appender append(String text) {
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            return append(utf8, 0, utf8.length);
+        }
+
+        @Override
+        public Appender append(byte[] utf8, int offset, int length) {
+            this.bytes.write(utf8, offset, length);
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Optional<String> textIfAvailable() {
+            return Optional.of(this.bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Counts the bytes appended without keeping them.
+     */
+    private static class CountingAppender implements Appender {
+        private long bytes;
+
+        @Override
+        public Appender append(String text) {
+            this.bytes += text.length();
+            return this;
+        }
+
+        @Override
+        public Appender append(byte[] utf8, int offset, int length) {
+            this.bytes += length;
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Optional<String> textIfAvailable() {
+            return Optional.empty();
+        }
+    }
+
+    @BeforeEach
+    public void clean() {
+        TestUtils.cleanReportsFolder();
+    }
+
+    /**
+     * @return a site with a redirection at the root, a page not downloaded and a url to be quoted in csv
+     */
+    private static CrawlGraph.View siteGraph() {
+        UrlArena urls = new UrlArena();
+        CrawlGraph graph = new CrawlGraph(urls);
+        graph.add(new CrawledNode(urls, "http://mysite.com/", 0, 0, CrawledNode.ROOT_NODE_PARENT_ID));
+        graph.add(new CrawledNode(urls, "http://mysite.com/b/", 1, 1, 0));
+        graph.add(new CrawledNode(urls, QUOTED_URL, 2, 1, 0));
+        graph.add(new CrawledNode(urls, "http://mysite.com/b/x.html", 3, 2, 1));
+        graph.add(new CrawledNode(urls, "http://redirected.com/", 4, 0, CrawledNode.ROOT_NODE_PARENT_ID));
+        graph.setStatus(0, 200);
+        graph.setStatus(1, 301);
+        graph.setStatus(3, 404);
+        graph.setStatus(4, 200);
+        return graph.sortedView();
+    }
+
+    @Test
+    void should_export_a_json_object_per_line() throws IOException {
+        BytesAppender appender = new BytesAppender();
+
+        long nodes = GraphExporter.of(ExportFormat.JSON_LINES, appender).write(siteGraph());
+
+        String text = appender.textIfAvailable().orElseThrow();
+        MatcherAssert.assertThat(nodes, Matchers.is(5L));
+        MatcherAssert.assertThat(text, Matchers.endsWith("}\n"));
+        String[] lines = text.split("\n");
+        MatcherAssert.assertThat(lines.length, Matchers.is(5));
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode quoted = mapper.readTree(lines[2]);
+        MatcherAssert.assertThat(quoted.get("id").asInt(), Matchers.is(2));
+        MatcherAssert.assertThat(quoted.get("parentId").asInt(), Matchers.is(0));
+        MatcherAssert.assertThat(quoted.get("level").asInt(), Matchers.is(1));
+        MatcherAssert.assertThat(quoted.get("url").asText(), Matchers.is(QUOTED_URL));
+        MatcherAssert.assertThat(quoted.get("status").asInt(), Matchers.is(0));
+        JsonNode redirected = mapper.readTree(lines[4]);
+        MatcherAssert.assertThat(redirected.get("parentId").asLong(), Matchers.is(CrawledNode.ROOT_NODE_PARENT_ID));
+        MatcherAssert.assertThat(redirected.get("url").asText(), Matchers.is("http://redirected.com/"));
+    }
+
+    @Test
+    void should_export_a_csv_line_per_node() throws IOException {
+        BytesAppender appender = new BytesAppender();
+
+        long nodes = GraphExporter.of(ExportFormat.CSV, appender).write(siteGraph());
+
+        MatcherAssert.assertThat(nodes, Matchers.is(5L));
+        MatcherAssert.assertThat(appender.textIfAvailable().orElseThrow(), Matchers.is(
+                "id,parentId,level,url,status\n"
+                        + "0,-1,0,http://mysite.com/,200\n"
+                        + "1,0,1,http://mysite.com/b/,301\n"
+                        + "2,0,1,\"http://mysite.com/a/café,\"\"x\"\".html\",0\n"
+                        + "3,1,2,http://mysite.com/b/x.html,404\n"
+                        + "4,-1,0,http://redirected.com/,200\n"));
+    }
+
+    @Test
+    void should_export_the_links_in_compressed_sparse_rows() throws IOException {
+        BytesAppender appender = new BytesAppender();
+
+        GraphExporter.of(ExportFormat.CSR, appender).write(siteGraph());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(appender.bytes.toByteArray()));
+        MatcherAssert.assertThat(in.readInt(), Matchers.is(CsrExporter.MAGIC));
+        int rows = in.readInt();
+        int links = in.readInt();
+        int roots = in.readInt();
+        MatcherAssert.assertThat(List.of(rows, links, roots), Matchers.contains(5, 3, 2));
+        MatcherAssert.assertThat(readInts(in, roots), Matchers.contains(4, 0));
+        MatcherAssert.assertThat(readInts(in, rows + 1), Matchers.contains(0, 2, 3, 3, 3, 3));
+        MatcherAssert.assertThat(readInts(in, links), Matchers.contains(1, 2, 3));
+        MatcherAssert.assertThat(in.available(), Matchers.is(0));
+    }
+
+    private static List<Integer> readInts(DataInputStream in, int count) throws IOException {
+        List<Integer> ints = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ints.add(in.readInt());
+        }
+        return ints;
+    }
+
+    @Test
+    void should_not_export_without_a_format() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> GraphExporter.of(ExportFormat.NONE, new BytesAppender()));
+        MatcherAssert.assertThat(ExportFormat.of(null), Matchers.is(ExportFormat.NONE));
+        MatcherAssert.assertThat(ExportFormat.of(" json_lines"), Matchers.is(ExportFormat.JSON_LINES));
+    }
+
+    @Test
+    void reporter_should_export_the_graph_to_a_compressed_file() throws IOException {
+        CrawlSiteResponse siteResponse = new CrawlSiteResponse("http://mysite.com", siteGraph(), 1, 1, 0L, 1.0, 1);
+        CrawlerReporter underTest = new CrawlerReporter();
+
+        underTest.export(ExportFormat.NONE, true, siteResponse, "003");
+        MatcherAssert.assertThat(TestUtils.reportFileWasCreated("http://mysite.com"), Matchers.is(false));
+        underTest.export(ExportFormat.CSV, true, siteResponse, "003");
+
+        Path file = Paths.get(FileWriterAppender.REPORT_DEST_FOLDER, "CrawlReport-mysite.com-003.csv.gz");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            MatcherAssert.assertThat(csv, Matchers.startsWith("id,parentId,level,url,status\n0,-1,0,"));
+            MatcherAssert.assertThat(csv.split("\n").length, Matchers.is(6));
+        }
+    }
+
+    /**
+     * Serializes the nodes the way an exporter without the streaming generator would, a map and a string per node.
+     */
+    private static long mapperJsonLines(CrawlGraph.View graph, Appender appender) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        long nodes = 0;
+        for (int id = 0; id <= graph.maxId(); id++) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", id);
+            node.put("parentId", graph.parentId(id));
+            node.put("level", graph.level(id));
+            node.put("url", graph.url(id));
+            node.put("status", graph.status(id));
+            appender.append(mapper.writeValueAsString(node)).append("\n");
+            ++nodes;
+        }
+        return nodes;
+    }
+
+    @Test
+    @Tag("benchmark")
+    void should_measure_the_exports() throws IOException {
+        CrawlGraph.View graph = TestUtils.randomGraph(new Random(25L), 1_000_000);
+        // warm up every way before measuring them
+        mapperJsonLines(graph, new CountingAppender());
+        for (ExportFormat format : List.of(ExportFormat.JSON_LINES, ExportFormat.CSV, ExportFormat.CSR)) {
+            GraphExporter.of(format, new CountingAppender()).write(graph);
+        }
+
+        CountingAppender mapped = new CountingAppender();
+        long allocated = TestUtils.allocatedBytes();
+        long start = System.nanoTime();
+        long nodes = mapperJsonLines(graph, mapped);
+        long mapperNanos = System.nanoTime() - start;
+        long mapperAllocated = TestUtils.allocatedBytes() - allocated;
+        StringBuilder log = new StringBuilder(String.format("export of %d nodes, json lines of an object mapper: "
+                + "%d ms, %d MB allocated", nodes, mapperNanos / 1_000_000, mapperAllocated >> 20));
+
+        for (ExportFormat format : List.of(ExportFormat.JSON_LINES, ExportFormat.CSV, ExportFormat.CSR)) {
+            CountingAppender exported = new CountingAppender();
+            allocated = TestUtils.allocatedBytes();
+            start = System.nanoTime();
+            long written = GraphExporter.of(format, exported).write(graph);
+            long exportNanos = System.nanoTime() - start;
+            long exportAllocated = TestUtils.allocatedBytes() - allocated;
+            log.append(String.format(", %s: %d ms, %d MB written, %d KB allocated", format,
+                    exportNanos / 1_000_000, exported.bytes >> 20, exportAllocated >> 10));
+
+            MatcherAssert.assertThat(written, Matchers.is(nodes));
+            MatcherAssert.assertThat(exportAllocated, Matchers.lessThan(mapperAllocated / 10));
+            if (format == ExportFormat.JSON_LINES) {
+                MatcherAssert.assertThat(exported.bytes, Matchers.is(mapped.bytes));
+            }
+        }
+        logger.info(log.toString());
+    }
+}
@@ -0,0 +1,152 @@
+package com.acabra.jwebcrawler.view;
+
+import com.acabra.jwebcrawler.control.TestUtils;
+import com.acabra.jwebcrawler.model.CrawlGraph;
+import com.acabra.jwebcrawler.model.CrawledNode;
+import com.acabra.jwebcrawler.model.UrlArena;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Stack;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class SiteMapWriterTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteMapWriterTest.class);
+    private static final String NL = System.lineSeparator();
+
+    /**
+     * Keeps the bytes appended and the size of every chunk.
+     */
+    private static class BytesAppender implements Appender {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final List<Integer> chunks = new ArrayList<>();
+
+        @Override
+        public Appender append(String text) {
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            return append(utf8, 0, utf8.length);
+        }
+
+        @Override
+        public Appender append(byte[] utf8, int offset, int length) {
+            this.bytes.write(utf8, offset, length);
+            this.chunks.add(length);
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Optional<String> textIfAvailable() {
+            return Optional.of(this.bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Counts the bytes appended without keeping them.
+     */
+    private static class CountingAppender implements Appender {
+        private long bytes;
+
+        @Override
+        public Appender append(String text) {
+            this.bytes += text.length();
+            return this;
+        }
+
+        @Override
+        public Appender append(byte[] utf8, int offset, int length) {
+            this.bytes += length;
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Optional<String> textIfAvailable() {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Renders the site map the way the reporter did before, a formatted string per page.
+     */
+    private static void formatSiteMap(CrawlGraph.View graph, int root, Appender appender) throws IOException {
+        Stack<CrawledNode> q = new Stack<>();
+        q.push(graph.node(root));
+        while (!q.isEmpty()) {
+            CrawledNode pop = q.pop();
+            appender.append(String.format("%s%s%n", "---".repeat(pop.level), graph.url((int) pop.id)));
+            for (int child = graph.firstChild(pop.id); child != CrawlGraph.NONE; child = graph.nextSibling(child)) {
+                q.push(graph.node(child));
+            }
+        }
+    }
+
+    @Test
+    void should_write_pages_depth_first_in_ascending_order_in_chunks_of_whole_lines() throws IOException {
+        UrlArena urls = new UrlArena();
+        CrawlGraph graph = new CrawlGraph(urls);
+        graph.add(new CrawledNode(urls, "http://mysite.com/", 0, 0, CrawledNode.ROOT_NODE_PARENT_ID));
+        graph.add(new CrawledNode(urls, "http://mysite.com/b/", 1, 1, 0));
+        graph.add(new CrawledNode(urls, "http://mysite.com/a/café.html", 2, 1, 0));
+        graph.add(new CrawledNode(urls, "http://mysite.com/b/x.html", 3, 2, 1));
+        graph.add(new CrawledNode(urls, urls.intern("http://mysite.com/b/" + "y".repeat(40) + ".html"), 4, 2, 1));
+        BytesAppender appender = new BytesAppender();
+
+        long pages = new SiteMapWriter(appender, 24).write(graph.sortedView(), 0);
+
+        MatcherAssert.assertThat(pages, Matchers.is(5L));
+        MatcherAssert.assertThat(appender.textIfAvailable().orElseThrow(), Matchers.is(
+                "http://mysite.com/" + NL
+                        + "---http://mysite.com/a/café.html" + NL
+                        + "---http://mysite.com/b/" + NL
+                        + "------http://mysite.com/b/x.html" + NL
+                        + "------http://mysite.com/b/" + "y".repeat(40) + ".html" + NL));
+        MatcherAssert.assertThat(appender.chunks.size(), Matchers.is(5)); // every line is longer than half a chunk
+    }
+
+    @Test
+    @Tag("benchmark")
+    void should_measure_the_writer_against_formatted_lines() throws IOException {
+        CrawlGraph.View graph = TestUtils.randomGraph(new Random(23L), 1_000_000);
+        // warm up both ways before measuring them
+        formatSiteMap(graph, 0, new CountingAppender());
+        new SiteMapWriter(new CountingAppender(), SiteMapWriter.DEFAULT_CHUNK_BYTES).write(graph, 0);
+
+        CountingAppender formatted = new CountingAppender();
+        long allocated = TestUtils.allocatedBytes();
+        long start = System.nanoTime();
+        formatSiteMap(graph, 0, formatted);
+        long formatNanos = System.nanoTime() - start;
+        long formatAllocated = TestUtils.allocatedBytes() - allocated;
+
+        CountingAppender streamed = new CountingAppender();
+        allocated = TestUtils.allocatedBytes();
+        start = System.nanoTime();
+        long pages = new SiteMapWriter(streamed, SiteMapWriter.DEFAULT_CHUNK_BYTES).write(graph, 0);
+        long writeNanos = System.nanoTime() - start;
+        long writeAllocated = TestUtils.allocatedBytes() - allocated;
+
+        logger.info(String.format("site map of %d pages, %d bytes, formatted lines: %d ms and %d MB allocated, "
+                        + "streamed: %d ms and %d KB allocated", pages, streamed.bytes, formatNanos / 1_000_000,
+                formatAllocated >> 20, writeNanos / 1_000_000, writeAllocated >> 10));
+        MatcherAssert.assertThat(pages, Matchers.is(1_000_000L));
+        MatcherAssert.assertThat(streamed.bytes, Matchers.is(formatted.bytes));
+        MatcherAssert.assertThat(writeAllocated, Matchers.lessThan(formatAllocated / 10));
+    }
+}